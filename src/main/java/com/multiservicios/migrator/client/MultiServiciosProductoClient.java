@@ -1,5 +1,7 @@
 package com.multiservicios.migrator.client;
 
+import java.util.List;
+
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
@@ -7,6 +9,7 @@ import org.springframework.web.client.RestClientResponseException;
 
 import com.multiservicios.migrator.config.MigratorProperties;
 import com.multiservicios.migrator.dto.CreateProductoResponse;
+import com.multiservicios.migrator.dto.CreateProductosResponse;
 
 @Component
 public class MultiServiciosProductoClient {
@@ -31,4 +34,21 @@ public class MultiServiciosProductoClient {
 			throw new IllegalStateException("HTTP " + ex.getStatusCode().value() + " al crear producto: " + (body == null || body.isBlank() ? ex.getMessage() : body));
 		}
 	}
+
+	/**
+	 * Alta en lote vía POST /api/productos/batch; la respuesta trae un ítem por payload, en el mismo orden.
+	 */
+	public CreateProductosResponse createProductos(List<?> payloads, boolean dryRun) {
+		try {
+			return restClient.post()
+					.uri(uriBuilder -> uriBuilder.path("/api/productos/batch").queryParam("dryRun", dryRun).build())
+					.contentType(MediaType.APPLICATION_JSON)
+					.body(payloads)
+					.retrieve()
+					.body(CreateProductosResponse.class);
+		} catch (RestClientResponseException ex) {
+			String body = ex.getResponseBodyAsString();
+			throw new IllegalStateException("HTTP " + ex.getStatusCode().value() + " al crear productos: " + (body == null || body.isBlank() ? ex.getMessage() : body));
+		}
+	}
 }
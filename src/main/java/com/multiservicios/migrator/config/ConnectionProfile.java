@@ -1,5 +1,8 @@
 package com.multiservicios.migrator.config;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import jakarta.validation.constraints.NotBlank;
 
 public class ConnectionProfile {
@@ -14,6 +17,41 @@ public class ConnectionProfile {
 	private String driverClassName;
 	private int validationTimeoutSeconds = 5;
 
+	/**
+	 * Conexiones máximas del pool. Sin valor: 3 para los perfiles configurados y {@code migrator.pools.maxPoolSize}
+	 * para los que llegan desde la UI.
+	 */
+	private Integer maximumPoolSize;
+
+	/**
+	 * Conexiones ociosas que el pool mantiene abiertas (por defecto 0).
+	 */
+	private Integer minimumIdle;
+
+	/**
+	 * Filas por viaje al leer de este perfil. Pisa {@code migrator.extract.fetchSize} y, en PostgreSQL/MySQL, se
+	 * pasa también al driver como fetch size por defecto.
+	 */
+	private Integer fetchSize;
+
+	/**
+	 * Sentencias preparadas cacheadas por conexión en el driver (PostgreSQL: preparedStatementCacheQueries;
+	 * MySQL/MariaDB: cachePrepStmts + prepStmtCacheSize).
+	 */
+	private Integer statementCacheSize;
+
+	/**
+	 * Conexiones de solo lectura (perfiles de origen). En PostgreSQL el driver lo aplica a las transacciones
+	 * explícitas, que es como lee el extractor (autocommit=false); readOnlyMode=always lo extiende a todo.
+	 */
+	private boolean readOnly;
+
+	/**
+	 * Propiedades del driver tal cual (p. ej. reWriteBatchedInserts=true, prepareThreshold=1 en PostgreSQL).
+	 * Tienen prioridad sobre las que se derivan de fetchSize y statementCacheSize.
+	 */
+	private Map<String, String> driverProperties = new LinkedHashMap<>();
+
 	public String getName() {
 		return name;
 	}
@@ -61,4 +99,64 @@ public class ConnectionProfile {
 	public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
 		this.validationTimeoutSeconds = validationTimeoutSeconds;
 	}
+
+	public Integer getMaximumPoolSize() {
+		return maximumPoolSize;
+	}
+
+	public void setMaximumPoolSize(Integer maximumPoolSize) {
+		this.maximumPoolSize = maximumPoolSize;
+	}
+
+	public Integer getMinimumIdle() {
+		return minimumIdle;
+	}
+
+	public void setMinimumIdle(Integer minimumIdle) {
+		this.minimumIdle = minimumIdle;
+	}
+
+	public Integer getFetchSize() {
+		return fetchSize;
+	}
+
+	public void setFetchSize(Integer fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	public Integer getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	public void setStatementCacheSize(Integer statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	public void setReadOnly(boolean readOnly) {
+		this.readOnly = readOnly;
+	}
+
+	public Map<String, String> getDriverProperties() {
+		return driverProperties;
+	}
+
+	public void setDriverProperties(Map<String, String> driverProperties) {
+		this.driverProperties = driverProperties;
+	}
+
+	/**
+	 * Copia el ajuste de pool y driver de {@code other} (no la conexión ni las credenciales).
+	 */
+	public void copyTuningFrom(ConnectionProfile other) {
+		this.maximumPoolSize = other.maximumPoolSize;
+		this.minimumIdle = other.minimumIdle;
+		this.fetchSize = other.fetchSize;
+		this.statementCacheSize = other.statementCacheSize;
+		this.readOnly = other.readOnly;
+		this.driverProperties = other.driverProperties == null ? new LinkedHashMap<>() : new LinkedHashMap<>(other.driverProperties);
+	}
 }
@@ -1,23 +1,88 @@
 package com.multiservicios.migrator.config;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.DataSource;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PreDestroy;
+
 import com.zaxxer.hikari.HikariDataSource;
 
 @Component
 public class DataSourceRegistry {
+	private static final Logger log = LoggerFactory.getLogger(DataSourceRegistry.class);
+
 	private final MigratorProperties properties;
 	private final Map<String, DataSource> dataSourcesByName = new ConcurrentHashMap<>();
+	private final Map<DataSource, ConnectionProfile> profilesByDataSource = new ConcurrentHashMap<>();
+
+	/**
+	 * Pools dinámicos (conexiones que llegan desde la UI), por destino y credenciales. Protegidos por el lock
+	 * del registry: las operaciones son cortas y abrir un pool no conecta (Hikari arranca en el primer uso).
+	 */
+	private final Map<PoolKey, DynamicPool> dynamicPools = new HashMap<>();
+	private final Map<DataSource, DynamicPool> dynamicPoolsByDataSource = new IdentityHashMap<>();
+	private final AtomicInteger dynamicPoolSeq = new AtomicInteger();
+
+	/**
+	 * La contraseña entra a la clave como hash: cambiarla abre otro pool y no queda en claro en el mapa.
+	 */
+	private record PoolKey(String jdbcUrl, String username, String driverClassName, String passwordHash) {
+	}
+
+	private static final class DynamicPool {
+		private final PoolKey key;
+		private final HikariDataSource dataSource;
+		private final ConnectionProfile profile;
+		/** Tamaño con el que se abrió el pool; al que vuelve cuando se van las corridas que lo agrandaron. */
+		private final int configuredSize;
+		/** minConnections de cada usuario actual que pidió un mínimo (ver {@link #acquire(ConnectionProfile, int)}). */
+		private final List<Integer> minConnections = new ArrayList<>();
+		private int users;
+		private long lastUsedNanos;
+
+		private DynamicPool(PoolKey key, HikariDataSource dataSource, ConnectionProfile profile) {
+			this.key = key;
+			this.dataSource = dataSource;
+			this.profile = profile;
+			this.configuredSize = dataSource.getMaximumPoolSize();
+		}
+
+		/**
+		 * Tamaño que necesitan los usuarios actuales: el mayor mínimo pedido más una conexión por cada uno de los
+		 * demás (p. ej. origen y destino en la misma base), nunca menos que el configurado.
+		 */
+		private int requiredSize() {
+			int maxMin = 0;
+			for (int min : minConnections) {
+				maxMin = Math.max(maxMin, min);
+			}
+			return maxMin == 0 ? configuredSize : Math.max(configuredSize, maxMin + users - 1);
+		}
+	}
 
 	public DataSourceRegistry(MigratorProperties properties) {
 		this.properties = properties;
@@ -52,24 +117,219 @@ public class DataSourceRegistry {
 	private DataSource buildDataSource(String profileName) {
 		ConnectionProfile profile = findProfile(profileName)
 				.orElseThrow(() -> new IllegalArgumentException("Perfil no encontrado: " + profileName));
+		HikariDataSource ds = newDataSource(profile, "migrator-" + profileName, 3);
+		profilesByDataSource.put(ds, profile);
+		return ds;
+	}
 
-		HikariDataSource ds = DataSourceBuilder.create()
-				.type(HikariDataSource.class)
-				.url(profile.getJdbcUrl())
-				.username(profile.getUsername())
-				.password(profile.getPassword())
-				.driverClassName(profile.getDriverClassName())
-				.build();
+	/**
+	 * DataSource compartido para el perfil dinámico: el pool se reutiliza entre requests con la misma URL,
+	 * usuario, driver y contraseña, así que cada preview/run no paga de nuevo TCP + TLS + autenticación.
+	 * Devolverlo con {@link #release} (no cerrarlo): el pool se cierra solo tras
+	 * {@code migrator.pools.idleEvictSeconds} sin uso.
+	 */
+	public DataSource acquire(ConnectionProfile profile) {
+		return acquire(profile, 0);
+	}
+
+	/**
+	 * Como {@link #acquire(ConnectionProfile)}, con al menos {@code minConnections} conexiones en el pool (una
+	 * corrida en pipeline usa una por loader).
+	 */
+	public DataSource acquire(ConnectionProfile profile, int minConnections) {
+		PoolKey key = poolKey(profile);
+		List<HikariDataSource> evicted;
+		DynamicPool pool;
+		synchronized (this) {
+			pool = dynamicPools.get(key);
+			if (pool == null) {
+				ConnectionProfile tuned = withConfiguredTuning(profile);
+				HikariDataSource ds = newDataSource(tuned, "migrator-dynamic-" + dynamicPoolSeq.incrementAndGet(),
+						properties.getPools().getMaxPoolSize());
+				pool = new DynamicPool(key, ds, tuned);
+				dynamicPools.put(key, pool);
+				dynamicPoolsByDataSource.put(ds, pool);
+			}
+			pool.users++;
+			pool.lastUsedNanos = System.nanoTime();
+			if (minConnections > 0) {
+				pool.minConnections.add(minConnections);
+			}
+			// el tamaño máximo se puede subir con el pool andando (HikariConfigMXBean)
+			int required = pool.requiredSize();
+			if (pool.dataSource.getMaximumPoolSize() < required) {
+				pool.dataSource.getHikariConfigMXBean().setMaximumPoolSize(required);
+			}
+			evicted = evictOverflow();
+		}
+		evicted.forEach(this::closeQuietly);
+		return pool.dataSource;
+	}
+
+	/**
+	 * Devuelve un DataSource obtenido con {@link #acquire(ConnectionProfile)}; null o uno que no es del registry no
+	 * hacen nada.
+	 */
+	public void release(DataSource ds) {
+		release(ds, 0);
+	}
+
+	/**
+	 * Devuelve un DataSource obtenido con {@link #acquire(ConnectionProfile, int)}, con el mismo
+	 * {@code minConnections}. Si era el último usuario que necesitaba el pool agrandado, el tamaño vuelve al
+	 * configurado (Hikari cierra las conexiones sobrantes a medida que se devuelven).
+	 */
+	public void release(DataSource ds, int minConnections) {
+		if (ds == null) {
+			return;
+		}
+		synchronized (this) {
+			DynamicPool pool = dynamicPoolsByDataSource.get(ds);
+			if (pool != null) {
+				pool.users = Math.max(0, pool.users - 1);
+				pool.lastUsedNanos = System.nanoTime();
+				if (minConnections > 0) {
+					pool.minConnections.remove(Integer.valueOf(minConnections));
+				}
+				int required = pool.requiredSize();
+				if (pool.dataSource.getMaximumPoolSize() > required) {
+					pool.dataSource.getHikariConfigMXBean().setMaximumPoolSize(required);
+				}
+			}
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${migrator.pools.evictIntervalSeconds:60}000")
+	public void evictIdlePools() {
+		long idleNanos = Duration.ofSeconds(Math.max(1, properties.getPools().getIdleEvictSeconds())).toNanos();
+		long now = System.nanoTime();
+		List<HikariDataSource> evicted = new ArrayList<>();
+		synchronized (this) {
+			for (DynamicPool pool : List.copyOf(dynamicPools.values())) {
+				if (pool.users == 0 && now - pool.lastUsedNanos > idleNanos) {
+					evicted.add(remove(pool));
+				}
+			}
+		}
+		evicted.forEach(this::closeQuietly);
+	}
 
-		ds.setPoolName("migrator-" + profileName);
-		ds.setMaximumPoolSize(3);
+	@PreDestroy
+	public void closeAll() {
+		List<HikariDataSource> all = new ArrayList<>();
+		synchronized (this) {
+			for (DynamicPool pool : List.copyOf(dynamicPools.values())) {
+				all.add(remove(pool));
+			}
+		}
+		all.forEach(this::closeQuietly);
+		dataSourcesByName.values().forEach(this::closeQuietly);
+		dataSourcesByName.clear();
+		profilesByDataSource.clear();
+	}
+
+	/**
+	 * Por encima de {@code maxPools}, cierra los que llevan más tiempo sin usarse entre los que nadie está
+	 * usando. Si todos están en uso se tolera el exceso hasta que se liberen.
+	 */
+	private List<HikariDataSource> evictOverflow() {
+		int maxPools = Math.max(1, properties.getPools().getMaxPools());
+		if (dynamicPools.size() <= maxPools) {
+			return List.of();
+		}
+		List<DynamicPool> idle = dynamicPools.values().stream()
+				.filter(p -> p.users == 0)
+				.sorted(Comparator.comparingLong(p -> p.lastUsedNanos))
+				.toList();
+		List<HikariDataSource> evicted = new ArrayList<>();
+		for (DynamicPool pool : idle) {
+			if (dynamicPools.size() <= maxPools) {
+				break;
+			}
+			evicted.add(remove(pool));
+		}
+		if (dynamicPools.size() > maxPools) {
+			log.warn("Pools dinámicos abiertos: {} (máximo {}); todos en uso, se cierran al liberarse", dynamicPools.size(),
+					maxPools);
+		}
+		return evicted;
+	}
+
+	private HikariDataSource remove(DynamicPool pool) {
+		dynamicPools.remove(pool.key);
+		dynamicPoolsByDataSource.remove(pool.dataSource);
+		return pool.dataSource;
+	}
+
+	/**
+	 * Los perfiles de la UI traen solo conexión y credenciales: si apuntan a un perfil configurado (mismo nombre y
+	 * URL) heredan su ajuste de pool y driver. El pool se comparte por URL y credenciales, con el ajuste del
+	 * primero que lo abrió.
+	 */
+	private ConnectionProfile withConfiguredTuning(ConnectionProfile profile) {
+		ConnectionProfile configured = findProfile(profile.getName())
+				.filter(p -> Objects.equals(p.getJdbcUrl(), profile.getJdbcUrl()))
+				.orElse(null);
+		if (configured == null || configured == profile) {
+			return profile;
+		}
+		ConnectionProfile tuned = new ConnectionProfile();
+		tuned.setName(profile.getName());
+		tuned.setJdbcUrl(profile.getJdbcUrl());
+		tuned.setUsername(profile.getUsername());
+		tuned.setPassword(profile.getPassword());
+		tuned.setDriverClassName(profile.getDriverClassName());
+		tuned.setValidationTimeoutSeconds(profile.getValidationTimeoutSeconds());
+		tuned.copyTuningFrom(configured);
+		return tuned;
+	}
+
+	private static PoolKey poolKey(ConnectionProfile profile) {
+		return new PoolKey(profile.getJdbcUrl(), profile.getUsername(), profile.getDriverClassName(),
+				sha256(profile.getPassword()));
+	}
+
+	private static String sha256(String value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Pool nuevo de una conexión, sin cachear (lo usa la prueba de conexión). Lo cierra quien lo crea.
+	 */
+	public HikariDataSource createDataSource(ConnectionProfile profile) {
+		HikariDataSource ds = newDataSource(profile, "migrator-dynamic", 1);
+		ds.setMaximumPoolSize(1);
 		ds.setMinimumIdle(0);
-		ds.setConnectionTimeout(Duration.ofSeconds(10).toMillis());
-		ds.setValidationTimeout(Duration.ofSeconds(Math.max(1, profile.getValidationTimeoutSeconds())).toMillis());
 		return ds;
 	}
 
-	public HikariDataSource createDataSource(ConnectionProfile profile) {
+	/**
+	 * Filas por viaje configuradas en el perfil del DataSource (ver {@link ConnectionProfile#getFetchSize()}),
+	 * o null si no es del registry o el perfil no lo define.
+	 */
+	public Integer fetchSizeFor(DataSource ds) {
+		if (ds == null) {
+			return null;
+		}
+		ConnectionProfile profile = profilesByDataSource.get(ds);
+		if (profile == null) {
+			synchronized (this) {
+				DynamicPool pool = dynamicPoolsByDataSource.get(ds);
+				profile = pool == null ? null : pool.profile;
+			}
+		}
+		return profile == null ? null : profile.getFetchSize();
+	}
+
+	private HikariDataSource newDataSource(ConnectionProfile profile, String poolName, int defaultPoolSize) {
 		HikariDataSource ds = DataSourceBuilder.create()
 				.type(HikariDataSource.class)
 				.url(profile.getJdbcUrl())
@@ -78,14 +338,53 @@ public class DataSourceRegistry {
 				.driverClassName(profile.getDriverClassName())
 				.build();
 
-		ds.setPoolName("migrator-dynamic");
-		ds.setMaximumPoolSize(1);
-		ds.setMinimumIdle(0);
+		int maxPoolSize = Math.max(1, profile.getMaximumPoolSize() == null ? defaultPoolSize : profile.getMaximumPoolSize());
+		ds.setPoolName(poolName);
+		ds.setMaximumPoolSize(maxPoolSize);
+		ds.setMinimumIdle(profile.getMinimumIdle() == null ? 0 : Math.clamp(profile.getMinimumIdle(), 0, maxPoolSize));
 		ds.setConnectionTimeout(Duration.ofSeconds(10).toMillis());
 		ds.setValidationTimeout(Duration.ofSeconds(Math.max(1, profile.getValidationTimeoutSeconds())).toMillis());
+		ds.setReadOnly(profile.isReadOnly());
+		driverProperties(profile).forEach(ds::addDataSourceProperty);
 		return ds;
 	}
 
+	/**
+	 * fetchSize y statementCacheSize traducidos a las propiedades del driver (PostgreSQL, MySQL/MariaDB), más las
+	 * que el perfil declara explícitamente, que ganan.
+	 */
+	static Map<String, String> driverProperties(ConnectionProfile profile) {
+		Map<String, String> props = new LinkedHashMap<>();
+		String url = profile.getJdbcUrl() == null ? "" : profile.getJdbcUrl().toLowerCase(Locale.ROOT);
+		boolean postgres = url.startsWith("jdbc:postgresql:");
+		boolean mysql = url.startsWith("jdbc:mysql:") || url.startsWith("jdbc:mariadb:");
+		Integer fetchSize = profile.getFetchSize();
+		if (fetchSize != null && fetchSize > 0) {
+			if (postgres) {
+				props.put("defaultRowFetchSize", String.valueOf(fetchSize));
+			} else if (mysql) {
+				props.put("defaultFetchSize", String.valueOf(fetchSize));
+			}
+		}
+		Integer statementCacheSize = profile.getStatementCacheSize();
+		if (statementCacheSize != null && statementCacheSize >= 0) {
+			if (postgres) {
+				props.put("preparedStatementCacheQueries", String.valueOf(statementCacheSize));
+			} else if (mysql) {
+				props.put("cachePrepStmts", String.valueOf(statementCacheSize > 0));
+				props.put("prepStmtCacheSize", String.valueOf(statementCacheSize));
+			}
+		}
+		if (profile.getDriverProperties() != null) {
+			profile.getDriverProperties().forEach((k, v) -> {
+				if (k != null && !k.isBlank() && v != null) {
+					props.put(k.trim(), v.trim());
+				}
+			});
+		}
+		return props;
+	}
+
 	public void closeQuietly(DataSource ds) {
 		if (ds instanceof HikariDataSource hk) {
 			try {
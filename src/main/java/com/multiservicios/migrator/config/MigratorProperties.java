@@ -32,6 +32,27 @@ public class MigratorProperties {
 	@NotNull
 	private Session session = new Session();
 
+	@NotNull
+	private Extract extract = new Extract();
+
+	@NotNull
+	private Load load = new Load();
+
+	@NotNull
+	private Pipeline pipeline = new Pipeline();
+
+	@NotNull
+	private Pools pools = new Pools();
+
+	@NotNull
+	private Checkpoint checkpoint = new Checkpoint();
+
+	@NotNull
+	private Jobs jobs = new Jobs();
+
+	@NotNull
+	private Logs logs = new Logs();
+
 	public List<ConnectionProfile> getProfiles() {
 		return profiles;
 	}
@@ -80,6 +101,371 @@ public class MigratorProperties {
 		this.session = session;
 	}
 
+	public Extract getExtract() {
+		return extract;
+	}
+
+	public void setExtract(Extract extract) {
+		this.extract = extract;
+	}
+
+	public Load getLoad() {
+		return load;
+	}
+
+	public void setLoad(Load load) {
+		this.load = load;
+	}
+
+	public Pipeline getPipeline() {
+		return pipeline;
+	}
+
+	public void setPipeline(Pipeline pipeline) {
+		this.pipeline = pipeline;
+	}
+
+	public Pools getPools() {
+		return pools;
+	}
+
+	public void setPools(Pools pools) {
+		this.pools = pools;
+	}
+
+	public Checkpoint getCheckpoint() {
+		return checkpoint;
+	}
+
+	public void setCheckpoint(Checkpoint checkpoint) {
+		this.checkpoint = checkpoint;
+	}
+
+	public Jobs getJobs() {
+		return jobs;
+	}
+
+	public void setJobs(Jobs jobs) {
+		this.jobs = jobs;
+	}
+
+	public Logs getLogs() {
+		return logs;
+	}
+
+	public void setLogs(Logs logs) {
+		this.logs = logs;
+	}
+
+	/**
+	 * Logs de corrida (uno por corrida, en memoria).
+	 */
+	public static class Logs {
+		/**
+		 * Entradas que guarda cada corrida; pasado ese número se descartan las más viejas.
+		 */
+		private int runCapacity = 100_000;
+
+		/**
+		 * Logs de corridas que se conservan para consultarlos. Al pasarse se descartan los más viejos de corridas
+		 * terminadas; el de un job en cola o en curso no se descarta nunca.
+		 */
+		private int retainedRuns = 20;
+
+		public int getRunCapacity() {
+			return runCapacity;
+		}
+
+		public void setRunCapacity(int runCapacity) {
+			this.runCapacity = runCapacity;
+		}
+
+		public int getRetainedRuns() {
+			return retainedRuns;
+		}
+
+		public void setRetainedRuns(int retainedRuns) {
+			this.retainedRuns = retainedRuns;
+		}
+	}
+
+	/**
+	 * Corridas en segundo plano (/run y /universal/run): el request devuelve el id del job y la corrida sigue en
+	 * un hilo virtual; el avance se consulta en /jobs/{id}.
+	 */
+	public static class Jobs {
+		/**
+		 * Corridas ejecutándose a la vez; las demás esperan en cola.
+		 */
+		private int maxConcurrent = 2;
+
+		/**
+		 * Minutos que se conserva el estado de un job terminado.
+		 */
+		private int retainMinutes = 60;
+
+		/**
+		 * Intervalo de limpieza de jobs terminados (segundos).
+		 */
+		private int cleanupIntervalSeconds = 60;
+
+		public int getMaxConcurrent() {
+			return maxConcurrent;
+		}
+
+		public void setMaxConcurrent(int maxConcurrent) {
+			this.maxConcurrent = maxConcurrent;
+		}
+
+		public int getRetainMinutes() {
+			return retainMinutes;
+		}
+
+		public void setRetainMinutes(int retainMinutes) {
+			this.retainMinutes = retainMinutes;
+		}
+
+		public int getCleanupIntervalSeconds() {
+			return cleanupIntervalSeconds;
+		}
+
+		public void setCleanupIntervalSeconds(int cleanupIntervalSeconds) {
+			this.cleanupIntervalSeconds = cleanupIntervalSeconds;
+		}
+	}
+
+	/**
+	 * Checkpoints de las corridas universales: cuántas filas del origen ya quedaron confirmadas en el destino (y
+	 * la última clave de orden, si la corrida tiene una), para poder reanudar una corrida cortada.
+	 */
+	public static class Checkpoint {
+		/**
+		 * Guardar checkpoints por defecto en cada corrida (se puede elegir por corrida).
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Directorio de los archivos de checkpoint (uno por SQL + tabla destino).
+		 */
+		private String dir = "checkpoints";
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getDir() {
+			return dir;
+		}
+
+		public void setDir(String dir) {
+			this.dir = dir;
+		}
+	}
+
+	/**
+	 * Pools de las conexiones que llegan desde la UI (preview, run, list-tables, ...): se reutilizan entre
+	 * requests mientras tengan la misma URL, usuario, driver y contraseña.
+	 */
+	public static class Pools {
+		/**
+		 * Pools dinámicos abiertos a la vez; al pasarse se cierra el que lleva más tiempo sin usarse (si nadie lo
+		 * está usando).
+		 */
+		private int maxPools = 8;
+
+		/**
+		 * Conexiones por pool. Una corrida en pipeline puede pedir más (una por loader).
+		 */
+		private int maxPoolSize = 4;
+
+		/**
+		 * Un pool sin uso durante este tiempo se cierra.
+		 */
+		private int idleEvictSeconds = 600;
+
+		/**
+		 * Intervalo del barrido de pools ociosos (segundos).
+		 */
+		private int evictIntervalSeconds = 60;
+
+		public int getMaxPools() {
+			return maxPools;
+		}
+
+		public void setMaxPools(int maxPools) {
+			this.maxPools = maxPools;
+		}
+
+		public int getMaxPoolSize() {
+			return maxPoolSize;
+		}
+
+		public void setMaxPoolSize(int maxPoolSize) {
+			this.maxPoolSize = maxPoolSize;
+		}
+
+		public int getIdleEvictSeconds() {
+			return idleEvictSeconds;
+		}
+
+		public void setIdleEvictSeconds(int idleEvictSeconds) {
+			this.idleEvictSeconds = idleEvictSeconds;
+		}
+
+		public int getEvictIntervalSeconds() {
+			return evictIntervalSeconds;
+		}
+
+		public void setEvictIntervalSeconds(int evictIntervalSeconds) {
+			this.evictIntervalSeconds = evictIntervalSeconds;
+		}
+	}
+
+	public static class Pipeline {
+		/**
+		 * Corre el modo universal en pipeline (lectura, transformación y carga en paralelo, sobre virtual threads).
+		 * Con false se usa el recorrido secuencial en el hilo del request.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Workers que aplican los mapeos (CPU).
+		 */
+		private int transformWorkers = 2;
+
+		/**
+		 * Workers que escriben en el destino. Cada uno usa su propia conexión: el pool del destino se
+		 * dimensiona a este valor.
+		 */
+		private int loadWorkers = 2;
+
+		/**
+		 * Chunks en vuelo entre etapas (cada chunk tiene batchSize/copyChunkSize filas). Acota la memoria
+		 * y frena la lectura si el destino no da abasto.
+		 */
+		private int queueCapacity = 4;
+
+		/**
+		 * Registra los logs en orden de fila aunque los loaders terminen desordenados.
+		 */
+		private boolean orderedLogs = true;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getTransformWorkers() {
+			return transformWorkers;
+		}
+
+		public void setTransformWorkers(int transformWorkers) {
+			this.transformWorkers = transformWorkers;
+		}
+
+		public int getLoadWorkers() {
+			return loadWorkers;
+		}
+
+		public void setLoadWorkers(int loadWorkers) {
+			this.loadWorkers = loadWorkers;
+		}
+
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		public boolean isOrderedLogs() {
+			return orderedLogs;
+		}
+
+		public void setOrderedLogs(boolean orderedLogs) {
+			this.orderedLogs = orderedLogs;
+		}
+	}
+
+	public static class Load {
+		/**
+		 * Filas por executeBatch en el modo universal. Con 1 se usa el insert fila a fila.
+		 */
+		private int batchSize = 500;
+
+		/**
+		 * Modo de carga por defecto del modo universal (se puede elegir por corrida): ROW, BATCH, COPY o MERGE
+		 * (COPY a una tabla temporal de staging + un insert ... select ... on conflict por chunk, solo PostgreSQL).
+		 */
+		private LoadMode mode = LoadMode.BATCH;
+
+		/**
+		 * Filas por COPY FROM STDIN (modos COPY y MERGE, solo PostgreSQL).
+		 */
+		private int copyChunkSize = 5000;
+
+		/**
+		 * Filas por transacción en la sesión de carga (modo fila a fila). Los lotes y los COPY confirman al terminar cada uno.
+		 */
+		private int commitEvery = 1000;
+
+		public int getBatchSize() {
+			return batchSize;
+		}
+
+		public void setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+		}
+
+		public LoadMode getMode() {
+			return mode;
+		}
+
+		public void setMode(LoadMode mode) {
+			this.mode = mode;
+		}
+
+		public int getCopyChunkSize() {
+			return copyChunkSize;
+		}
+
+		public void setCopyChunkSize(int copyChunkSize) {
+			this.copyChunkSize = copyChunkSize;
+		}
+
+		public int getCommitEvery() {
+			return commitEvery;
+		}
+
+		public void setCommitEvery(int commitEvery) {
+			this.commitEvery = commitEvery;
+		}
+	}
+
+	public static class Extract {
+		/**
+		 * Filas que el driver trae por viaje al leer el origen en streaming (cursor forward-only).
+		 * En PostgreSQL solo tiene efecto con autocommit=false (el extractor lo desactiva durante la lectura).
+		 */
+		private int fetchSize = 1000;
+
+		public int getFetchSize() {
+			return fetchSize;
+		}
+
+		public void setFetchSize(int fetchSize) {
+			this.fetchSize = fetchSize;
+		}
+	}
+
 	public static class Session {
 		/**
 		 * Límite máximo de filas a cargar en memoria por /migration/load-sql.
@@ -102,6 +488,16 @@ public class MigratorProperties {
 		 */
 		private int cleanupIntervalSeconds = 300;
 
+		/**
+		 * Envíos simultáneos al destino en /migration/run-all (1 = secuencial).
+		 */
+		private int parallelism = 1;
+
+		/**
+		 * Tope para el {@code parallelism} que puede pedir un request de /migration/run-all.
+		 */
+		private int maxParallelism = 8;
+
 		public int getMaxRowsDefault() {
 			return maxRowsDefault;
 		}
@@ -141,6 +537,22 @@ public class MigratorProperties {
 		public void setCleanupIntervalSeconds(int cleanupIntervalSeconds) {
 			this.cleanupIntervalSeconds = cleanupIntervalSeconds;
 		}
+
+		public int getParallelism() {
+			return parallelism;
+		}
+
+		public void setParallelism(int parallelism) {
+			this.parallelism = parallelism;
+		}
+
+		public int getMaxParallelism() {
+			return maxParallelism;
+		}
+
+		public void setMaxParallelism(int maxParallelism) {
+			this.maxParallelism = maxParallelism;
+		}
 	}
 
 	public static class Destino {
@@ -157,6 +569,12 @@ public class MigratorProperties {
 		 */
 		private DestinoContract contract = DestinoContract.FLAT;
 
+		/**
+		 * Filas por request en /migration/run-all. Con valores > 1 (y contrato NESTED) se envían en lote a
+		 * POST /api/productos/batch; 1 mantiene un POST /api/productos por fila.
+		 */
+		private int batchSize = 1;
+
 		public String getBaseUrl() {
 			return baseUrl;
 		}
@@ -172,6 +590,14 @@ public class MigratorProperties {
 		public void setContract(DestinoContract contract) {
 			this.contract = contract;
 		}
+
+		public int getBatchSize() {
+			return batchSize;
+		}
+
+		public void setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+		}
 	}
 
 	public static class Productos {
@@ -183,6 +609,13 @@ public class MigratorProperties {
 		 */
 		private boolean includeAuditColumns = false;
 
+		/**
+		 * Si true, al inicio de cada corrida se cargan en memoria las claves (codigo_barra/nombre → id) de
+		 * productos del destino, y los existentes se completan sin intentar el INSERT. Conviene en re-corridas
+		 * sobre un catálogo ya cargado; en destinos enormes cuesta memoria (~100 bytes por producto).
+		 */
+		private boolean preloadKeyIndex = false;
+
 		public boolean isIncludeAuditColumns() {
 			return includeAuditColumns;
 		}
@@ -190,6 +623,21 @@ public class MigratorProperties {
 		public void setIncludeAuditColumns(boolean includeAuditColumns) {
 			this.includeAuditColumns = includeAuditColumns;
 		}
+
+		public boolean isPreloadKeyIndex() {
+			return preloadKeyIndex;
+		}
+
+		public void setPreloadKeyIndex(boolean preloadKeyIndex) {
+			this.preloadKeyIndex = preloadKeyIndex;
+		}
+	}
+
+	public enum LoadMode {
+		ROW,
+		BATCH,
+		COPY,
+		MERGE
 	}
 
 	public enum DestinoContract {
@@ -213,6 +661,12 @@ public class MigratorProperties {
 		 */
 		private boolean autoCreateCatalog = false;
 
+		/**
+		 * Segundos que se recuerda (por destino) un id de catálogo/depósito ya confirmado, para no volver a
+		 * consultarlo en cada producto. 0 = solo dentro de cada carga.
+		 */
+		private long catalogCacheTtlSeconds = 300;
+
 		public Long getDepositoCentralId() {
 			return depositoCentralId;
 		}
@@ -277,6 +731,14 @@ public class MigratorProperties {
 			this.unidadMedidaGenericaNombre = unidadMedidaGenericaNombre;
 		}
 
+		public long getCatalogCacheTtlSeconds() {
+			return catalogCacheTtlSeconds;
+		}
+
+		public void setCatalogCacheTtlSeconds(long catalogCacheTtlSeconds) {
+			this.catalogCacheTtlSeconds = catalogCacheTtlSeconds;
+		}
+
 		public boolean isAutoCreateCatalog() {
 			return autoCreateCatalog;
 		}
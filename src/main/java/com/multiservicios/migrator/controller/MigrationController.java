@@ -3,6 +3,9 @@ package com.multiservicios.migrator.controller;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
 
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Controller;
@@ -18,6 +21,8 @@ import com.multiservicios.migrator.config.DataSourceRegistry;
 import com.multiservicios.migrator.config.MigratorProperties;
 import com.multiservicios.migrator.engine.MigrationRunner;
 import com.multiservicios.migrator.extract.SqlExtractor;
+import com.multiservicios.migrator.jobs.MigrationJobService;
+import com.multiservicios.migrator.jobs.MigrationJobStatus;
 import com.multiservicios.migrator.logs.MigrationLogService;
 import com.multiservicios.migrator.model.FieldMapping;
 import com.zaxxer.hikari.HikariDataSource;
@@ -29,6 +34,7 @@ public class MigrationController {
 	private final SqlExtractor extractor;
 	private final MigrationRunner runner;
 	private final MigrationLogService logService;
+	private final MigrationJobService jobService;
 	private final ObjectMapper objectMapper;
 
 	public MigrationController(
@@ -37,12 +43,14 @@ public class MigrationController {
 			SqlExtractor extractor,
 			MigrationRunner runner,
 			MigrationLogService logService,
+			MigrationJobService jobService,
 			ObjectMapper objectMapper) {
 		this.properties = properties;
 		this.dataSourceRegistry = dataSourceRegistry;
 		this.extractor = extractor;
 		this.runner = runner;
 		this.logService = logService;
+		this.jobService = jobService;
 		this.objectMapper = objectMapper;
 	}
 
@@ -107,9 +115,16 @@ public class MigrationController {
 			@RequestParam(name = "dbDestinoPassword", required = false) String dbDestinoPassword,
 			@RequestParam(name = "dbDestinoDriver", required = false) String dbDestinoDriver,
 			@RequestParam(name = "sql", required = false) String sql,
-			@RequestParam(name = "mappings", required = false) String mappings) {
-		logService.clear();
-		model.addAttribute("flash", "✓ Logs limpiados");
+			@RequestParam(name = "mappings", required = false) String mappings,
+			@RequestParam(name = "logsJobId", required = false) UUID logsJobId) {
+		// cada corrida tiene su propio log: se descarta solo el de la corrida mostrada
+		if (logsJobId == null) {
+			model.addAttribute("flash", "No hay logs de una corrida para limpiar");
+		} else if (jobService.discardLog(logsJobId)) {
+			model.addAttribute("flash", "✓ Logs limpiados");
+		} else {
+			model.addAttribute("flash", "La corrida sigue en curso: sus logs no se pueden limpiar");
+		}
 		return index(model, dbOrigenName, dbOrigenUrl, dbOrigenUsername, dbOrigenPassword, dbOrigenDriver,
 				dbDestinoName, dbDestinoUrl, dbDestinoUsername, dbDestinoPassword, dbDestinoDriver,
 				sql, mappings);
@@ -250,7 +265,7 @@ public class MigrationController {
 			@RequestParam(name = "limit", defaultValue = "5") int limit,
 			@RequestParam("mappings") String mappingsJson,
 			Model model) {
-		HikariDataSource ds = null;
+		DataSource ds = null;
 		try {
 			String sanitizedSql = sanitizeSql(sql);
 			ConnectionProfile profile = new ConnectionProfile();
@@ -260,7 +275,7 @@ public class MigrationController {
 			profile.setPassword(dbOrigenPassword);
 			profile.setDriverClassName(dbOrigenDriver);
 			profile.setValidationTimeoutSeconds(5);
-			ds = dataSourceRegistry.createDataSource(profile);
+			ds = dataSourceRegistry.acquire(profile);
 			int safeLimit = Math.max(1, limit);
 			String limitedSql = wrapSqlWithLimit(sanitizedSql, safeLimit);
 			JdbcTemplate jdbcTemplate = new JdbcTemplate(ds);
@@ -270,7 +285,7 @@ public class MigrationController {
 		} catch (Exception ex) {
 			model.addAttribute("flash", "Error al previsualizar: " + ex.getMessage());
 		} finally {
-			dataSourceRegistry.closeQuietly(ds);
+			dataSourceRegistry.release(ds);
 		}
 		return index(model, dbOrigenName, dbOrigenUrl, dbOrigenUsername, dbOrigenPassword, dbOrigenDriver,
 				dbDestinoName, dbDestinoUrl, dbDestinoUsername, dbDestinoPassword, dbDestinoDriver,
@@ -293,8 +308,8 @@ public class MigrationController {
 			@RequestParam("mappings") String mappingsJson,
 			@RequestParam(name = "dryRun", defaultValue = "true") boolean dryRun,
 			Model model) {
-		HikariDataSource origen = null;
-		HikariDataSource destino = null;
+		DataSource origen = null;
+		DataSource destino = null;
 		try {
 			String sanitizedSql = sanitizeSql(sql);
 			List<FieldMapping> mappings = parseMappings(mappingsJson);
@@ -305,7 +320,7 @@ public class MigrationController {
 			pOrigen.setPassword(dbOrigenPassword);
 			pOrigen.setDriverClassName(dbOrigenDriver);
 			pOrigen.setValidationTimeoutSeconds(5);
-			origen = dataSourceRegistry.createDataSource(pOrigen);
+			origen = dataSourceRegistry.acquire(pOrigen);
 
 			// Preflight: obtener columnas reales del SQL (1 fila) para que la UI pueda sugerir
 			// y para validar que los mapeos DIRECTO apunten a columnas existentes.
@@ -329,22 +344,49 @@ public class MigrationController {
 			pDestino.setPassword(dbDestinoPassword);
 			pDestino.setDriverClassName(dbDestinoDriver);
 			pDestino.setValidationTimeoutSeconds(5);
-			destino = dataSourceRegistry.createDataSource(pDestino);
-
-			var result = runner.run(origen, destino, sanitizedSql, mappings, dryRun);
-			model.addAttribute("runResult", result);
-			model.addAttribute("runLogs", logService.snapshot());
+			destino = dataSourceRegistry.acquire(pDestino);
+
+			// la corrida sigue en un job: los DataSources pasan a ser del job, que los devuelve al terminar
+			DataSource jobOrigen = origen;
+			DataSource jobDestino = destino;
+			MigrationJobStatus job = jobService.submit("productos",
+					progress -> runner.run(jobOrigen, jobDestino, sanitizedSql, mappings, dryRun, progress),
+					() -> {
+						dataSourceRegistry.release(jobOrigen);
+						dataSourceRegistry.release(jobDestino);
+					});
+			origen = null;
+			destino = null;
+			model.addAttribute("job", job);
 		} catch (Exception ex) {
 			model.addAttribute("flash", "Error al migrar: " + ex.getMessage());
 		} finally {
-			dataSourceRegistry.closeQuietly(origen);
-			dataSourceRegistry.closeQuietly(destino);
+			dataSourceRegistry.release(origen);
+			dataSourceRegistry.release(destino);
 		}
 		return index(model, dbOrigenName, dbOrigenUrl, dbOrigenUsername, dbOrigenPassword, dbOrigenDriver,
 				dbDestinoName, dbDestinoUrl, dbDestinoUsername, dbDestinoPassword, dbDestinoDriver,
 				sanitizeSqlQuietly(sql), mappingsJson);
 	}
 
+	/**
+	 * Resultado y logs de un job terminado, con el mismo HTML que la página (la UI reemplaza las secciones).
+	 */
+	@GetMapping("/job-result")
+	public String jobResult(@RequestParam("jobId") UUID jobId, Model model) {
+		MigrationJobStatus job = jobService.status(jobId).orElse(null);
+		if (job == null) {
+			model.addAttribute("flash", "El job " + jobId + " ya no existe");
+		} else if (job.result() != null) {
+			model.addAttribute("runResult", job.result());
+		} else if (job.state().isFinished()) {
+			model.addAttribute("flash", "Error al migrar: " + job.error());
+		}
+		model.addAttribute("runLogs", logService.snapshot(jobId));
+		model.addAttribute("logsJobId", jobId);
+		return index(model, null, null, null, null, null, null, null, null, null, null, null, null);
+	}
+
 	private void validateMappingsAgainstPreviewOrThrow(List<FieldMapping> mappings, Model model) {
 		List<String> cols = columnsFromRows(model.asMap().get("previewRows"));
 		if (cols == null || cols.isEmpty()) {
@@ -0,0 +1,39 @@
+package com.multiservicios.migrator.controller;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.multiservicios.migrator.jobs.MigrationJobService;
+import com.multiservicios.migrator.jobs.MigrationJobStatus;
+
+@RestController
+@RequestMapping("/jobs")
+public class MigrationJobController {
+	private final MigrationJobService jobService;
+
+	public MigrationJobController(MigrationJobService jobService) {
+		this.jobService = jobService;
+	}
+
+	@GetMapping
+	public ResponseEntity<List<MigrationJobStatus>> list() {
+		return ResponseEntity.ok(jobService.list());
+	}
+
+	@GetMapping("/{id}")
+	public ResponseEntity<MigrationJobStatus> status(@PathVariable("id") UUID id) {
+		return ResponseEntity.ok(jobService.getRequired(id));
+	}
+
+	@PostMapping("/{id}/cancel")
+	public ResponseEntity<MigrationJobStatus> cancel(@PathVariable("id") UUID id) {
+		return ResponseEntity.ok(jobService.cancel(id));
+	}
+}
@@ -46,7 +46,7 @@ public class MigrationSessionController {
 
 	@PostMapping("/run-all")
 	public ResponseEntity<MigrationSessionStatus> runAll(@Valid @RequestBody RunAllRequest req) {
-		return ResponseEntity.ok(processorService.runAll(req.getSessionId(), req.isDryRun(), req.getMaxItems()));
+		return ResponseEntity.ok(processorService.runAll(req.getSessionId(), req.isDryRun(), req.getMaxItems(), req.getParallelism()));
 	}
 
 	@GetMapping("/status")
@@ -1,7 +1,13 @@
 package com.multiservicios.migrator.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.sql.DataSource;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -11,8 +17,14 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.multiservicios.migrator.config.DataSourceRegistry;
 import com.multiservicios.migrator.config.MigratorProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.multiservicios.migrator.dto.CreateProductoResponse;
+import com.multiservicios.migrator.dto.CreateProductosResponse;
 import com.multiservicios.migrator.dto.ProductoMigrationDto;
+import com.multiservicios.migrator.load.LoadResult;
+import com.multiservicios.migrator.load.ProductoKeyIndex;
 import com.multiservicios.migrator.load.ProductoLoader;
 
 @RestController
@@ -21,11 +33,14 @@ public class ProductoApiController {
 	private final MigratorProperties properties;
 	private final DataSourceRegistry dataSourceRegistry;
 	private final ProductoLoader productoLoader;
+	private final ObjectMapper objectMapper;
 
-	public ProductoApiController(MigratorProperties properties, DataSourceRegistry dataSourceRegistry, ProductoLoader productoLoader) {
+	public ProductoApiController(MigratorProperties properties, DataSourceRegistry dataSourceRegistry, ProductoLoader productoLoader,
+			ObjectMapper objectMapper) {
 		this.properties = properties;
 		this.dataSourceRegistry = dataSourceRegistry;
 		this.productoLoader = productoLoader;
+		this.objectMapper = objectMapper;
 	}
 
 	@PostMapping
@@ -43,6 +58,108 @@ public class ProductoApiController {
 		return ResponseEntity.ok(CreateProductoResponse.ok(result.getMessage(), result.getCreatedId()));
 	}
 
+	/**
+	 * Alta en lote: array JSON de ProductoMigrationDto. Se procesa en tramos de migrator.load.batchSize sobre
+	 * una conexión; la respuesta trae un ítem por producto (los errores de un ítem no cortan el lote).
+	 */
+	@PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<CreateProductosResponse> createProductos(
+			@RequestBody List<ProductoMigrationDto> request,
+			@RequestParam(name = "destinoProfile", required = false) String destinoProfile,
+			@RequestParam(name = "dryRun", defaultValue = "false") boolean dryRun) {
+		DataSource destino = dataSourceRegistry.getRequiredDataSource(resolveDestinoProfileName(destinoProfile));
+		List<CreateProductosResponse.Item> items = new ArrayList<>(request == null ? 0 : request.size());
+		int chunkSize = chunkSize();
+		ProductoKeyIndex keyIndex = keyIndex(destino, dryRun, request == null ? 0 : request.size());
+		for (int from = 0; request != null && from < request.size(); from += chunkSize) {
+			List<ProductoMigrationDto> chunk = request.subList(from, Math.min(request.size(), from + chunkSize));
+			appendItems(items, productoLoader.createBatchWithInitialStockBestEffort(destino, chunk, dryRun, keyIndex));
+		}
+		return ResponseEntity.ok(CreateProductosResponse.of(items));
+	}
+
+	/**
+	 * Igual que el anterior, pero con un producto por línea (NDJSON): el cuerpo se lee a medida que llega,
+	 * sin materializar la lista completa. Una línea mal formada no descarta lo ya cargado: se cargan los
+	 * productos leídos hasta ahí, la línea se informa como ítem fallido y no se lee el resto del cuerpo.
+	 */
+	@PostMapping(path = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<CreateProductosResponse> createProductosNdjson(
+			InputStream body,
+			@RequestParam(name = "destinoProfile", required = false) String destinoProfile,
+			@RequestParam(name = "dryRun", defaultValue = "false") boolean dryRun) throws IOException {
+		DataSource destino = dataSourceRegistry.getRequiredDataSource(resolveDestinoProfileName(destinoProfile));
+		List<CreateProductosResponse.Item> items = new ArrayList<>();
+		int chunkSize = chunkSize();
+		List<ProductoMigrationDto> chunk = new ArrayList<>(chunkSize);
+		ProductoKeyIndex keyIndex = null;
+		String parseError = null;
+		try (MappingIterator<ProductoMigrationDto> it = objectMapper.readerFor(ProductoMigrationDto.class).readValues(body)) {
+			while (true) {
+				ProductoMigrationDto dto;
+				try {
+					if (!it.hasNextValue()) {
+						break;
+					}
+					dto = it.nextValue();
+				} catch (JsonProcessingException ex) {
+					// después de un error de sintaxis el parser no se puede resincronizar con confianza
+					parseError = ex.getOriginalMessage();
+					break;
+				}
+				chunk.add(dto);
+				if (chunk.size() >= chunkSize) {
+					keyIndex = loadNdjsonChunk(items, destino, chunk, dryRun, keyIndex);
+					chunk.clear();
+				}
+			}
+		}
+		loadNdjsonChunk(items, destino, chunk, dryRun, keyIndex);
+		if (parseError != null) {
+			items.add(new CreateProductosResponse.Item(items.size(), false, "NDJSON inválido: " + parseError
+					+ " (no se procesaron las líneas siguientes)", null, null, List.of()));
+		}
+		return ResponseEntity.ok(CreateProductosResponse.of(items));
+	}
+
+	/**
+	 * Carga un tramo del NDJSON. El índice de claves se arma recién al empezar el segundo tramo: un cuerpo de
+	 * un solo tramo no paga el escaneo de productos del destino. Devuelve el índice a usar en los siguientes.
+	 */
+	private ProductoKeyIndex loadNdjsonChunk(List<CreateProductosResponse.Item> items, DataSource destino,
+			List<ProductoMigrationDto> chunk, boolean dryRun, ProductoKeyIndex keyIndex) {
+		if (chunk.isEmpty()) {
+			return keyIndex;
+		}
+		if (keyIndex == null && !dryRun && !items.isEmpty()) {
+			keyIndex = productoLoader.preloadKeyIndex(destino);
+		}
+		appendItems(items, productoLoader.createBatchWithInitialStockBestEffort(destino, chunk, dryRun, keyIndex));
+		return keyIndex;
+	}
+
+	/**
+	 * El índice de claves solo compensa si el request trae más de un tramo (cada tramo ya resuelve sus duplicados
+	 * con una consulta).
+	 */
+	private ProductoKeyIndex keyIndex(DataSource destino, boolean dryRun, int items) {
+		if (dryRun || items <= chunkSize()) {
+			return null;
+		}
+		return productoLoader.preloadKeyIndex(destino);
+	}
+
+	private static void appendItems(List<CreateProductosResponse.Item> items, List<LoadResult> results) {
+		for (LoadResult r : results) {
+			items.add(new CreateProductosResponse.Item(items.size(), r.isSuccess(), r.getMessage(), r.getCreatedId(),
+					r.getCreated(), r.getWarnings()));
+		}
+	}
+
+	private int chunkSize() {
+		return Math.max(1, properties.getLoad().getBatchSize());
+	}
+
 	private String resolveDestinoProfileName(String destinoProfile) {
 		if (destinoProfile != null && !destinoProfile.isBlank()) {
 			return destinoProfile.trim();
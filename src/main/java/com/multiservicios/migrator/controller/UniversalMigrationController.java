@@ -2,6 +2,9 @@ package com.multiservicios.migrator.controller;
 
 import java.util.Map;
 import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
 
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.http.MediaType;
@@ -16,7 +19,11 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.multiservicios.migrator.config.ConnectionProfile;
 import com.multiservicios.migrator.config.DataSourceRegistry;
+import com.multiservicios.migrator.config.MigratorProperties;
 import com.multiservicios.migrator.engine.UniversalMigrationRunner;
+import com.multiservicios.migrator.engine.UniversalRunOptions;
+import com.multiservicios.migrator.jobs.MigrationJobService;
+import com.multiservicios.migrator.jobs.MigrationJobStatus;
 import com.multiservicios.migrator.load.UniversalTableLoader;
 import com.multiservicios.migrator.logs.MigrationLogService;
 import com.multiservicios.migrator.model.ColumnMeta;
@@ -30,22 +37,28 @@ import org.slf4j.LoggerFactory;
 public class UniversalMigrationController {
 	private static final Logger log = LoggerFactory.getLogger(UniversalMigrationController.class);
 
+	private final MigratorProperties properties;
 	private final DataSourceRegistry dataSourceRegistry;
 	private final UniversalMigrationRunner runner;
 	private final UniversalTableLoader tableLoader;
 	private final MigrationLogService logService;
+	private final MigrationJobService jobService;
 	private final ObjectMapper objectMapper;
 
 	public UniversalMigrationController(
+			MigratorProperties properties,
 			DataSourceRegistry dataSourceRegistry,
 			UniversalMigrationRunner runner,
 			UniversalTableLoader tableLoader,
 			MigrationLogService logService,
+			MigrationJobService jobService,
 			ObjectMapper objectMapper) {
+		this.properties = properties;
 		this.dataSourceRegistry = dataSourceRegistry;
 		this.runner = runner;
 		this.tableLoader = tableLoader;
 		this.logService = logService;
+		this.jobService = jobService;
 		this.objectMapper = objectMapper;
 	}
 
@@ -198,7 +211,7 @@ public class UniversalMigrationController {
 			@RequestParam(name = "destTable", required = false) String destTable,
 			@RequestParam("mappings") String mappingsJson,
 			Model model) {
-		HikariDataSource ds = null;
+		DataSource ds = null;
 		try {
 			String sanitizedSql = sanitizeSql(sql);
 			ConnectionProfile profile = new ConnectionProfile();
@@ -208,7 +221,7 @@ public class UniversalMigrationController {
 			profile.setPassword(resolvePasswordOrProfile(dbOrigenName, dbOrigenPassword));
 			profile.setDriverClassName(dbOrigenDriver);
 			profile.setValidationTimeoutSeconds(5);
-			ds = dataSourceRegistry.createDataSource(profile);
+			ds = dataSourceRegistry.acquire(profile);
 			int safeLimit = Math.max(1, limit);
 			String limitedSql = wrapSqlWithLimit(sanitizedSql, safeLimit);
 			JdbcTemplate jdbcTemplate = new JdbcTemplate(ds);
@@ -220,7 +233,7 @@ public class UniversalMigrationController {
 				dbOrigenUrl, dbOrigenUsername, dbOrigenDriver, ex);
 			model.addAttribute("flash", "Error al previsualizar (universal): " + rootCauseMessage(ex));
 		} finally {
-			dataSourceRegistry.closeQuietly(ds);
+			dataSourceRegistry.release(ds);
 		}
 		return index(model, dbOrigenName, dbOrigenUrl, dbOrigenUsername, dbOrigenPassword, dbOrigenDriver,
 				dbDestinoName, dbDestinoUrl, dbDestinoUsername, dbDestinoPassword, dbDestinoDriver,
@@ -259,9 +272,16 @@ public class UniversalMigrationController {
 			@RequestParam(name = "sql", required = false) String sql,
 			@RequestParam(name = "destSchema", required = false) String destSchema,
 			@RequestParam(name = "destTable", required = false) String destTable,
-			@RequestParam(name = "mappings", required = false) String mappings) {
-		logService.clear();
-		model.addAttribute("flash", "✓ Logs limpiados");
+			@RequestParam(name = "mappings", required = false) String mappings,
+			@RequestParam(name = "logsJobId", required = false) UUID logsJobId) {
+		// cada corrida tiene su propio log: se descarta solo el de la corrida mostrada
+		if (logsJobId == null) {
+			model.addAttribute("flash", "No hay logs de una corrida para limpiar");
+		} else if (jobService.discardLog(logsJobId)) {
+			model.addAttribute("flash", "✓ Logs limpiados");
+		} else {
+			model.addAttribute("flash", "La corrida sigue en curso: sus logs no se pueden limpiar");
+		}
 		return index(model, dbOrigenName, dbOrigenUrl, dbOrigenUsername, dbOrigenPassword, dbOrigenDriver,
 				dbDestinoName, dbDestinoUrl, dbDestinoUsername, dbDestinoPassword, dbDestinoDriver,
 				sql, destSchema, destTable, mappings);
@@ -276,7 +296,7 @@ public class UniversalMigrationController {
 			@RequestParam("dbDestinoPassword") String dbDestinoPassword,
 			@RequestParam("dbDestinoDriver") String dbDestinoDriver,
 			@RequestParam(name = "schema", defaultValue = "public") String schema) throws Exception {
-		HikariDataSource ds = null;
+		DataSource ds = null;
 		try {
 			ConnectionProfile p = new ConnectionProfile();
 			p.setName(dbDestinoName);
@@ -285,10 +305,10 @@ public class UniversalMigrationController {
 			p.setPassword(dbDestinoPassword);
 			p.setDriverClassName(dbDestinoDriver);
 			p.setValidationTimeoutSeconds(5);
-			ds = dataSourceRegistry.createDataSource(p);
+			ds = dataSourceRegistry.acquire(p);
 			return tableLoader.listTables(ds, schema);
 		} finally {
-			dataSourceRegistry.closeQuietly(ds);
+			dataSourceRegistry.release(ds);
 		}
 	}
 
@@ -302,7 +322,7 @@ public class UniversalMigrationController {
 			@RequestParam("dbDestinoDriver") String dbDestinoDriver,
 			@RequestParam(name = "schema", defaultValue = "public") String schema,
 			@RequestParam("table") String table) throws Exception {
-		HikariDataSource ds = null;
+		DataSource ds = null;
 		try {
 			ConnectionProfile p = new ConnectionProfile();
 			p.setName(dbDestinoName);
@@ -311,10 +331,10 @@ public class UniversalMigrationController {
 			p.setPassword(dbDestinoPassword);
 			p.setDriverClassName(dbDestinoDriver);
 			p.setValidationTimeoutSeconds(5);
-			ds = dataSourceRegistry.createDataSource(p);
+			ds = dataSourceRegistry.acquire(p);
 			return tableLoader.listColumns(ds, schema, table);
 		} finally {
-			dataSourceRegistry.closeQuietly(ds);
+			dataSourceRegistry.release(ds);
 		}
 	}
 
@@ -328,7 +348,7 @@ public class UniversalMigrationController {
 			@RequestParam("dbDestinoDriver") String dbDestinoDriver,
 			@RequestParam(name = "schema", defaultValue = "public") String schema,
 			@RequestParam("table") String table) throws Exception {
-		HikariDataSource ds = null;
+		DataSource ds = null;
 		try {
 			ConnectionProfile p = new ConnectionProfile();
 			p.setName(dbDestinoName);
@@ -337,10 +357,10 @@ public class UniversalMigrationController {
 			p.setPassword(dbDestinoPassword);
 			p.setDriverClassName(dbDestinoDriver);
 			p.setValidationTimeoutSeconds(5);
-			ds = dataSourceRegistry.createDataSource(p);
+			ds = dataSourceRegistry.acquire(p);
 			return tableLoader.describeColumns(ds, schema, table);
 		} finally {
-			dataSourceRegistry.closeQuietly(ds);
+			dataSourceRegistry.release(ds);
 		}
 	}
 
@@ -361,9 +381,17 @@ public class UniversalMigrationController {
 			@RequestParam("destTable") String destTable,
 			@RequestParam("mappings") String mappingsJson,
 			@RequestParam(name = "dryRun", defaultValue = "false") boolean dryRun,
+			@RequestParam(name = "loadMode", required = false) MigratorProperties.LoadMode loadMode,
+			@RequestParam(name = "duplicatePolicy", required = false) MigratorProperties.DuplicatePolicy duplicatePolicy,
+			@RequestParam(name = "conflictColumns", required = false) String conflictColumns,
+			@RequestParam(name = "checkpoint", required = false) Boolean checkpoint,
+			@RequestParam(name = "resume", defaultValue = "false") boolean resume,
+			@RequestParam(name = "resumeKey", required = false) String resumeKey,
+			@RequestParam(name = "orderedSource", defaultValue = "false") boolean orderedSource,
 			Model model) {
-		HikariDataSource origen = null;
-		HikariDataSource destino = null;
+		DataSource origen = null;
+		DataSource destino = null;
+		int destinoConnections = 0;
 		try {
 			List<FieldMapping> mappings = parseMappings(mappingsJson);
 
@@ -374,7 +402,7 @@ public class UniversalMigrationController {
 			pOrigen.setPassword(resolvePasswordOrProfile(dbOrigenName, dbOrigenPassword));
 			pOrigen.setDriverClassName(dbOrigenDriver);
 			pOrigen.setValidationTimeoutSeconds(5);
-			origen = dataSourceRegistry.createDataSource(pOrigen);
+			origen = dataSourceRegistry.acquire(pOrigen);
 
 			ConnectionProfile pDestino = new ConnectionProfile();
 			pDestino.setName(dbDestinoName);
@@ -383,16 +411,45 @@ public class UniversalMigrationController {
 			pDestino.setPassword(resolvePasswordOrProfile(dbDestinoName, dbDestinoPassword));
 			pDestino.setDriverClassName(dbDestinoDriver);
 			pDestino.setValidationTimeoutSeconds(5);
-			destino = dataSourceRegistry.createDataSource(pDestino);
 
-			var result = runner.run(origen, destino, sql, mappings, destSchema, destTable, dryRun);
-			model.addAttribute("runResult", result);
-			model.addAttribute("runLogs", logService.snapshot());
+			UniversalRunOptions options = UniversalRunOptions.defaults(properties);
+			if (loadMode != null) {
+				options.setLoadMode(loadMode);
+			}
+			if (duplicatePolicy != null) {
+				options.setDuplicatePolicy(duplicatePolicy);
+			}
+			if (conflictColumns != null && !conflictColumns.isBlank()) {
+				options.setConflictColumns(List.of(conflictColumns.split(",")));
+			}
+			if (checkpoint != null) {
+				options.setCheckpoint(checkpoint);
+			}
+			options.setResume(resume);
+			options.setResumeKey(resumeKey);
+			options.setOrderedSource(orderedSource);
+			// en pipeline cada loader tiene su propia conexión
+			destinoConnections = options.isPipelined() ? options.getLoadWorkers() : 0;
+			destino = dataSourceRegistry.acquire(pDestino, destinoConnections);
+
+			// la corrida sigue en un job: los DataSources pasan a ser del job, que los devuelve al terminar
+			DataSource jobOrigen = origen;
+			DataSource jobDestino = destino;
+			int jobDestinoConnections = destinoConnections;
+			MigrationJobStatus job = jobService.submit("universal",
+					progress -> runner.run(jobOrigen, jobDestino, sql, mappings, destSchema, destTable, dryRun, options, progress),
+					() -> {
+						dataSourceRegistry.release(jobOrigen);
+						dataSourceRegistry.release(jobDestino, jobDestinoConnections);
+					});
+			origen = null;
+			destino = null;
+			model.addAttribute("job", job);
 		} catch (Exception ex) {
 			model.addAttribute("flash", "Error al migrar (universal): " + ex.getMessage());
 		} finally {
-			dataSourceRegistry.closeQuietly(origen);
-			dataSourceRegistry.closeQuietly(destino);
+			dataSourceRegistry.release(origen);
+			dataSourceRegistry.release(destino, destinoConnections);
 		}
 
 		return index(model, dbOrigenName, dbOrigenUrl, dbOrigenUsername, dbOrigenPassword, dbOrigenDriver,
@@ -400,6 +457,24 @@ public class UniversalMigrationController {
 			sql, destSchema, destTable, mappingsJson);
 	}
 
+	/**
+	 * Resultado y logs de un job terminado, con el mismo HTML que la página (la UI reemplaza las secciones).
+	 */
+	@GetMapping("/universal/job-result")
+	public String jobResult(@RequestParam("jobId") UUID jobId, Model model) {
+		MigrationJobStatus job = jobService.status(jobId).orElse(null);
+		if (job == null) {
+			model.addAttribute("flash", "El job " + jobId + " ya no existe");
+		} else if (job.result() != null) {
+			model.addAttribute("runResult", job.result());
+		} else if (job.state().isFinished()) {
+			model.addAttribute("flash", "Error al migrar (universal): " + job.error());
+		}
+		model.addAttribute("runLogs", logService.snapshot(jobId));
+		model.addAttribute("logsJobId", jobId);
+		return index(model, null, null, null, null, null, null, null, null, null, null, null, null, null, null);
+	}
+
 	@PostMapping(value = "/universal/validate", produces = MediaType.APPLICATION_JSON_VALUE)
 	@ResponseBody
 	public UniversalMigrationRunner.ValidationResult validate(
@@ -418,8 +493,8 @@ public class UniversalMigrationController {
 			@RequestParam("destTable") String destTable,
 			@RequestParam("mappings") String mappingsJson,
 			@RequestParam(name = "sample", defaultValue = "30") int sample) throws Exception {
-		HikariDataSource origen = null;
-		HikariDataSource destino = null;
+		DataSource origen = null;
+		DataSource destino = null;
 		try {
 			List<FieldMapping> mappings = parseMappings(mappingsJson);
 			ConnectionProfile pOrigen = new ConnectionProfile();
@@ -429,7 +504,7 @@ public class UniversalMigrationController {
 			pOrigen.setPassword(resolvePasswordOrProfile(dbOrigenName, dbOrigenPassword));
 			pOrigen.setDriverClassName(dbOrigenDriver);
 			pOrigen.setValidationTimeoutSeconds(5);
-			origen = dataSourceRegistry.createDataSource(pOrigen);
+			origen = dataSourceRegistry.acquire(pOrigen);
 
 			ConnectionProfile pDestino = new ConnectionProfile();
 			pDestino.setName(dbDestinoName);
@@ -438,14 +513,14 @@ public class UniversalMigrationController {
 			pDestino.setPassword(resolvePasswordOrProfile(dbDestinoName, dbDestinoPassword));
 			pDestino.setDriverClassName(dbDestinoDriver);
 			pDestino.setValidationTimeoutSeconds(5);
-			destino = dataSourceRegistry.createDataSource(pDestino);
+			destino = dataSourceRegistry.acquire(pDestino);
 
 			int safeSample = Math.max(1, Math.min(500, sample));
 			String limitedSql = wrapSqlWithLimit(sql, safeSample);
 			return runner.validateSample(origen, destino, limitedSql, mappings, destSchema, destTable);
 		} finally {
-			dataSourceRegistry.closeQuietly(origen);
-			dataSourceRegistry.closeQuietly(destino);
+			dataSourceRegistry.release(origen);
+			dataSourceRegistry.release(destino);
 		}
 	}
 
@@ -0,0 +1,19 @@
+package com.multiservicios.migrator.dto;
+
+import java.util.List;
+
+/**
+ * Respuesta de POST /api/productos/batch: un ítem por producto recibido, en el mismo orden.
+ */
+public record CreateProductosResponse(int total, int ok, int failed, List<Item> items) {
+	public static CreateProductosResponse of(List<Item> items) {
+		int ok = (int) items.stream().filter(Item::success).count();
+		return new CreateProductosResponse(items.size(), ok, items.size() - ok, items);
+	}
+
+	/**
+	 * @param created true si se insertó, false si ya existía en destino (null si falló o es dry-run)
+	 */
+	public record Item(int index, boolean success, String message, Long id, Boolean created, List<String> warnings) {
+	}
+}
@@ -0,0 +1,131 @@
+package com.multiservicios.migrator.engine;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.multiservicios.migrator.config.MigratorProperties;
+
+/**
+ * Checkpoints de las corridas universales en archivos locales ({@code migrator.checkpoint.dir}), uno por corrida.
+ * La corrida se identifica por las conexiones de origen y destino (URL y usuario), el SQL y la tabla destino,
+ * así que volver a lanzar la misma migración encuentra su checkpoint sin que haya que anotar ningún id. Una
+ * corrida con checkpoint toma su clave mientras dura ({@link #claim}): no puede haber dos a la vez con la misma.
+ *
+ * Cada escritura va a un temporal propio que después reemplaza al archivo: un corte a mitad de escritura deja
+ * el checkpoint anterior, nunca uno a medias.
+ */
+@Component
+public class CheckpointStore {
+	private final MigratorProperties properties;
+	private final Set<String> active = ConcurrentHashMap.newKeySet();
+
+	public CheckpointStore(MigratorProperties properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * Último tramo confirmado de una corrida: las primeras {@code rowsCommitted} filas del origen (en orden de
+	 * lectura) ya están en el destino, y si la corrida tiene clave de orden, {@code lastKey} es la de la última.
+	 */
+	public record RunCheckpoint(String runKey, long rowsCommitted, String keyColumn, String lastKey,
+			boolean lastKeyNumeric, Instant updatedAt) {
+	}
+
+	/**
+	 * Clave de la corrida. {@code origen} y {@code destino} identifican las conexiones (URL y usuario).
+	 */
+	public static String runKey(String origen, String destino, String sql, String schema, String table) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			String identity = origen + "\n" + destino + "\n" + (sql == null ? "" : sql.trim()) + "\n" + schema + "."
+					+ table;
+			return HexFormat.of().formatHex(digest.digest(identity.getBytes(StandardCharsets.UTF_8)), 0, 16);
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Marca la corrida como en curso; falla si ya hay otra con la misma clave.
+	 */
+	public void claim(String runKey) {
+		if (!active.add(runKey)) {
+			throw new IllegalStateException("Ya hay una corrida en curso con el mismo origen, SQL y destino");
+		}
+	}
+
+	public void release(String runKey) {
+		active.remove(runKey);
+	}
+
+	public Optional<RunCheckpoint> load(String runKey) throws IOException {
+		Path file = file(runKey);
+		if (!Files.exists(file)) {
+			return Optional.empty();
+		}
+		Properties p = new Properties();
+		try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			p.load(in);
+		}
+		try {
+			return Optional.of(new RunCheckpoint(runKey, Long.parseLong(p.getProperty("rowsCommitted", "0")),
+					p.getProperty("keyColumn"), p.getProperty("lastKey"), Boolean.parseBoolean(p.getProperty("lastKeyNumeric")),
+					Instant.parse(p.getProperty("updatedAt", Instant.EPOCH.toString()))));
+		} catch (RuntimeException ex) {
+			throw new IOException("Checkpoint ilegible en " + file + ": " + ex.getMessage(), ex);
+		}
+	}
+
+	public void save(RunCheckpoint checkpoint) throws IOException {
+		Path file = file(checkpoint.runKey());
+		Files.createDirectories(file.getParent());
+		Properties p = new Properties();
+		p.setProperty("rowsCommitted", Long.toString(checkpoint.rowsCommitted()));
+		if (checkpoint.keyColumn() != null) {
+			p.setProperty("keyColumn", checkpoint.keyColumn());
+		}
+		if (checkpoint.lastKey() != null) {
+			p.setProperty("lastKey", checkpoint.lastKey());
+			p.setProperty("lastKeyNumeric", Boolean.toString(checkpoint.lastKeyNumeric()));
+		}
+		p.setProperty("updatedAt", checkpoint.updatedAt().toString());
+
+		Path tmp = Files.createTempFile(file.getParent(), file.getFileName() + ".", ".tmp");
+		try {
+			try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+				p.store(out, "checkpoint de corrida universal");
+			}
+			try {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	public void delete(String runKey) throws IOException {
+		Files.deleteIfExists(file(runKey));
+	}
+
+	private Path file(String runKey) {
+		return Path.of(properties.getCheckpoint().getDir()).resolve("run-" + runKey + ".properties");
+	}
+}
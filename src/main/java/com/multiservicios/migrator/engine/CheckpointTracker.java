@@ -0,0 +1,120 @@
+package com.multiservicios.migrator.engine;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.multiservicios.migrator.engine.CheckpointStore.RunCheckpoint;
+import com.multiservicios.migrator.logs.RunLog;
+
+/**
+ * Marca de agua de una corrida con checkpoints: la última fila N tal que las filas 1..N ya están confirmadas en
+ * el destino. Los chunks pueden terminar desordenados (varios loaders): los que llegan adelantados esperan hasta
+ * que se cierra el hueco. La marca se guarda como mucho una vez por segundo y siempre al cerrar.
+ *
+ * Las filas con error también cuentan como procesadas: quedan en el log de la corrida, no se reintentan al
+ * reanudar.
+ */
+final class CheckpointTracker {
+	private static final long SAVE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final CheckpointStore store;
+	private final RunLog log;
+	private final String runKey;
+	private final long baseRows;
+	private final String keyColumn;
+	private final TreeMap<Integer, Range> completed = new TreeMap<>();
+
+	private int watermark;
+	private Object lastKey;
+	private String lastKeyText;
+	private boolean lastKeyNumeric;
+	private boolean dirty;
+	private long lastSaveNanos = System.nanoTime();
+	private boolean saveFailed;
+
+	private record Range(int lastRow, Object lastKey) {
+	}
+
+	/**
+	 * @param resumedFrom checkpoint desde el que se reanuda (null si la corrida empieza de cero): las filas de
+	 *                    esta corrida se numeran desde 1, y la marca guardada suma las que ya estaban
+	 */
+	CheckpointTracker(CheckpointStore store, RunLog log, String runKey, String keyColumn,
+			RunCheckpoint resumedFrom) {
+		this.store = store;
+		this.log = log;
+		this.runKey = runKey;
+		this.keyColumn = keyColumn;
+		this.baseRows = resumedFrom == null ? 0 : resumedFrom.rowsCommitted();
+		if (resumedFrom != null && resumedFrom.lastKey() != null) {
+			this.lastKeyText = resumedFrom.lastKey();
+			this.lastKeyNumeric = resumedFrom.lastKeyNumeric();
+		}
+	}
+
+	/**
+	 * Las filas {@code firstRow..lastRow} ya están confirmadas; {@code lastKeyValue} es la clave de orden de la
+	 * última (null sin clave).
+	 */
+	synchronized void completed(int firstRow, int lastRow, Object lastKeyValue) {
+		if (lastRow < firstRow) {
+			return;
+		}
+		completed.put(firstRow, new Range(lastRow, lastKeyValue));
+		for (Range next = completed.remove(watermark + 1); next != null; next = completed.remove(watermark + 1)) {
+			watermark = next.lastRow();
+			lastKey = next.lastKey();
+			dirty = true;
+		}
+		if (dirty && System.nanoTime() - lastSaveNanos >= SAVE_INTERVAL_NANOS) {
+			save();
+		}
+	}
+
+	/**
+	 * Guarda la marca pendiente (al cortar la corrida, por error o interrupción).
+	 */
+	synchronized void flush() {
+		if (dirty) {
+			save();
+		}
+	}
+
+	/**
+	 * Corrida completa: el checkpoint ya no hace falta.
+	 */
+	synchronized void finish() {
+		try {
+			store.delete(runKey);
+		} catch (IOException ex) {
+			log.error(0, "No se pudo eliminar el checkpoint de la corrida: " + ex.getMessage());
+		}
+	}
+
+	synchronized long rowsCommitted() {
+		return baseRows + watermark;
+	}
+
+	private void save() {
+		if (lastKey != null) {
+			lastKeyNumeric = lastKey instanceof Number;
+			lastKeyText = lastKey instanceof BigDecimal bd ? bd.toPlainString() : String.valueOf(lastKey);
+			lastKey = null;
+		}
+		try {
+			store.save(new RunCheckpoint(runKey, baseRows + watermark, keyColumn, lastKeyText, lastKeyNumeric,
+					Instant.now()));
+			dirty = false;
+		} catch (IOException ex) {
+			// la corrida sigue; se avisa una vez y se reintenta en el próximo tramo
+			if (!saveFailed) {
+				log.error(0, "No se pudo guardar el checkpoint de la corrida: " + ex.getMessage());
+				saveFailed = true;
+			}
+		}
+		lastSaveNanos = System.nanoTime();
+	}
+}
@@ -1,6 +1,8 @@
 package com.multiservicios.migrator.engine;
 
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.sql.DataSource;
 
@@ -9,11 +11,13 @@ import org.springframework.stereotype.Component;
 import com.multiservicios.migrator.config.DataSourceRegistry;
 import com.multiservicios.migrator.dto.ProductoMigrationDto;
 import com.multiservicios.migrator.extract.SqlExtractor;
+import com.multiservicios.migrator.load.ProductoKeyIndex;
 import com.multiservicios.migrator.load.ProductoLoader;
 import com.multiservicios.migrator.logs.MigrationLogService;
+import com.multiservicios.migrator.logs.RunLog;
 import com.multiservicios.migrator.model.FieldMapping;
-import com.multiservicios.migrator.model.RowData;
 import com.multiservicios.migrator.transform.MappingEngine;
+import com.multiservicios.migrator.transform.MappingPlan;
 
 @Component
 public class MigrationRunner {
@@ -37,31 +41,72 @@ public class MigrationRunner {
 	}
 
 	public MigrationRunResult run(DataSource origen, DataSource destino, String sql, List<FieldMapping> mappings, boolean dryRun) {
-		logService.clear();
-		List<RowData> rows = extractor.extract(origen, sql);
+		return run(origen, destino, sql, mappings, dryRun, RunProgress.untracked(logService.start()));
+	}
+
+	/**
+	 * Corrida con avance observable; si se cancela {@code progress}, corta en la próxima fila leída.
+	 */
+	public MigrationRunResult run(DataSource origen, DataSource destino, String sql, List<FieldMapping> mappings, boolean dryRun,
+			RunProgress progress) {
+		RunLog log = progress.getLog();
+		// targets inválidos se reportan una vez, antes de abrir el cursor, y no fila por fila
+		String targetsError = mappingEngine.validateTargets(mappings);
+		if (targetsError != null) {
+			log.error(0, targetsError);
+			return new MigrationRunResult(0, 0, 0, dryRun);
+		}
+		RunCounters counters = new RunCounters();
+		AtomicReference<MappingPlan> plan = new AtomicReference<>();
+		ProductoKeyIndex keyIndex = dryRun ? null : productoLoader.preloadKeyIndex(destino);
+		if (progress.wantsEstimate()) {
+			progress.expect(extractor.estimateRows(origen, sql));
+		}
 
-		int ok = 0;
-		int fail = 0;
-		for (int i = 0; i < rows.size(); i++) {
-			int rowNumber = i + 1;
-			try {
-				ProductoMigrationDto dto = mappingEngine.mapToProducto(rows.get(i), mappings);
-				var pr = productoLoader.load(destino, dto, dryRun);
-				if (pr.isSuccess()) {
-					ok++;
-					logService.info(rowNumber, pr.getMessage());
-				} else {
-					fail++;
-					logService.error(rowNumber, pr.getMessage());
+		// Streaming: cada fila se mapea y carga apenas llega del cursor (memoria independiente del tamaño del origen).
+		try {
+			extractor.stream(origen, sql, row -> {
+				progress.rowRead();
+				int rowNumber = ++counters.total;
+				try {
+					if (plan.get() == null) {
+						// se compila una vez, con las columnas de la primera fila
+						plan.set(mappingEngine.compile(mappings, row.schema()));
+					}
+					ProductoMigrationDto dto = mappingEngine.mapToProducto(row, plan.get());
+					progress.rowMapped();
+					var pr = productoLoader.load(destino, dto, dryRun, keyIndex);
+					if (pr.isSuccess()) {
+						counters.ok++;
+						progress.rowsLoaded(1, 0);
+						log.info(rowNumber, pr.getMessage());
+					} else {
+						counters.fail++;
+						progress.rowsLoaded(0, 1);
+						log.error(rowNumber, pr.getMessage());
+					}
+				} catch (Exception ex) {
+					counters.fail++;
+					progress.rowsLoaded(0, 1);
+					log.error(rowNumber, ex.getClass().getSimpleName() + ": " + ex.getMessage());
 				}
-			} catch (Exception ex) {
-				fail++;
-				logService.error(rowNumber, ex.getClass().getSimpleName() + ": " + ex.getMessage());
-			}
+			});
+		} catch (CancellationException ex) {
+			log.error(0, "Corrida cancelada en la fila " + progress.getRead());
+			throw ex;
 		}
-		return new MigrationRunResult(rows.size(), ok, fail, dryRun);
+		return new MigrationRunResult(counters.total, counters.ok, counters.fail, dryRun);
+	}
+
+	private static final class RunCounters {
+		private int total;
+		private int ok;
+		private int fail;
 	}
 
+	/**
+	 * Resultado final de una corrida (en un job, la foto con la que termina).
+	 */
 	public record MigrationRunResult(int total, int ok, int fail, boolean dryRun) {
 	}
 }
@@ -0,0 +1,112 @@
+package com.multiservicios.migrator.engine;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.multiservicios.migrator.logs.RunLog;
+
+/**
+ * Avance de una corrida mientras se ejecuta: filas leídas del origen, mapeadas, cargadas y fallidas. Los
+ * runners lo actualizan fila a fila (en pipeline desde varios hilos, por eso los contadores son
+ * {@link LongAdder}) y el job lo lee para informar progreso. Trae también el {@link RunLog} donde la corrida
+ * registra sus filas.
+ *
+ * También lleva el pedido de cancelación: la lectura lo revisa en cada fila y corta la corrida con
+ * {@link CancellationException}, por el mismo camino que cualquier otro error (con checkpoints queda
+ * guardado lo confirmado).
+ */
+public final class RunProgress {
+	private final boolean estimate;
+	private final RunLog log;
+	private final LongAdder read = new LongAdder();
+	private final LongAdder mapped = new LongAdder();
+	private final LongAdder loaded = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private volatile Long expectedRows;
+	private volatile boolean cancelRequested;
+
+	private RunProgress(boolean estimate, RunLog log) {
+		this.estimate = estimate;
+		this.log = log;
+	}
+
+	/**
+	 * Progreso de un job: el runner estima el total del origen para poder calcular el ETA.
+	 */
+	public static RunProgress tracked(RunLog log) {
+		return new RunProgress(true, log);
+	}
+
+	/**
+	 * Corrida sincrónica: se cuentan las filas pero no se consulta el total al origen.
+	 */
+	public static RunProgress untracked(RunLog log) {
+		return new RunProgress(false, log);
+	}
+
+	public RunLog getLog() {
+		return log;
+	}
+
+	boolean wantsEstimate() {
+		return estimate;
+	}
+
+	/**
+	 * Una fila más leída del origen; corta la corrida si se pidió cancelarla.
+	 */
+	void rowRead() {
+		if (cancelRequested) {
+			throw new CancellationException("Corrida cancelada");
+		}
+		read.increment();
+	}
+
+	void rowMapped() {
+		mapped.increment();
+	}
+
+	void rowsLoaded(int ok, int fail) {
+		if (ok > 0) {
+			loaded.add(ok);
+		}
+		if (fail > 0) {
+			failed.add(fail);
+		}
+	}
+
+	void expect(Long rows) {
+		expectedRows = rows == null ? null : Math.max(0, rows);
+	}
+
+	public void cancel() {
+		cancelRequested = true;
+	}
+
+	public boolean isCancelRequested() {
+		return cancelRequested;
+	}
+
+	public long getRead() {
+		return read.sum();
+	}
+
+	public long getMapped() {
+		return mapped.sum();
+	}
+
+	public long getLoaded() {
+		return loaded.sum();
+	}
+
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	/**
+	 * Filas que se espera leer según la estimación del planificador del origen, o null si no se conoce.
+	 */
+	public Long getExpectedRows() {
+		return expectedRows;
+	}
+}
@@ -1,46 +1,93 @@
 package com.multiservicios.migrator.engine;
 
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 import java.util.HashSet;
 import java.util.ArrayList;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 import javax.sql.DataSource;
 
 import org.springframework.stereotype.Component;
 
+import com.multiservicios.migrator.config.MigratorProperties;
+import com.multiservicios.migrator.config.MigratorProperties.LoadMode;
+import com.multiservicios.migrator.engine.CheckpointStore.RunCheckpoint;
 import com.multiservicios.migrator.extract.SqlExtractor;
+import com.multiservicios.migrator.load.DuplicateHandling;
+import com.multiservicios.migrator.load.PgCopyLoader;
+import com.multiservicios.migrator.load.PgMergeLoader;
+import com.multiservicios.migrator.load.UniversalLoadSession;
 import com.multiservicios.migrator.load.UniversalTableLoader;
 import com.multiservicios.migrator.logs.MigrationLogService;
+import com.multiservicios.migrator.logs.RunLog;
 import com.multiservicios.migrator.model.FieldMapping;
 import com.multiservicios.migrator.model.RowData;
+import com.multiservicios.migrator.transform.MappingPlan;
 import com.multiservicios.migrator.transform.UniversalMappingEngine;
 
 @Component
 public class UniversalMigrationRunner {
+	private static final Pattern ORDER_BY = Pattern.compile("\\border\\s+by\\b", Pattern.CASE_INSENSITIVE);
+
 	private final SqlExtractor extractor;
 	private final UniversalMappingEngine mappingEngine;
 	private final UniversalTableLoader loader;
+	private final PgCopyLoader copyLoader;
+	private final PgMergeLoader mergeLoader;
 	private final MigrationLogService logService;
+	private final CheckpointStore checkpointStore;
+	private final MigratorProperties properties;
 
 	public UniversalMigrationRunner(SqlExtractor extractor, UniversalMappingEngine mappingEngine, UniversalTableLoader loader,
-			MigrationLogService logService) {
+			PgCopyLoader copyLoader, PgMergeLoader mergeLoader, MigrationLogService logService,
+			CheckpointStore checkpointStore, MigratorProperties properties) {
 		this.extractor = extractor;
 		this.mappingEngine = mappingEngine;
 		this.loader = loader;
+		this.copyLoader = copyLoader;
+		this.mergeLoader = mergeLoader;
 		this.logService = logService;
+		this.checkpointStore = checkpointStore;
+		this.properties = properties;
 	}
 
 	public UniversalRunResult run(DataSource origen, DataSource destino, String sql, List<FieldMapping> mappings,
 			String schema, String table, boolean dryRun) {
-		logService.clear();
-		List<RowData> rows = extractor.extract(origen, sql);
+		return run(origen, destino, sql, mappings, schema, table, dryRun, UniversalRunOptions.defaults(properties));
+	}
+
+	public UniversalRunResult run(DataSource origen, DataSource destino, String sql, List<FieldMapping> mappings,
+			String schema, String table, boolean dryRun, UniversalRunOptions options) {
+		return run(origen, destino, sql, mappings, schema, table, dryRun, options, RunProgress.untracked(logService.start()));
+	}
 
+	/**
+	 * Corrida con avance observable: {@code progress} se actualiza fila a fila y, si se cancela, la corrida se
+	 * corta en la próxima fila leída con {@link CancellationException}.
+	 */
+	public UniversalRunResult run(DataSource origen, DataSource destino, String sql, List<FieldMapping> mappings,
+			String schema, String table, boolean dryRun, UniversalRunOptions options, RunProgress progress) {
+		RunLog log = progress.getLog();
+		if (options == null) {
+			options = UniversalRunOptions.defaults(properties);
+		}
+		LoadMode loadMode = options.getLoadMode() != null ? options.getLoadMode() : properties.getLoad().getMode();
+
+		// Validaciones previas: se resuelven antes de abrir el cursor del origen (la extracción es streaming).
 		String duplicatesError = validateDuplicateTargets(mappings);
 		if (duplicatesError != null) {
-			logService.error(0, duplicatesError);
-			return new UniversalRunResult(rows.size(), 0, rows.size(), dryRun);
+			log.error(0, duplicatesError);
+			return new UniversalRunResult(0, 0, 0, dryRun);
 		}
 
 		Set<String> allowed;
@@ -49,43 +96,470 @@ public class UniversalMigrationRunner {
 			allowed = loader.loadAllowedColumnsLower(destino, schema, table);
 			metaByLower = loader.loadColumnMetaByLower(destino, schema, table);
 		} catch (Exception ex) {
-			logService.error(0, "No se pudo leer columnas del destino: " + ex.getMessage());
-			return new UniversalRunResult(rows.size(), 0, rows.size(), dryRun);
+			log.error(0, "No se pudo leer columnas del destino: " + ex.getMessage());
+			return new UniversalRunResult(0, 0, 0, dryRun);
 		}
 
 		String precheckError = validateRequiredColumns(metaByLower, mappings);
 		if (precheckError != null) {
-			logService.error(0, precheckError);
-			return new UniversalRunResult(rows.size(), 0, rows.size(), dryRun);
+			log.error(0, precheckError);
+			return new UniversalRunResult(0, 0, 0, dryRun);
 		}
 
 		List<String> autoGenTargets = findAutogeneratedTargets(metaByLower, mappings);
 		if (!autoGenTargets.isEmpty()) {
-			logService.info(0,
+			log.info(0,
 					"Se ignorarán mapeos a columnas autogeneradas (AUTO_INCREMENT/GENERATED): " + String.join(", ", autoGenTargets));
 		}
 
-		int ok = 0;
-		int fail = 0;
-		for (int i = 0; i < rows.size(); i++) {
-			int rowNumber = i + 1;
+		DuplicateHandling duplicates;
+		try {
+			duplicates = loader.resolveDuplicateHandling(destino, schema, table,
+					new DuplicateHandling(options.getDuplicatePolicy(), options.getConflictColumns()), allowed, metaByLower);
+		} catch (Exception ex) {
+			log.error(0, ex.getMessage());
+			return new UniversalRunResult(0, 0, 0, dryRun);
+		}
+		if (duplicates.upserts()) {
+			log.info(0, "Upsert por clave de conflicto: " + String.join(", ", duplicates.conflictColumns()));
+		}
+
+		ResumePlan resume;
+		try {
+			resume = planResume(origen, destino, sql, schema, table, options, dryRun, log);
+		} catch (Exception ex) {
+			log.error(0, ex.getMessage());
+			return new UniversalRunResult(0, 0, 0, dryRun);
+		}
+		try {
+			if (progress.wantsEstimate()) {
+				Long estimated = extractor.estimateRows(origen, resume.sql());
+				progress.expect(estimated == null ? null : estimated - resume.skipRows());
+			}
+			return runPlanned(origen, destino, mappings, schema, table, dryRun, options, progress, loadMode, allowed,
+					metaByLower, duplicates, resume);
+		} finally {
+			if (resume.runKey() != null) {
+				checkpointStore.release(resume.runKey());
+			}
+		}
+	}
+
+	private UniversalRunResult runPlanned(DataSource origen, DataSource destino, List<FieldMapping> mappings,
+			String schema, String table, boolean dryRun, UniversalRunOptions options, RunProgress progress,
+			LoadMode loadMode, Set<String> allowed, Map<String, com.multiservicios.migrator.model.ColumnMeta> meta,
+			DuplicateHandling duplicates, ResumePlan resume) {
+		RunLog log = progress.getLog();
+		RunCounters counters = new RunCounters(progress);
+		// el plan de mapeo se compila con las columnas de la primera fila (todas las filas traen las mismas)
+		AtomicReference<MappingPlan> plan = new AtomicReference<>();
+		UniversalRunResult result;
+		try {
+			if (options.isPipelined()) {
+				try (LoadSessions sessions = new LoadSessions(options.getLoadWorkers(), destino, schema, table, allowed, meta,
+						dryRun, duplicates, log)) {
+					result = runPipelined(origen, resume, mappings, loadMode, options, sessions, plan, counters, dryRun);
+				}
+			} else {
+				result = runSequential(origen, resume, mappings, loadMode, destino, schema, table, allowed, meta, duplicates,
+						plan, counters, dryRun);
+			}
+		} catch (RuntimeException | Error ex) {
+			if (ex instanceof CancellationException) {
+				log.error(0, "Corrida cancelada en la fila " + counters.progress.getRead());
+			}
+			if (resume.tracker() != null) {
+				resume.tracker().flush();
+				log.error(0, "Corrida interrumpida; checkpoint en " + resume.tracker().rowsCommitted()
+						+ " filas confirmadas (se puede reanudar)");
+			}
+			throw ex;
+		}
+		if (resume.tracker() != null) {
+			resume.tracker().finish();
+		}
+		return result;
+	}
+
+	private UniversalRunResult runSequential(DataSource origen, ResumePlan resume, List<FieldMapping> mappings,
+			LoadMode loadMode, DataSource destino, String schema, String table, Set<String> allowed,
+			Map<String, com.multiservicios.migrator.model.ColumnMeta> meta, DuplicateHandling duplicates,
+			AtomicReference<MappingPlan> plan, RunCounters counters, boolean dryRun) {
+		CheckpointTracker tracker = resume.tracker();
+		int batchSize = switch (loadMode) {
+			// con checkpoints cada tramo se confirma antes de avanzar la marca: fila a fila se agrupa en tramos de commitEvery
+			case ROW -> tracker == null ? 1 : Math.max(1, properties.getLoad().getCommitEvery());
+			case BATCH -> Math.max(1, properties.getLoad().getBatchSize());
+			case COPY, MERGE -> Math.max(1, properties.getLoad().getCopyChunkSize());
+		};
+		List<PendingRow> pending = new ArrayList<>(Math.min(batchSize, 10_000));
+		try (LoadSessions sessions = new LoadSessions(1, destino, schema, table, allowed, meta, dryRun, duplicates,
+				counters.progress.getLog())) {
+			extractor.stream(origen, resume.sql(), skipping(resume.skipRows(), counters.progress, row -> {
+				counters.progress.rowRead();
+				requireKey(row, resume.keyColumn(), counters.progress.getRead());
+				if (plan.get() == null) {
+					plan.set(mappingEngine.compile(mappings, row.schema()));
+				}
+				pending.add(mapRow(++counters.total, row, plan.get(), resume.keyColumn(), counters.progress));
+				if (pending.size() >= batchSize) {
+					recordResults(pending, loadPending(pending, loadMode, sessions, 0, tracker != null), counters, tracker);
+					pending.clear();
+				}
+			}));
+			recordResults(pending, loadPending(pending, loadMode, sessions, 0, tracker != null), counters, tracker);
+		}
+
+		return new UniversalRunResult(counters.total, counters.ok, counters.fail, dryRun);
+	}
+
+	private UniversalRunResult runPipelined(DataSource origen, ResumePlan resume, List<FieldMapping> mappings,
+			LoadMode loadMode, UniversalRunOptions options, LoadSessions sessions, AtomicReference<MappingPlan> plan,
+			RunCounters counters, boolean dryRun) {
+		CheckpointTracker tracker = resume.tracker();
+		int chunkSize = loadMode == LoadMode.COPY || loadMode == LoadMode.MERGE ? properties.getLoad().getCopyChunkSize()
+				: properties.getLoad().getBatchSize();
+		var pipeline = new UniversalPipeline<PendingRow, LoadedChunk>(options.getTransformWorkers(),
+				options.getLoadWorkers(), properties.getPipeline().getQueueCapacity(), chunkSize, options.isOrderedLogs());
+		long total = pipeline.execute(new UniversalPipeline.Stages<>() {
+			@Override
+			public void read(Consumer<RowData> sink) {
+				extractor.stream(origen, resume.sql(), skipping(resume.skipRows(), counters.progress, row -> {
+					counters.progress.rowRead();
+					requireKey(row, resume.keyColumn(), counters.progress.getRead());
+					if (plan.get() == null) {
+						plan.set(mappingEngine.compile(mappings, row.schema()));
+					}
+					sink.accept(row);
+				}));
+			}
+
+			@Override
+			public PendingRow transform(int rowNumber, RowData row) {
+				return mapRow(rowNumber, row, plan.get(), resume.keyColumn(), counters.progress);
+			}
+
+			@Override
+			public LoadedChunk load(int worker, List<PendingRow> rows) {
+				return loadPending(rows, loadMode, sessions, worker, tracker != null);
+			}
+
+			@Override
+			public void record(List<PendingRow> rows, LoadedChunk chunk) {
+				recordResults(rows, chunk, counters, tracker);
+			}
+		});
+		counters.total = (int) total;
+		return new UniversalRunResult(counters.total, counters.ok, counters.fail, dryRun);
+	}
+
+	private PendingRow mapRow(int rowNumber, RowData row, MappingPlan plan, String keyColumn, RunProgress progress) {
+		Object key = keyColumn == null ? null : row.get(keyColumn);
+		try {
+			PendingRow mapped = new PendingRow(rowNumber, mappingEngine.mapToColumns(row, plan), null, key);
+			progress.rowMapped();
+			return mapped;
+		} catch (Exception ex) {
+			return new PendingRow(rowNumber, null, ex.getClass().getSimpleName() + ": " + ex.getMessage(), key);
+		}
+	}
+
+	/**
+	 * Con clave de orden, cada fila tiene que traerla: la marca del checkpoint es la clave de la última fila
+	 * confirmada, y una clave NULL no se puede ubicar en ese orden. La corrida se corta en la lectura (lo ya leído
+	 * se carga y queda en el checkpoint).
+	 */
+	private static void requireKey(RowData row, String keyColumn, long rowNumber) {
+		if (keyColumn != null && row.get(keyColumn) == null) {
+			throw new IllegalStateException("La clave de orden " + keyColumn + " vino NULL (o no está en el SQL) en la fila "
+					+ rowNumber + ": tiene que ser una columna única y sin NULL");
+		}
+	}
+
+	/**
+	 * Desde dónde lee la corrida: el SQL efectivo (ordenado y filtrado por la clave de orden, si la hay), las
+	 * filas a saltear al reanudar sin clave y la marca de checkpoints (null si la corrida no los usa).
+	 */
+	private record ResumePlan(String sql, long skipRows, String keyColumn, String runKey, CheckpointTracker tracker) {
+	}
+
+	private ResumePlan planResume(DataSource origen, DataSource destino, String sql, String schema, String table,
+			UniversalRunOptions options, boolean dryRun, RunLog log) throws IOException, SQLException {
+		if (!options.isCheckpoint() && !options.isResume()) {
+			return new ResumePlan(sql, 0, null, null, null);
+		}
+		if (dryRun) {
+			log.info(0, "Dry run: no se guardan ni se usan checkpoints");
+			return new ResumePlan(sql, 0, null, null, null);
+		}
+		String runKey = CheckpointStore.runKey(connectionIdentity(origen), connectionIdentity(destino), sql, schema, table);
+		// dos corridas con el mismo checkpoint se pisarían la marca: la segunda no arranca
+		checkpointStore.claim(runKey);
+		try {
+			return planResume(runKey, sql, options, log);
+		} catch (IOException | RuntimeException ex) {
+			checkpointStore.release(runKey);
+			throw ex;
+		}
+	}
+
+	private ResumePlan planResume(String runKey, String sql, UniversalRunOptions options, RunLog log) throws IOException {
+		RunCheckpoint from = options.isResume() ? checkpointStore.load(runKey).orElse(null) : null;
+		String keyColumn = options.getResumeKey();
+		if (from != null && !Objects.equals(from.keyColumn(), keyColumn)) {
+			// se reanuda con el mismo criterio con el que se guardó el checkpoint
+			log.info(0, "El checkpoint se guardó " + (from.keyColumn() == null ? "sin clave de orden"
+					: "con clave de orden " + from.keyColumn()) + "; se reanuda con ese criterio");
+			keyColumn = from.keyColumn();
+		}
+
+		String effectiveSql = sql;
+		long skipRows = 0;
+		if (keyColumn != null) {
+			if (!keyColumn.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+				throw new IllegalArgumentException("Clave de orden inválida: '" + keyColumn + "' (debe ser una columna del SQL)");
+			}
+			String base = sql.strip();
+			while (base.endsWith(";")) {
+				base = base.substring(0, base.length() - 1).strip();
+			}
+			if (from != null && from.lastKey() == null && from.rowsCommitted() > 0) {
+				throw new IllegalArgumentException("El checkpoint tiene " + from.rowsCommitted()
+						+ " filas confirmadas pero no la clave de la última: no se puede reanudar por " + keyColumn);
+			}
+			StringBuilder sb = new StringBuilder("select * from (").append(base).append(") t");
+			if (from != null && from.lastKey() != null) {
+				// los NULL quedan al final del orden: se vuelven a leer (y cortan la corrida) en lugar de perderse
+				sb.append(" where (t.").append(keyColumn).append(" > ").append(keyLiteral(from)).append(" or t.")
+						.append(keyColumn).append(" is null)");
+			}
+			effectiveSql = sb.append(" order by t.").append(keyColumn).toString();
+		} else {
+			// sin clave, reanudar es saltear filas: solo vale si el SQL devuelve siempre el mismo orden
+			if (!options.isOrderedSource()) {
+				throw new IllegalArgumentException(from != null
+						? "El checkpoint se guardó sin clave de orden: para reanudarlo hay que confirmar que el SQL tiene un ORDER BY estable"
+						: "Checkpoints sin clave de orden: indicá una clave (columna única y sin NULL) o confirmá que el SQL tiene un ORDER BY estable");
+			}
+			if (!ORDER_BY.matcher(sql).find()) {
+				throw new IllegalArgumentException("Se confirmó un orden estable pero el SQL no tiene ORDER BY");
+			}
+			if (from != null) {
+				skipRows = from.rowsCommitted();
+			}
+		}
+
+		if (options.isResume()) {
+			if (from == null) {
+				log.info(0, "Sin checkpoint para esta corrida: se empieza desde la primera fila");
+			} else {
+				log.info(0, "Reanudando después de " + from.rowsCommitted() + " filas confirmadas"
+						+ (keyColumn != null && from.lastKey() != null ? " (" + keyColumn + " > " + from.lastKey() + ")"
+								: " (se saltean en la lectura)"));
+			}
+		}
+		return new ResumePlan(effectiveSql, skipRows, keyColumn, runKey,
+				new CheckpointTracker(checkpointStore, log, runKey, keyColumn, from));
+	}
+
+	/**
+	 * URL y usuario de la conexión: distinguen la misma consulta corrida contra otra base.
+	 */
+	private static String connectionIdentity(DataSource dataSource) throws SQLException {
+		try (Connection con = dataSource.getConnection()) {
+			DatabaseMetaData md = con.getMetaData();
+			return md.getURL() + "|" + md.getUserName();
+		}
+	}
+
+	private static String keyLiteral(RunCheckpoint checkpoint) {
+		String value = checkpoint.lastKey();
+		if (checkpoint.lastKeyNumeric() && value.matches("-?\\d+(\\.\\d+)?([eE][-+]?\\d+)?")) {
+			return value;
+		}
+		return "'" + value.replace("'", "''") + "'";
+	}
+
+	/**
+	 * Descarta las primeras {@code rows} filas del origen (reanudación sin clave de orden). Las descartadas no
+	 * cuentan como leídas, pero un pedido de cancelación corta también el salteo.
+	 */
+	private static Consumer<RowData> skipping(long rows, RunProgress progress, Consumer<RowData> consumer) {
+		if (rows <= 0) {
+			return consumer;
+		}
+		long[] skipped = { 0 };
+		return row -> {
+			if (skipped[0] < rows) {
+				if (progress.isCancelRequested()) {
+					throw new CancellationException("Corrida cancelada");
+				}
+				skipped[0]++;
+				return;
+			}
+			consumer.accept(row);
+		};
+	}
+
+	/**
+	 * Carga las filas acumuladas según el modo (fila a fila, insert por lotes, COPY o merge vía staging). Devuelve un resultado
+	 * por cada fila sin error de mapeo, en el mismo orden.
+	 */
+	private LoadedChunk loadPending(List<PendingRow> pending, LoadMode loadMode, LoadSessions sessions, int worker,
+			boolean commit) {
+		List<Map<String, Object>> batch = new ArrayList<>(pending.size());
+		for (PendingRow p : pending) {
+			if (p.error() == null) {
+				batch.add(p.values());
+			}
+		}
+		if (batch.isEmpty()) {
+			return new LoadedChunk(List.of(), true);
+		}
+		UniversalLoadSession session;
+		try {
+			session = sessions.get(worker);
+		} catch (Exception ex) {
+			// sin conexión al destino: fallan las filas del chunk y se reintenta con el siguiente
+			return new LoadedChunk(java.util.Collections.nCopies(batch.size(),
+					new UniversalTableLoader.LoadResult(false, ex.getClass().getSimpleName() + ": " + ex.getMessage())), false);
+		}
+		List<UniversalTableLoader.LoadResult> results;
+		if (loadMode == LoadMode.COPY) {
+			results = copyLoader.copyRows(session, batch, sessions.dryRun);
+		} else if (loadMode == LoadMode.MERGE) {
+			results = mergeLoader.mergeRows(session, batch, sessions.dryRun);
+		} else if (loadMode == LoadMode.ROW || batch.size() == 1) {
+			results = new ArrayList<>(batch.size());
+			for (Map<String, Object> values : batch) {
+				results.add(session.insertRow(values));
+			}
+		} else {
+			results = session.insertBatch(batch);
+		}
+		if (commit) {
+			// con checkpoints el tramo tiene que quedar confirmado antes de que avance la marca; el commit va
+			// siempre al servidor, así una conexión cortada a mitad del tramo no pasa por confirmada
 			try {
-				var values = mappingEngine.mapToColumns(rows.get(i), mappings);
-				var result = loader.insertRow(destino, schema, table, values, allowed, metaByLower, dryRun);
-				if (result.success()) {
-					ok++;
-					logService.info(rowNumber, result.message());
-				} else {
-					fail++;
-					logService.error(rowNumber, result.message());
+				session.commitNow();
+			} catch (SQLException ex) {
+				session.rollbackQuietly();
+				return new LoadedChunk(java.util.Collections.nCopies(batch.size(),
+						new UniversalTableLoader.LoadResult(false, "No se pudo confirmar el tramo: " + ex.getMessage())), false);
+			}
+		}
+		return new LoadedChunk(results, true);
+	}
+
+	/**
+	 * Resultado de cargar un chunk: uno por fila sin error de mapeo, y si el chunk quedó confirmado (con
+	 * checkpoints, solo un chunk confirmado hace avanzar la marca).
+	 */
+	private record LoadedChunk(List<UniversalTableLoader.LoadResult> results, boolean committed) {
+	}
+
+	/**
+	 * Sesiones de carga de la corrida, una por loader (se abren al primer chunk). Al cerrar se confirma lo
+	 * pendiente; si eso falla se deja constancia en el log (las filas ya figuran como OK).
+	 */
+	private final class LoadSessions implements AutoCloseable {
+		private final UniversalLoadSession[] sessions;
+		private final DataSource destino;
+		private final String schema;
+		private final String table;
+		private final Set<String> allowed;
+		private final Map<String, com.multiservicios.migrator.model.ColumnMeta> meta;
+		private final boolean dryRun;
+		private final DuplicateHandling duplicates;
+		private final RunLog log;
+
+		private LoadSessions(int workers, DataSource destino, String schema, String table, Set<String> allowed,
+				Map<String, com.multiservicios.migrator.model.ColumnMeta> meta, boolean dryRun,
+				DuplicateHandling duplicates, RunLog log) {
+			this.sessions = new UniversalLoadSession[Math.max(1, workers)];
+			this.destino = destino;
+			this.schema = schema;
+			this.table = table;
+			this.allowed = allowed;
+			this.meta = meta;
+			this.dryRun = dryRun;
+			this.duplicates = duplicates;
+			this.log = log;
+		}
+
+		private UniversalLoadSession get(int worker) throws SQLException {
+			UniversalLoadSession session = sessions[worker];
+			if (session == null) {
+				session = loader.openSession(destino, schema, table, allowed, meta, dryRun, duplicates);
+				sessions[worker] = session;
+			}
+			return session;
+		}
+
+		@Override
+		public void close() {
+			for (UniversalLoadSession session : sessions) {
+				if (session == null) {
+					continue;
 				}
-			} catch (Exception ex) {
+				try {
+					session.close();
+				} catch (Exception ex) {
+					log.error(0, "No se pudieron confirmar las últimas filas: " + ex.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Registra los resultados en orden de fila. El log de la corrida no toma locks, así que solo la suma a los
+	 * contadores se sincroniza (en pipeline varios loaders pueden terminar a la vez).
+	 */
+	private void recordResults(List<PendingRow> pending, LoadedChunk chunk, RunCounters counters,
+			CheckpointTracker tracker) {
+		if (tracker != null && chunk.committed() && !pending.isEmpty()) {
+			PendingRow last = pending.get(pending.size() - 1);
+			tracker.completed(pending.get(0).rowNumber(), last.rowNumber(), last.sourceKey());
+		}
+		RunLog log = counters.progress.getLog();
+		List<UniversalTableLoader.LoadResult> results = chunk.results();
+		int ok = 0;
+		int fail = 0;
+		int next = 0;
+		for (PendingRow p : pending) {
+			if (p.error() != null) {
+				fail++;
+				log.error(p.rowNumber(), p.error());
+				continue;
+			}
+			var result = results.get(next++);
+			if (result.success()) {
+				ok++;
+				log.info(p.rowNumber(), result.message());
+			} else {
 				fail++;
-				logService.error(rowNumber, ex.getClass().getSimpleName() + ": " + ex.getMessage());
+				log.error(p.rowNumber(), result.message());
 			}
 		}
+		synchronized (counters) {
+			counters.ok += ok;
+			counters.fail += fail;
+		}
+		counters.progress.rowsLoaded(ok, fail);
+	}
 
-		return new UniversalRunResult(rows.size(), ok, fail, dryRun);
+	private record PendingRow(int rowNumber, Map<String, Object> values, String error, Object sourceKey) {
+	}
+
+	private static final class RunCounters {
+		private final RunProgress progress;
+		private int total;
+		private int ok;
+		private int fail;
+
+		private RunCounters(RunProgress progress) {
+			this.progress = progress;
+		}
 	}
 
 	public ValidationResult validateSample(DataSource origen, DataSource destino, String limitedSql,
@@ -124,10 +598,11 @@ public class UniversalMigrationRunner {
 							+ String.join(", ", autoGenTargets));
 		}
 
+		MappingPlan plan = rows.isEmpty() ? null : mappingEngine.compile(mappings, rows.get(0).schema());
 		for (int i = 0; i < rows.size(); i++) {
 			int rowNumber = i + 1;
 			try {
-				var values = mappingEngine.mapToColumns(rows.get(i), mappings);
+				var values = mappingEngine.mapToColumns(rows.get(i), plan);
 				// validar NOT NULL por fila (cuando el mapping existe pero el dato viene null)
 				for (var e : metaByLower.entrySet()) {
 					var meta = e.getValue();
@@ -269,6 +744,9 @@ public class UniversalMigrationRunner {
 		return "Faltan mapeos para columnas NOT NULL sin default en destino: " + missing;
 	}
 
+	/**
+	 * Resultado final de una corrida (en un job, la foto con la que termina).
+	 */
 	public record UniversalRunResult(int total, int ok, int fail, boolean dryRun) {
 	}
 }
@@ -0,0 +1,238 @@
+package com.multiservicios.migrator.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import com.multiservicios.migrator.model.RowData;
+
+/**
+ * Ejecución en pipeline del modo universal: un lector, N workers de transformación y M workers de carga,
+ * conectados por colas acotadas (backpressure) y corriendo en virtual threads. Mientras el destino escribe
+ * un chunk, el origen ya está entregando el siguiente: las latencias se solapan en lugar de sumarse.
+ *
+ * Las filas viajan en chunks (no de a una) para que el costo de las colas no domine. Con {@code orderedLogs}
+ * los resultados se registran en orden de chunk aunque los loaders terminen desordenados.
+ */
+final class UniversalPipeline<T, R> {
+
+	/**
+	 * Etapas concretas de la corrida. {@code transform} corre en paralelo (debe ser thread-safe);
+	 * {@code record} nunca se invoca concurrentemente cuando los logs son ordenados.
+	 */
+	interface Stages<T, R> {
+		void read(Consumer<RowData> sink);
+
+		T transform(int rowNumber, RowData row);
+
+		/**
+		 * @param worker índice del loader (0..M-1): cada índice lo usa siempre el mismo hilo
+		 */
+		R load(int worker, List<T> rows);
+
+		void record(List<T> rows, R result);
+	}
+
+	private final int transformWorkers;
+	private final int loadWorkers;
+	private final int queueCapacity;
+	private final int chunkSize;
+	private final boolean orderedLogs;
+
+	UniversalPipeline(int transformWorkers, int loadWorkers, int queueCapacity, int chunkSize, boolean orderedLogs) {
+		this.transformWorkers = Math.max(1, transformWorkers);
+		this.loadWorkers = Math.max(1, loadWorkers);
+		this.queueCapacity = Math.max(1, queueCapacity);
+		this.chunkSize = Math.max(1, chunkSize);
+		this.orderedLogs = orderedLogs;
+	}
+
+	/**
+	 * Corre las tres etapas hasta agotar el origen. Si una etapa falla se interrumpen las demás y se
+	 * relanza el primer error.
+	 *
+	 * Un error en la lectura (también la cancelación, {@link CancellationException}) no interrumpe: se toma como
+	 * fin del origen, se cargan los chunks que ya estaban en las colas y recién después se relanza.
+	 *
+	 * @return cantidad de filas leídas
+	 */
+	long execute(Stages<T, R> stages) {
+		BlockingQueue<Chunk<RowData>> toTransform = new ArrayBlockingQueue<>(queueCapacity);
+		BlockingQueue<Chunk<T>> toLoad = new ArrayBlockingQueue<>(queueCapacity);
+		AtomicInteger transformersLeft = new AtomicInteger(transformWorkers);
+		ChunkReader reader = new ChunkReader(toTransform);
+		AtomicReference<RuntimeException> readFailure = new AtomicReference<>();
+		Recorder<T, R> recorder = orderedLogs ? new OrderedRecorder<>(stages) : (seq, rows, result) -> stages.record(rows, result);
+
+		Throwable failure = null;
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+			int tasks = 0;
+
+			completion.submit(() -> {
+				try {
+					stages.read(reader);
+				} catch (RuntimeException ex) {
+					readFailure.set(ex);
+				}
+				reader.flush();
+				for (int i = 0; i < transformWorkers; i++) {
+					toTransform.put(Chunk.end());
+				}
+				return null;
+			});
+			tasks++;
+
+			for (int w = 0; w < transformWorkers; w++) {
+				completion.submit(() -> {
+					for (Chunk<RowData> chunk = toTransform.take(); !chunk.isEnd(); chunk = toTransform.take()) {
+						List<T> out = new ArrayList<>(chunk.items().size());
+						for (int i = 0; i < chunk.items().size(); i++) {
+							out.add(stages.transform(chunk.firstRowNumber() + i, chunk.items().get(i)));
+						}
+						toLoad.put(new Chunk<>(chunk.seq(), chunk.firstRowNumber(), out));
+					}
+					// el último transformador en salir avisa a los loaders
+					if (transformersLeft.decrementAndGet() == 0) {
+						for (int i = 0; i < loadWorkers; i++) {
+							toLoad.put(Chunk.end());
+						}
+					}
+					return null;
+				});
+				tasks++;
+			}
+
+			for (int w = 0; w < loadWorkers; w++) {
+				int worker = w;
+				completion.submit(() -> {
+					for (Chunk<T> chunk = toLoad.take(); !chunk.isEnd(); chunk = toLoad.take()) {
+						R result = stages.load(worker, chunk.items());
+						recorder.record(chunk.seq(), chunk.items(), result);
+					}
+					return null;
+				});
+				tasks++;
+			}
+
+			for (int i = 0; i < tasks; i++) {
+				try {
+					completion.take().get();
+				} catch (ExecutionException ex) {
+					failure = ex.getCause() != null ? ex.getCause() : ex;
+					executor.shutdownNow();
+					break;
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					failure = ex;
+					executor.shutdownNow();
+					break;
+				}
+			}
+		}
+
+		if (failure == null && readFailure.get() != null) {
+			throw readFailure.get();
+		}
+		if (failure instanceof RuntimeException re) {
+			throw re;
+		}
+		if (failure instanceof Error err) {
+			throw err;
+		}
+		if (failure != null) {
+			throw new IllegalStateException("Pipeline interrumpido: " + failure.getMessage(), failure);
+		}
+		return reader.rowsRead;
+	}
+
+	private record Chunk<E>(long seq, int firstRowNumber, List<E> items) {
+		static <E> Chunk<E> end() {
+			return new Chunk<>(-1, 0, List.of());
+		}
+
+		boolean isEnd() {
+			return seq < 0;
+		}
+	}
+
+	/**
+	 * Agrupa las filas del cursor en chunks y numera las filas (1..n) en orden de lectura.
+	 */
+	private final class ChunkReader implements Consumer<RowData> {
+		private final BlockingQueue<Chunk<RowData>> queue;
+		private List<RowData> buffer = new ArrayList<>(chunkSize);
+		private long nextSeq;
+		private int rowsRead;
+
+		private ChunkReader(BlockingQueue<Chunk<RowData>> queue) {
+			this.queue = queue;
+		}
+
+		@Override
+		public void accept(RowData row) {
+			buffer.add(row);
+			rowsRead++;
+			if (buffer.size() >= chunkSize) {
+				flush();
+			}
+		}
+
+		private void flush() {
+			if (buffer.isEmpty()) {
+				return;
+			}
+			Chunk<RowData> chunk = new Chunk<>(nextSeq++, rowsRead - buffer.size() + 1, buffer);
+			buffer = new ArrayList<>(chunkSize);
+			try {
+				queue.put(chunk);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Lectura interrumpida", ex);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface Recorder<T, R> {
+		void record(long seq, List<T> rows, R result);
+	}
+
+	/**
+	 * Reordena los resultados por número de chunk: retiene los que llegan adelantados y los libera en
+	 * secuencia. La ventana pendiente está acotada por la capacidad de las colas y la cantidad de loaders.
+	 */
+	private static final class OrderedRecorder<T, R> implements Recorder<T, R> {
+		private final Stages<T, R> stages;
+		private final Map<Long, Pending<T, R>> waiting = new HashMap<>();
+		private long next;
+
+		private OrderedRecorder(Stages<T, R> stages) {
+			this.stages = stages;
+		}
+
+		@Override
+		public synchronized void record(long seq, List<T> rows, R result) {
+			waiting.put(seq, new Pending<>(rows, result));
+			for (Pending<T, R> p = waiting.remove(next); p != null; p = waiting.remove(next)) {
+				stages.record(p.rows(), p.result());
+				next++;
+			}
+		}
+
+		private record Pending<T, R>(List<T> rows, R result) {
+		}
+	}
+}
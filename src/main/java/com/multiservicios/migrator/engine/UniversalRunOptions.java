@@ -0,0 +1,134 @@
+package com.multiservicios.migrator.engine;
+
+import java.util.List;
+
+import com.multiservicios.migrator.config.MigratorProperties;
+import com.multiservicios.migrator.config.MigratorProperties.DuplicatePolicy;
+import com.multiservicios.migrator.config.MigratorProperties.LoadMode;
+
+/**
+ * Opciones por corrida del modo universal. Lo que no se indique toma el default de {@code migrator.load.*}
+ * {@code migrator.pipeline.*} y {@code migrator.policies.duplicatePolicy}. Sin {@code conflictColumns}, el upsert
+ * usa la PK o una restricción única del destino.
+ *
+ * Con {@code checkpoint} la corrida guarda cuántas filas del origen ya confirmó; con {@code resume} arranca
+ * después del último checkpoint. Con {@code resumeKey} (una columna del SQL, única y no nula) el origen se lee
+ * ordenado por esa columna y al reanudar se filtra con {@code clave > última} (una fila con la clave NULL corta
+ * la corrida); sin ella se saltean las filas ya confirmadas, y eso solo se acepta con {@code orderedSource}: quien lanza la corrida confirma que el SQL tiene
+ * un ORDER BY que devuelve siempre el mismo orden (si no, se perderían o duplicarían filas). El checkpoint solo avanza por tramos
+ * contiguos: lo que otros loaders confirmaron más adelante se vuelve a enviar al reanudar, así que conviene
+ * reanudar con {@code duplicatePolicy} SKIP o UPDATE.
+ */
+public class UniversalRunOptions {
+	private LoadMode loadMode;
+	private boolean pipelined;
+	private int transformWorkers = 1;
+	private int loadWorkers = 1;
+	private boolean orderedLogs = true;
+	private DuplicatePolicy duplicatePolicy;
+	private List<String> conflictColumns = List.of();
+	private boolean checkpoint;
+	private boolean resume;
+	private String resumeKey;
+	private boolean orderedSource;
+
+	public static UniversalRunOptions defaults(MigratorProperties properties) {
+		UniversalRunOptions options = new UniversalRunOptions();
+		options.setLoadMode(properties.getLoad().getMode());
+		options.setPipelined(properties.getPipeline().isEnabled());
+		options.setTransformWorkers(properties.getPipeline().getTransformWorkers());
+		options.setLoadWorkers(properties.getPipeline().getLoadWorkers());
+		options.setOrderedLogs(properties.getPipeline().isOrderedLogs());
+		options.setDuplicatePolicy(properties.getPolicies().getDuplicatePolicy());
+		options.setCheckpoint(properties.getCheckpoint().isEnabled());
+		return options;
+	}
+
+	public LoadMode getLoadMode() {
+		return loadMode;
+	}
+
+	public void setLoadMode(LoadMode loadMode) {
+		this.loadMode = loadMode;
+	}
+
+	public boolean isPipelined() {
+		return pipelined;
+	}
+
+	public void setPipelined(boolean pipelined) {
+		this.pipelined = pipelined;
+	}
+
+	public int getTransformWorkers() {
+		return transformWorkers;
+	}
+
+	public void setTransformWorkers(int transformWorkers) {
+		this.transformWorkers = transformWorkers;
+	}
+
+	public int getLoadWorkers() {
+		return loadWorkers;
+	}
+
+	public void setLoadWorkers(int loadWorkers) {
+		this.loadWorkers = loadWorkers;
+	}
+
+	public boolean isOrderedLogs() {
+		return orderedLogs;
+	}
+
+	public void setOrderedLogs(boolean orderedLogs) {
+		this.orderedLogs = orderedLogs;
+	}
+
+	public DuplicatePolicy getDuplicatePolicy() {
+		return duplicatePolicy;
+	}
+
+	public void setDuplicatePolicy(DuplicatePolicy duplicatePolicy) {
+		this.duplicatePolicy = duplicatePolicy;
+	}
+
+	public List<String> getConflictColumns() {
+		return conflictColumns;
+	}
+
+	public void setConflictColumns(List<String> conflictColumns) {
+		this.conflictColumns = conflictColumns == null ? List.of() : conflictColumns;
+	}
+
+	public boolean isCheckpoint() {
+		return checkpoint;
+	}
+
+	public void setCheckpoint(boolean checkpoint) {
+		this.checkpoint = checkpoint;
+	}
+
+	public boolean isResume() {
+		return resume;
+	}
+
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+
+	public String getResumeKey() {
+		return resumeKey;
+	}
+
+	public void setResumeKey(String resumeKey) {
+		this.resumeKey = resumeKey == null || resumeKey.isBlank() ? null : resumeKey.trim();
+	}
+
+	public boolean isOrderedSource() {
+		return orderedSource;
+	}
+
+	public void setOrderedSource(boolean orderedSource) {
+		this.orderedSource = orderedSource;
+	}
+}
@@ -1,19 +1,149 @@
 package com.multiservicios.migrator.extract;
 
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.sql.DataSource;
 
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.stereotype.Component;
 
+import com.multiservicios.migrator.config.DataSourceRegistry;
+import com.multiservicios.migrator.config.MigratorProperties;
 import com.multiservicios.migrator.model.RowData;
+import com.multiservicios.migrator.model.RowSchema;
 
 @Component
 public class SqlExtractor {
+	private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\"\\s*:\\s*(\\d+)");
+
+	private final MigratorProperties properties;
+	private final DataSourceRegistry dataSourceRegistry;
+
+	public SqlExtractor(MigratorProperties properties, DataSourceRegistry dataSourceRegistry) {
+		this.properties = properties;
+		this.dataSourceRegistry = dataSourceRegistry;
+	}
+
 	public List<RowData> extract(DataSource dataSource, String sql) {
+		List<RowData> rows = new ArrayList<>();
+		stream(dataSource, sql, rows::add);
+		return rows;
+	}
+
+	/**
+	 * Extracción en streaming: recorre el resultado con un cursor forward-only y entrega cada fila al
+	 * consumer a medida que llega, sin materializar la tabla completa en memoria.
+	 *
+	 * El fetch size es el del perfil del origen si lo define, si no {@code migrator.extract.fetchSize}.
+	 *
+	 * @return cantidad de filas leídas
+	 */
+	public long stream(DataSource dataSource, String sql, Consumer<RowData> consumer) {
+		Integer profileFetchSize = dataSourceRegistry.fetchSizeFor(dataSource);
+		int fetchSize = profileFetchSize != null && profileFetchSize > 0 ? profileFetchSize : properties.getExtract().getFetchSize();
+		return stream(dataSource, sql, fetchSize, consumer);
+	}
+
+	public long stream(DataSource dataSource, String sql, int fetchSize, Consumer<RowData> consumer) {
 		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-		List<java.util.Map<String, Object>> rows = jdbcTemplate.queryForList(sql);
-		return rows.stream().map(RowData::new).toList();
+		Long count = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+			boolean oldAutoCommit = connection.getAutoCommit();
+			// PostgreSQL ignora fetchSize (y trae todo el resultado) si autocommit=true.
+			if (oldAutoCommit) {
+				connection.setAutoCommit(false);
+			}
+			try (Statement st = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+				st.setFetchSize(Math.max(1, fetchSize));
+				try (ResultSet rs = st.executeQuery(sql)) {
+					ColumnLayout layout = ColumnLayout.of(rs.getMetaData());
+					int[] sourceColumns = layout.sourceColumns();
+					long n = 0;
+					while (rs.next()) {
+						Object[] values = new Object[sourceColumns.length];
+						for (int i = 0; i < sourceColumns.length; i++) {
+							values[i] = JdbcUtils.getResultSetValue(rs, sourceColumns[i]);
+						}
+						consumer.accept(new RowData(layout.schema(), values));
+						n++;
+					}
+					return n;
+				}
+			} finally {
+				if (oldAutoCommit) {
+					try {
+						// lectura pura: cerramos la transacción del cursor sin efectos
+						connection.rollback();
+						connection.setAutoCommit(true);
+					} catch (Exception ignored) {
+					}
+				}
+			}
+		});
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * Filas que devolvería el SQL según el planificador (EXPLAIN, sin ejecutarlo), para estimar el avance de una
+	 * corrida larga. Solo PostgreSQL; en otros motores o si el EXPLAIN falla devuelve null.
+	 */
+	public Long estimateRows(DataSource dataSource, String sql) {
+		try {
+			return new JdbcTemplate(dataSource).execute((ConnectionCallback<Long>) connection -> {
+				if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+					return null;
+				}
+				try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery("explain (format json) " + sql)) {
+					if (!rs.next()) {
+						return null;
+					}
+					// el primer "Plan Rows" es el del nodo raíz (los hijos vienen después, en "Plans")
+					Matcher m = PLAN_ROWS.matcher(rs.getString(1));
+					return m.find() ? Long.valueOf(m.group(1)) : null;
+				}
+			});
+		} catch (Exception ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Schema compartido del resultado. Si el SELECT repite un nombre de columna se conserva una sola
+	 * (en la posición de la primera aparición, con el valor de la última), como pasaba al armar un Map por fila.
+	 */
+	private record ColumnLayout(RowSchema schema, int[] sourceColumns) {
+		static ColumnLayout of(ResultSetMetaData md) throws SQLException {
+			int columnCount = md.getColumnCount();
+			Map<String, Integer> positionByName = new LinkedHashMap<>(Math.max(4, columnCount * 2));
+			List<Integer> source = new ArrayList<>(columnCount);
+			List<Integer> types = new ArrayList<>(columnCount);
+			for (int c = 1; c <= columnCount; c++) {
+				String name = JdbcUtils.lookupColumnName(md, c);
+				Integer pos = positionByName.get(name);
+				if (pos == null) {
+					positionByName.put(name, source.size());
+					source.add(c);
+					types.add(md.getColumnType(c));
+				} else {
+					source.set(pos, c);
+					types.set(pos, md.getColumnType(c));
+				}
+			}
+			String[] names = positionByName.keySet().toArray(String[]::new);
+			int[] jdbcTypes = types.stream().mapToInt(Integer::intValue).toArray();
+			int[] sourceColumns = source.stream().mapToInt(Integer::intValue).toArray();
+			return new ColumnLayout(new RowSchema(names, jdbcTypes), sourceColumns);
+		}
 	}
 }
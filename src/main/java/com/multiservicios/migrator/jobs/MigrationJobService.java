@@ -0,0 +1,277 @@
+package com.multiservicios.migrator.jobs;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.multiservicios.migrator.config.MigratorProperties;
+import com.multiservicios.migrator.engine.RunProgress;
+import com.multiservicios.migrator.jobs.MigrationJobStatus.State;
+import com.multiservicios.migrator.logs.MigrationLogService;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Corridas en segundo plano: {@link #submit} registra el job y vuelve enseguida con su id; la corrida se ejecuta
+ * en un hilo virtual, como mucho {@code migrator.jobs.maxConcurrent} a la vez (el resto espera en cola). Cada
+ * job escribe en su propio log de corrida, registrado con el id del job.
+ *
+ * Cancelar un job en cola lo descarta; uno en curso se corta en la próxima fila que lea del origen (no se
+ * interrumpe el hilo, así las conexiones quedan sanas y lo ya cargado se confirma al cerrar).
+ */
+@Service
+public class MigrationJobService {
+	private static final Logger log = LoggerFactory.getLogger(MigrationJobService.class);
+
+	private final MigratorProperties properties;
+	private final MigrationLogService logService;
+	private final ExecutorService executor = Executors
+			.newThreadPerTaskExecutor(Thread.ofVirtual().name("migration-job-", 1).factory());
+	private final Semaphore slots;
+	private final ConcurrentHashMap<UUID, Job> jobs = new ConcurrentHashMap<>();
+
+	public MigrationJobService(MigratorProperties properties, MigrationLogService logService) {
+		this.properties = properties;
+		this.logService = logService;
+		this.slots = new Semaphore(Math.max(1, properties.getJobs().getMaxConcurrent()), true);
+	}
+
+	/**
+	 * Trabajo de un job: la corrida, con el progreso que tiene que ir actualizando.
+	 */
+	@FunctionalInterface
+	public interface Work<R> {
+		R run(RunProgress progress) throws Exception;
+	}
+
+	/**
+	 * Encola la corrida. {@code release} se ejecuta siempre al terminar el job, haya corrido o no (para devolver
+	 * los DataSources tomados por el request).
+	 */
+	public MigrationJobStatus submit(String kind, Work<?> work, Runnable release) {
+		UUID id = UUID.randomUUID();
+		Job job = new Job(id, kind, RunProgress.tracked(logService.start(id)));
+		jobs.put(job.id, job);
+		try {
+			executor.submit(() -> execute(job, work, release));
+		} catch (RuntimeException ex) {
+			jobs.remove(job.id);
+			logService.discard(job.id);
+			release.run();
+			throw new IllegalStateException("No se pudo encolar la corrida: " + ex.getMessage(), ex);
+		}
+		return toStatus(job);
+	}
+
+	public Optional<MigrationJobStatus> status(UUID id) {
+		Job job = jobs.get(id);
+		return job == null ? Optional.empty() : Optional.of(toStatus(job));
+	}
+
+	public MigrationJobStatus getRequired(UUID id) {
+		return status(id).orElseThrow(() -> new IllegalArgumentException("Job no encontrado: " + id));
+	}
+
+	public List<MigrationJobStatus> list() {
+		return jobs.values().stream()
+				.sorted(Comparator.comparing((Job j) -> j.submittedAt).reversed())
+				.map(this::toStatus)
+				.toList();
+	}
+
+	/**
+	 * Pide cancelar el job. Devuelve el estado tal como queda (un job terminado no cambia).
+	 */
+	public MigrationJobStatus cancel(UUID id) {
+		Job job = jobs.get(id);
+		if (job == null) {
+			throw new IllegalArgumentException("Job no encontrado: " + id);
+		}
+		if (!job.state.isFinished()) {
+			job.progress.cancel();
+			// todavía esperando turno: se lo saca de la espera (el job termina igual por execute, que libera todo)
+			job.interruptIfWaiting();
+		}
+		return toStatus(job);
+	}
+
+	/**
+	 * Descarta el log de un job terminado (el job sigue listado). Devuelve false, sin tocar nada, si el job sigue en
+	 * cola o en curso.
+	 */
+	public boolean discardLog(UUID id) {
+		Job job = jobs.get(id);
+		if (job != null && !job.state.isFinished()) {
+			return false;
+		}
+		logService.discard(id);
+		return true;
+	}
+
+	private void execute(Job job, Work<?> work, Runnable release) {
+		try {
+			if (!job.awaitTurn(slots)) {
+				job.finish(State.CANCELLED, null, "Cancelado antes de empezar");
+				return;
+			}
+			try {
+				if (job.progress.isCancelRequested()) {
+					job.finish(State.CANCELLED, null, "Cancelado antes de empezar");
+					return;
+				}
+				job.start();
+				Object result = work.run(job.progress);
+				job.finish(State.SUCCEEDED, result, null);
+			} catch (Exception | Error ex) {
+				if (job.progress.isCancelRequested()) {
+					job.finish(State.CANCELLED, null, "Corrida cancelada");
+				} else {
+					log.warn("Job {} ({}) falló", job.id, job.kind, ex);
+					job.finish(State.FAILED, null, rootCauseMessage(ex));
+				}
+			} finally {
+				slots.release();
+			}
+		} finally {
+			release.run();
+		}
+	}
+
+	private MigrationJobStatus toStatus(Job job) {
+		RunProgress p = job.progress;
+		State state = job.state;
+		Instant startedAt = job.startedAt;
+		Instant finishedAt = job.finishedAt;
+		long loaded = p.getLoaded();
+		long failed = p.getFailed();
+		long processed = loaded + failed;
+		Long expected = p.getExpectedRows();
+
+		double rowsPerSecond = 0;
+		Long eta = null;
+		if (startedAt != null) {
+			Instant end = finishedAt != null ? finishedAt : Instant.now();
+			double seconds = Duration.between(startedAt, end).toMillis() / 1000.0;
+			if (seconds > 0) {
+				rowsPerSecond = processed / seconds;
+			}
+			if (state == State.RUNNING && expected != null && rowsPerSecond > 0) {
+				eta = (long) Math.ceil(Math.max(0, expected - processed) / rowsPerSecond);
+			}
+		}
+		return new MigrationJobStatus(job.id, job.kind, state, job.submittedAt, startedAt, finishedAt, p.getRead(),
+				p.getMapped(), loaded, failed, expected, rowsPerSecond, eta, job.result, job.error);
+	}
+
+	@Scheduled(fixedDelayString = "${migrator.jobs.cleanupIntervalSeconds:60}000")
+	public void cleanupFinishedJobs() {
+		int retainMin = Math.max(1, properties.getJobs().getRetainMinutes());
+		Instant cutoff = Instant.now().minus(Duration.ofMinutes(retainMin));
+		jobs.values().removeIf(j -> {
+			if (j.finishedAt == null || !j.finishedAt.isBefore(cutoff)) {
+				return false;
+			}
+			logService.discard(j.id);
+			return true;
+		});
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		jobs.values().forEach(j -> j.progress.cancel());
+		executor.shutdownNow();
+		try {
+			if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+				log.warn("Quedaron jobs de migración corriendo al cerrar");
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static String rootCauseMessage(Throwable t) {
+		Throwable cur = t;
+		int guard = 0;
+		while (cur.getCause() != null && cur.getCause() != cur && guard++ < 10) {
+			cur = cur.getCause();
+		}
+		String msg = cur.getMessage();
+		return msg == null || msg.isBlank() ? cur.getClass().getSimpleName() : cur.getClass().getSimpleName() + ": " + msg;
+	}
+
+	private static final class Job {
+		private final UUID id;
+		private final String kind;
+		private final Instant submittedAt = Instant.now();
+		private final RunProgress progress;
+		private volatile State state = State.QUEUED;
+		private volatile Instant startedAt;
+		private volatile Instant finishedAt;
+		private volatile Object result;
+		private volatile String error;
+		private Thread waiting;
+
+		private Job(UUID id, String kind, RunProgress progress) {
+			this.id = id;
+			this.kind = kind;
+			this.progress = progress;
+		}
+
+		/**
+		 * Espera un turno. Mientras espera, {@link #cancel} lo interrumpe; una vez que lo tiene ya no. Devuelve
+		 * false si se canceló antes de conseguirlo.
+		 */
+		private boolean awaitTurn(Semaphore slots) {
+			synchronized (this) {
+				waiting = Thread.currentThread();
+			}
+			try {
+				if (progress.isCancelRequested()) {
+					return false;
+				}
+				slots.acquire();
+				return true;
+			} catch (InterruptedException ex) {
+				return false;
+			} finally {
+				synchronized (this) {
+					waiting = null;
+					// una interrupción que llegó justo al conseguir el turno no sigue a la corrida
+					Thread.interrupted();
+				}
+			}
+		}
+
+		private synchronized void interruptIfWaiting() {
+			if (waiting != null) {
+				waiting.interrupt();
+			}
+		}
+
+		private void start() {
+			startedAt = Instant.now();
+			state = State.RUNNING;
+		}
+
+		private void finish(State finalState, Object finalResult, String finalError) {
+			result = finalResult;
+			error = finalError;
+			finishedAt = Instant.now();
+			state = finalState;
+			progress.getLog().markFinished();
+		}
+	}
+}
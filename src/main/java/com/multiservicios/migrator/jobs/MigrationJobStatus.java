@@ -0,0 +1,39 @@
+package com.multiservicios.migrator.jobs;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Foto de un job: estado, contadores de la corrida, velocidad (filas procesadas por segundo) y ETA. El ETA solo
+ * se informa si se conoce el total estimado del origen y el job está corriendo. {@code result} es el resultado
+ * del runner cuando el job terminó bien.
+ */
+public record MigrationJobStatus(
+		UUID id,
+		String kind,
+		State state,
+		Instant submittedAt,
+		Instant startedAt,
+		Instant finishedAt,
+		long read,
+		long mapped,
+		long loaded,
+		long failed,
+		Long expectedRows,
+		double rowsPerSecond,
+		Long etaSeconds,
+		Object result,
+		String error) {
+
+	public enum State {
+		QUEUED,
+		RUNNING,
+		SUCCEEDED,
+		FAILED,
+		CANCELLED;
+
+		public boolean isFinished() {
+			return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.multiservicios.migrator.load;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids de catálogos (marcas, categorias, unidades_medida, depositos) ya confirmados en un destino, para no repetir
+ * el {@code select 1 ... where id = ?} por cada producto. Compartido por toda la app durante
+ * {@code migrator.defaults.catalogCacheTtlSeconds}; con 0 solo vale dentro de cada {@link Scope}.
+ *
+ * Un id auto-creado no se publica hasta que su transacción confirma: si se revierte, el registro no existe.
+ */
+final class CatalogIdCache {
+	private final long ttlNanos;
+	private final Map<String, Long> expiresAt = new ConcurrentHashMap<>();
+
+	CatalogIdCache(long ttlSeconds) {
+		this.ttlNanos = Math.max(0, ttlSeconds) * 1_000_000_000L;
+	}
+
+	boolean contains(String table, long id) {
+		if (ttlNanos == 0) {
+			return false;
+		}
+		String key = key(table, id);
+		Long until = expiresAt.get(key);
+		if (until == null) {
+			return false;
+		}
+		if (until - System.nanoTime() < 0) {
+			expiresAt.remove(key, until);
+			return false;
+		}
+		return true;
+	}
+
+	void add(String table, long id) {
+		if (ttlNanos > 0) {
+			expiresAt.put(key(table, id), System.nanoTime() + ttlNanos);
+		}
+	}
+
+	Scope openScope() {
+		return new Scope();
+	}
+
+	private static String key(String table, long id) {
+		return table + ":" + id;
+	}
+
+	/**
+	 * Vista de una carga (una conexión): recuerda lo confirmado y lo creado en la transacción en curso.
+	 */
+	final class Scope {
+		private final Set<String> known = new HashSet<>();
+		private final Set<String> created = new HashSet<>();
+
+		boolean isKnown(String table, long id) {
+			return known.contains(key(table, id)) || contains(table, id);
+		}
+
+		/**
+		 * El id existe en destino (lo vio un SELECT).
+		 */
+		void confirmed(String table, long id) {
+			String key = key(table, id);
+			if (!created.contains(key)) {
+				known.add(key);
+				add(table, id);
+			}
+		}
+
+		/**
+		 * El id se insertó en la transacción en curso: vale para esta carga, y para el resto de la app tras el commit.
+		 */
+		void created(String table, long id) {
+			String key = key(table, id);
+			known.add(key);
+			created.add(key);
+		}
+
+		void committed() {
+			for (String key : created) {
+				int sep = key.lastIndexOf(':');
+				add(key.substring(0, sep), Long.parseLong(key.substring(sep + 1)));
+			}
+			created.clear();
+		}
+
+		/**
+		 * Tras un rollback (total o a un savepoint) lo creado en la transacción puede no existir: se vuelve a verificar.
+		 */
+		void rolledBack() {
+			known.removeAll(created);
+			created.clear();
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package com.multiservicios.migrator.load;
+
+/**
+ * Conversión de un valor del origen al tipo de una columna destino, ya resuelta para esa columna (ver
+ * {@link UniversalTypeAdapter#compile}). Se compila una vez por {@code ColumnMeta} y se aplica a cada fila.
+ */
+@FunctionalInterface
+public interface ColumnConverter {
+	ColumnConverter IDENTITY = raw -> raw;
+
+	/**
+	 * null entra y sale como null. Lanza {@link IllegalArgumentException} si el valor no es convertible.
+	 */
+	Object convert(Object raw);
+}
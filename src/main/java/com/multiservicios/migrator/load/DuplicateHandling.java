@@ -0,0 +1,76 @@
+package com.multiservicios.migrator.load;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.multiservicios.migrator.config.MigratorProperties.DuplicatePolicy;
+
+/**
+ * Qué hacer cuando una fila choca con una clave única del destino, para una corrida:
+ * <ul>
+ * <li>SKIP: {@code on conflict do nothing} (la fila cuenta como OK "SKIP duplicado").</li>
+ * <li>UPDATE: upsert {@code on conflict (clave) do update set ...} sobre las columnas no clave de la fila.</li>
+ * <li>ERROR: INSERT plano; el duplicado es un error de la fila.</li>
+ * </ul>
+ * La clave de conflicto puede venir explícita; si no, al abrir la sesión se toma la PK o la primera restricción
+ * única del destino (ver {@link UniversalTableLoader#openSession}).
+ */
+public record DuplicateHandling(DuplicatePolicy policy, List<String> conflictColumns) {
+	public DuplicateHandling {
+		policy = policy == null ? DuplicatePolicy.SKIP : policy;
+		conflictColumns = conflictColumns == null ? List.of()
+				: conflictColumns.stream().filter(c -> c != null && !c.isBlank()).map(String::trim).toList();
+	}
+
+	public static DuplicateHandling of(DuplicatePolicy policy) {
+		return new DuplicateHandling(policy, List.of());
+	}
+
+	public boolean skipsDuplicates() {
+		return policy == DuplicatePolicy.SKIP;
+	}
+
+	public boolean upserts() {
+		return policy == DuplicatePolicy.UPDATE;
+	}
+
+	DuplicateHandling withConflictColumns(List<String> columns) {
+		return new DuplicateHandling(policy, columns);
+	}
+
+	/**
+	 * Cláusula ON CONFLICT para un INSERT con {@code insertColumns} (vale tanto para {@code values (...)} como para
+	 * {@code select ... from staging}). Vacía fuera de PostgreSQL o con ERROR.
+	 */
+	String onConflictClause(List<String> insertColumns, boolean postgres) {
+		if (!postgres || policy == DuplicatePolicy.ERROR) {
+			return "";
+		}
+		if (policy == DuplicatePolicy.SKIP || conflictColumns.isEmpty()) {
+			return " on conflict do nothing";
+		}
+		Set<String> keys = conflictColumns.stream().map(c -> c.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+		StringBuilder sb = new StringBuilder(" on conflict (");
+		for (int i = 0; i < conflictColumns.size(); i++) {
+			if (i > 0) sb.append(", ");
+			sb.append(UniversalTableLoader.quoteIdent(conflictColumns.get(i)));
+		}
+		sb.append(')');
+		int updates = 0;
+		for (String col : insertColumns) {
+			if (keys.contains(col.toLowerCase(Locale.ROOT))) {
+				continue;
+			}
+			sb.append(updates++ == 0 ? " do update set " : ", ");
+			String q = UniversalTableLoader.quoteIdent(col);
+			sb.append(q).append(" = excluded.").append(q);
+		}
+		if (updates == 0) {
+			// la fila solo trae columnas de la clave: no hay nada que actualizar
+			sb.append(" do nothing");
+		}
+		return sb.toString();
+	}
+}
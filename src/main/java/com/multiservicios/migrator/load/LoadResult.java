@@ -1,14 +1,24 @@
 package com.multiservicios.migrator.load;
 
+import java.util.List;
+
 public class LoadResult {
 	private final boolean success;
 	private final String message;
 	private final Long createdId;
+	private final Boolean created;
+	private final List<String> warnings;
 
 	public LoadResult(boolean success, String message, Long createdId) {
+		this(success, message, createdId, null, List.of());
+	}
+
+	public LoadResult(boolean success, String message, Long createdId, Boolean created, List<String> warnings) {
 		this.success = success;
 		this.message = message;
 		this.createdId = createdId;
+		this.created = created;
+		this.warnings = warnings == null ? List.of() : List.copyOf(warnings);
 	}
 
 	public static LoadResult ok(String message) {
@@ -19,6 +29,10 @@ public class LoadResult {
 		return new LoadResult(true, message, createdId);
 	}
 
+	public static LoadResult ok(String message, Long createdId, boolean created, List<String> warnings) {
+		return new LoadResult(true, message, createdId, created, warnings);
+	}
+
 	public static LoadResult fail(String message) {
 		return new LoadResult(false, message, null);
 	}
@@ -34,4 +48,15 @@ public class LoadResult {
 	public Long getCreatedId() {
 		return createdId;
 	}
+
+	/**
+	 * true si el producto se insertó, false si ya existía en destino; null si no aplica.
+	 */
+	public Boolean getCreated() {
+		return created;
+	}
+
+	public List<String> getWarnings() {
+		return warnings;
+	}
 }
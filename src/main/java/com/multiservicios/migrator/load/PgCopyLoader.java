@@ -0,0 +1,257 @@
+package com.multiservicios.migrator.load;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.multiservicios.migrator.load.UniversalTableLoader.LoadResult;
+import com.multiservicios.migrator.load.UniversalTableLoader.PreparedRow;
+import com.multiservicios.migrator.model.ColumnMeta;
+
+/**
+ * Carga masiva para PostgreSQL vía COPY FROM STDIN (formato CSV).
+ *
+ * Los valores ya convertidos por {@link UniversalTypeAdapter} se escriben fila a fila directo al stream del
+ * driver (CopyManager), sin armar el lote completo en memoria. Si un chunk falla (tipo inválido, FK,
+ * duplicado, etc.) el COPY se descarta entero y el chunk se re-ejecuta con INSERTs para reportar cada fila.
+ * Con DuplicatePolicy UPDATE los chunks van directo al upsert por lotes de la sesión.
+ */
+@Component
+public class PgCopyLoader {
+	private static final Logger log = LoggerFactory.getLogger(PgCopyLoader.class);
+	private static final int COPY_BUFFER_BYTES = 64 * 1024;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final UniversalTableLoader tableLoader;
+
+	public PgCopyLoader(UniversalTableLoader tableLoader) {
+		this.tableLoader = tableLoader;
+	}
+
+	/**
+	 * COPY sobre la conexión de una sesión de carga. Cada grupo de columnas se confirma al terminar; si falla
+	 * se revierte y se re-ejecuta con INSERTs de la misma sesión.
+	 */
+	public List<LoadResult> copyRows(UniversalLoadSession session, List<Map<String, Object>> rows, boolean dryRun) {
+		int size = rows == null ? 0 : rows.size();
+		if (size == 0) {
+			return List.of();
+		}
+		Map<String, ColumnMeta> columnMetaByLower = session.columnMetaByLower();
+
+		LoadResult[] results = new LoadResult[size];
+		// COPY necesita una lista de columnas fija: agrupamos por firma (normalmente hay una sola).
+		Map<List<String>, List<Integer>> groups = new LinkedHashMap<>();
+		List<PreparedRow> prepared = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			PreparedRow row = session.prepareRow(rows.get(i));
+			prepared.add(row);
+			if (row.error() != null) {
+				results[i] = row.error();
+				continue;
+			}
+			groups.computeIfAbsent(row.columns(), k -> new ArrayList<>()).add(i);
+		}
+
+		for (var group : groups.entrySet()) {
+			List<String> columns = group.getKey();
+			List<Integer> indexes = group.getValue();
+			String sql = buildCopySql(session.schema(), session.table(), columns);
+			if (dryRun) {
+				for (int idx : indexes) {
+					results[idx] = new LoadResult(true, "DRY RUN: " + sql);
+				}
+				continue;
+			}
+			// COPY no tiene ON CONFLICT: con upsert cada chunk con filas existentes fallaría y se repetiría entero.
+			if (!session.isPostgres() || session.duplicates().upserts()) {
+				replayWithInserts(session, rows, indexes, results);
+				continue;
+			}
+			try {
+				session.commit();
+				long copied = copyGroup(session.connection(), sql, columns, columnMetaByLower, prepared, indexes, false);
+				session.connection().commit();
+				LoadResult ok = new LoadResult(true,
+						"COPY OK en " + session.schema() + "." + session.table() + " (" + copied + " filas en el chunk)");
+				for (int idx : indexes) {
+					results[idx] = ok;
+				}
+			} catch (Exception ex) {
+				log.warn("COPY falló en {}.{} ({} filas); se reintenta con INSERT fila a fila: {}", session.schema(),
+						session.table(), indexes.size(), ex.getMessage());
+				session.rollbackQuietly();
+				replayWithInserts(session, rows, indexes, results);
+			}
+		}
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Escribe las filas {@code indexes} en un COPY ya armado. Con {@code withRowIndex} cada fila lleva primero su
+	 * índice dentro del chunk (lo usa la tabla de staging de {@link PgMergeLoader}).
+	 */
+	long copyGroup(Connection connection, String sql, List<String> columns, Map<String, ColumnMeta> columnMetaByLower,
+			List<PreparedRow> prepared, List<Integer> indexes, boolean withRowIndex) throws Exception {
+		ValueEncoder[] encoders = new ValueEncoder[columns.size()];
+		for (int c = 0; c < encoders.length; c++) {
+			ColumnMeta meta = columnMetaByLower == null ? null : columnMetaByLower.get(columns.get(c).toLowerCase());
+			encoders[c] = encoderFor(meta);
+		}
+
+		PGConnection pg = connection.unwrap(PGConnection.class);
+		PGCopyOutputStream out = new PGCopyOutputStream(pg, sql, COPY_BUFFER_BYTES);
+		try {
+			Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), COPY_BUFFER_BYTES);
+			for (int idx : indexes) {
+				List<Object> params = prepared.get(idx).params();
+				if (withRowIndex) {
+					w.write(Integer.toString(idx));
+				}
+				for (int c = 0; c < encoders.length; c++) {
+					if (c > 0 || withRowIndex) {
+						w.write(',');
+					}
+					encoders[c].write(w, params.get(c));
+				}
+				w.write('\n');
+			}
+			w.flush();
+			return out.endCopy();
+		} catch (Exception ex) {
+			if (out.isActive()) {
+				try {
+					out.cancelCopy();
+				} catch (Exception ignored) {
+				}
+			}
+			throw ex;
+		}
+	}
+
+	void replayWithInserts(UniversalLoadSession session, List<Map<String, Object>> rows, List<Integer> indexes,
+			LoadResult[] results) {
+		List<Map<String, Object>> chunk = new ArrayList<>(indexes.size());
+		for (int idx : indexes) {
+			chunk.add(rows.get(idx));
+		}
+		List<LoadResult> replayed = session.insertBatch(chunk);
+		for (int k = 0; k < indexes.size(); k++) {
+			results[indexes.get(k)] = replayed.get(k);
+		}
+	}
+
+	private static String buildCopySql(String schema, String table, List<String> columns) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("copy ");
+		sb.append(quoteIdent(schema)).append('.').append(quoteIdent(table));
+		sb.append(" (");
+		for (int i = 0; i < columns.size(); i++) {
+			if (i > 0) sb.append(", ");
+			sb.append(quoteIdent(columns.get(i)));
+		}
+		sb.append(") from stdin with (format csv)");
+		return sb.toString();
+	}
+
+	private static String quoteIdent(String ident) {
+		return UniversalTableLoader.quoteIdent(ident);
+	}
+
+	/**
+	 * Codificador CSV por columna, elegido una vez según {@link ColumnMeta}. En CSV de COPY un campo vacío sin
+	 * comillas es NULL; por eso los textos van siempre entre comillas (así '' se distingue de NULL).
+	 */
+	@FunctionalInterface
+	interface ValueEncoder {
+		void write(Writer w, Object value) throws IOException;
+	}
+
+	static ValueEncoder encoderFor(ColumnMeta meta) {
+		if (meta == null) {
+			return PgCopyLoader::writeQuoted;
+		}
+		return switch (meta.dataType()) {
+			case Types.INTEGER, Types.SMALLINT, Types.TINYINT, Types.BIGINT, Types.NUMERIC, Types.DECIMAL,
+					Types.REAL, Types.FLOAT, Types.DOUBLE -> PgCopyLoader::writeNumber;
+			case Types.BIT, Types.BOOLEAN -> PgCopyLoader::writeBoolean;
+			case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY -> PgCopyLoader::writeBytea;
+			default -> PgCopyLoader::writeQuoted;
+		};
+	}
+
+	private static void writeNumber(Writer w, Object value) throws IOException {
+		if (value == null) {
+			return;
+		}
+		if (value instanceof BigDecimal bd) {
+			w.write(bd.toPlainString());
+			return;
+		}
+		if (value instanceof Number n) {
+			w.write(n.toString());
+			return;
+		}
+		writeQuoted(w, value);
+	}
+
+	private static void writeBoolean(Writer w, Object value) throws IOException {
+		if (value == null) {
+			return;
+		}
+		if (value instanceof Boolean b) {
+			w.write(b ? 't' : 'f');
+			return;
+		}
+		writeQuoted(w, value);
+	}
+
+	private static void writeBytea(Writer w, Object value) throws IOException {
+		if (value == null) {
+			return;
+		}
+		if (value instanceof byte[] bytes) {
+			w.write("\\x");
+			for (byte b : bytes) {
+				w.write(HEX[(b >> 4) & 0xF]);
+				w.write(HEX[b & 0xF]);
+			}
+			return;
+		}
+		writeQuoted(w, value);
+	}
+
+	static void writeQuoted(Writer w, Object value) throws IOException {
+		if (value == null) {
+			return;
+		}
+		String s = value instanceof String str ? str : String.valueOf(value);
+		w.write('"');
+		int from = 0;
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) == '"') {
+				w.write(s, from, i - from + 1);
+				w.write('"');
+				from = i + 1;
+			}
+		}
+		w.write(s, from, s.length() - from);
+		w.write('"');
+	}
+}
@@ -0,0 +1,243 @@
+package com.multiservicios.migrator.load;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.multiservicios.migrator.load.UniversalTableLoader.LoadResult;
+import com.multiservicios.migrator.load.UniversalTableLoader.PreparedRow;
+import com.multiservicios.migrator.model.ColumnMeta;
+
+/**
+ * Carga para upserts grandes en PostgreSQL: cada chunk entra por COPY a una tabla temporal de staging con la
+ * forma del destino y pasa a la tabla real con un único {@code insert ... select ... on conflict} según la
+ * política de duplicados de la sesión. Los índices del destino se recorren una vez por chunk y no por fila.
+ *
+ * La staging es TEMP ({@code on commit delete rows}): se vacía sola al confirmar cada chunk y se elimina al
+ * cerrar la sesión. Si el merge falla, el chunk se revierte y se re-ejecuta con INSERTs para reportar cada fila.
+ */
+@Component
+public class PgMergeLoader {
+	private static final Logger log = LoggerFactory.getLogger(PgMergeLoader.class);
+	/**
+	 * Columna de staging con la posición de cada fila en el chunk. Si el destino tiene una columna con ese
+	 * nombre se le agregan guiones bajos (ver {@link #rowColumn}).
+	 */
+	private static final String ROW_COLUMN = "__row";
+	/**
+	 * Numera las tablas de staging: cada forma de columnas de cada sesión tiene su propia tabla.
+	 */
+	private static final AtomicLong STAGING_SEQ = new AtomicLong();
+
+	private final UniversalTableLoader tableLoader;
+	private final PgCopyLoader copyLoader;
+
+	public PgMergeLoader(UniversalTableLoader tableLoader, PgCopyLoader copyLoader) {
+		this.tableLoader = tableLoader;
+		this.copyLoader = copyLoader;
+	}
+
+	/**
+	 * Conteo de un merge: insertadas, actualizadas y omitidas (duplicado sin cambios, o repetida dentro del
+	 * chunk y pisada por una fila posterior con la misma clave).
+	 */
+	public record MergeCounts(long inserted, long updated, long skipped) {
+	}
+
+	public List<LoadResult> mergeRows(UniversalLoadSession session, List<Map<String, Object>> rows, boolean dryRun) {
+		int size = rows == null ? 0 : rows.size();
+		if (size == 0) {
+			return List.of();
+		}
+		Map<String, ColumnMeta> columnMetaByLower = session.columnMetaByLower();
+
+		LoadResult[] results = new LoadResult[size];
+		Map<List<String>, List<Integer>> groups = new LinkedHashMap<>();
+		List<PreparedRow> prepared = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			PreparedRow row = session.prepareRow(rows.get(i));
+			prepared.add(row);
+			if (row.error() != null) {
+				results[i] = row.error();
+				continue;
+			}
+			groups.computeIfAbsent(row.columns(), k -> new ArrayList<>()).add(i);
+		}
+
+		for (var group : groups.entrySet()) {
+			List<String> columns = group.getKey();
+			List<Integer> indexes = group.getValue();
+			String staging = stagingName(session, columns);
+			String mergeSql = buildMergeSql(session.schema(), session.table(), session.duplicates(), staging, columns);
+			if (dryRun) {
+				for (int idx : indexes) {
+					results[idx] = new LoadResult(true, "DRY RUN: " + mergeSql);
+				}
+				continue;
+			}
+			if (!session.isPostgres()) {
+				copyLoader.replayWithInserts(session, rows, indexes, results);
+				continue;
+			}
+			try {
+				session.commit();
+				ensureStagingTable(session, staging, columns);
+				copyLoader.copyGroup(session.connection(), buildCopySql(staging, columns), columns, columnMetaByLower,
+						prepared, indexes, true);
+				MergeCounts counts = merge(session, mergeSql, indexes.size());
+				session.connection().commit();
+				LoadResult ok = new LoadResult(true, "MERGE OK en " + session.schema() + "." + session.table() + " (chunk de "
+						+ indexes.size() + ": " + counts.inserted() + " insertadas, " + counts.updated() + " actualizadas, "
+						+ counts.skipped() + " omitidas)");
+				for (int idx : indexes) {
+					results[idx] = ok;
+				}
+			} catch (Exception ex) {
+				log.warn("MERGE falló en {}.{} ({} filas); se reintenta con INSERT fila a fila: {}", session.schema(),
+						session.table(), indexes.size(), ex.getMessage());
+				session.rollbackQuietly();
+				copyLoader.replayWithInserts(session, rows, indexes, results);
+			}
+		}
+		return Arrays.asList(results);
+	}
+
+	private MergeCounts merge(UniversalLoadSession session, String mergeSql, int staged) throws SQLException {
+		try (Statement st = session.connection().createStatement(); ResultSet rs = st.executeQuery(mergeSql)) {
+			rs.next();
+			long inserted = rs.getLong(1);
+			long updated = rs.getLong(2);
+			return new MergeCounts(inserted, updated, staged - inserted - updated);
+		}
+	}
+
+	private void ensureStagingTable(UniversalLoadSession session, String staging, List<String> columns)
+			throws SQLException {
+		if (session.stagingTable(columns) != null) {
+			return;
+		}
+		// CREATE TABLE AS ... WITH NO DATA copia los tipos exactos del destino (precisión, dominios) sin sus
+		// restricciones: NOT NULL, CHECK y FK se validan recién en el merge.
+		StringBuilder sb = new StringBuilder("create temp table ").append(quoteIdent(staging))
+				.append(" on commit delete rows as select 0::int4 as ").append(quoteIdent(rowColumn(columns)));
+		for (String col : columns) {
+			sb.append(", ").append(quoteIdent(col));
+		}
+		sb.append(" from ").append(target(session)).append(" with no data");
+		try (Statement st = session.connection().createStatement()) {
+			st.execute(sb.toString());
+			// confirmada aparte: un rollback del chunk no debe llevarse la tabla
+			session.connection().commit();
+		}
+		session.registerStagingTable(columns, staging);
+	}
+
+	/**
+	 * {@code with m as (insert into destino (cols) select cols from staging ... on conflict ... returning
+	 * (xmax = 0)) select insertadas, actualizadas from m}. Con upsert por clave, las filas repetidas dentro del
+	 * chunk se reducen a la última (un ON CONFLICT DO UPDATE no puede tocar dos veces la misma fila). Las filas
+	 * con algún NULL en la clave no se reducen: nunca chocan entre sí ni con el destino.
+	 */
+	static String buildMergeSql(String schema, String table, DuplicateHandling duplicates, String staging,
+			List<String> columns) {
+		String cols = columns.stream().map(PgMergeLoader::quoteIdent).collect(Collectors.joining(", "));
+		String row = quoteIdent(rowColumn(columns));
+
+		StringBuilder sb = new StringBuilder("with m as (insert into ").append(quoteIdent(schema)).append('.')
+				.append(quoteIdent(table)).append(" (").append(cols)
+				.append(") select ").append(cols).append(" from ");
+		List<String> key = dedupeKey(duplicates, columns);
+		if (key.isEmpty()) {
+			sb.append(quoteIdent(staging));
+		} else {
+			String keyCols = key.stream().map(PgMergeLoader::quoteIdent).collect(Collectors.joining(", "));
+			String keyNotNull = key.stream().map(k -> quoteIdent(k) + " is not null").collect(Collectors.joining(" and "));
+			sb.append("(select * from (select distinct on (").append(keyCols).append(") * from ")
+					.append(quoteIdent(staging)).append(" where ").append(keyNotNull).append(" order by ").append(keyCols)
+					.append(", ").append(row).append(" desc) d union all select * from ").append(quoteIdent(staging))
+					.append(" where not (").append(keyNotNull).append(")) s");
+		}
+		sb.append(" order by ").append(row);
+		sb.append(duplicates.onConflictClause(columns, true));
+		sb.append(" returning (xmax = 0) as inserted)");
+		sb.append(" select count(*) filter (where inserted), count(*) filter (where not inserted) from m");
+		return sb.toString();
+	}
+
+	private static List<String> dedupeKey(DuplicateHandling duplicates, List<String> columns) {
+		if (!duplicates.upserts() || duplicates.conflictColumns().isEmpty()) {
+			return List.of();
+		}
+		Set<String> present = columns.stream().map(c -> c.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+		List<String> key = new ArrayList<>();
+		for (String k : duplicates.conflictColumns()) {
+			// la clave tiene que venir en la fila; si no, toma el default del destino y no hay nada que reducir
+			if (!present.contains(k.toLowerCase(Locale.ROOT))) {
+				return List.of();
+			}
+			for (String c : columns) {
+				if (c.equalsIgnoreCase(k)) {
+					key.add(c);
+				}
+			}
+		}
+		return key;
+	}
+
+	private static String stagingName(UniversalLoadSession session, List<String> columns) {
+		// la tabla de esas columnas se reutiliza en todos los chunks de la sesión; si no hay, un nombre nuevo
+		String existing = session.stagingTable(columns);
+		return existing != null ? existing : "mig_stg_" + STAGING_SEQ.incrementAndGet();
+	}
+
+	/**
+	 * Nombre de la columna de posición que no choca con ninguna columna cargada.
+	 */
+	static String rowColumn(List<String> columns) {
+		String name = ROW_COLUMN;
+		while (containsIgnoreCase(columns, name)) {
+			name = "_" + name;
+		}
+		return name;
+	}
+
+	private static boolean containsIgnoreCase(List<String> columns, String name) {
+		for (String c : columns) {
+			if (c.equalsIgnoreCase(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String buildCopySql(String staging, List<String> columns) {
+		StringBuilder sb = new StringBuilder("copy ").append(quoteIdent(staging)).append(" (")
+				.append(quoteIdent(rowColumn(columns)));
+		for (String col : columns) {
+			sb.append(", ").append(quoteIdent(col));
+		}
+		sb.append(") from stdin with (format csv)");
+		return sb.toString();
+	}
+
+	private static String target(UniversalLoadSession session) {
+		return quoteIdent(session.schema()) + "." + quoteIdent(session.table());
+	}
+
+	private static String quoteIdent(String ident) {
+		return UniversalTableLoader.quoteIdent(ident);
+	}
+}
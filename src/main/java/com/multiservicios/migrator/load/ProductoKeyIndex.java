@@ -0,0 +1,50 @@
+package com.multiservicios.migrator.load;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Claves únicas de los productos del destino ({@code codigo_barra → id} y {@code nombre → id}), precargadas al
+ * inicio de una corrida con {@link ProductoLoader#preloadKeyIndex}. Permite decidir insert vs. completar
+ * existente del lado del cliente, en lugar de provocar un 23505 y buscar el producto después.
+ *
+ * Se mantiene durante la corrida: el loader agrega cada producto que crea, una vez confirmada su transacción.
+ * Los duplicados no previstos (otro proceso insertando en paralelo) se siguen resolviendo por la vía del 23505.
+ */
+public final class ProductoKeyIndex {
+	private final Map<String, Long> byCodigoBarra;
+	private final Map<String, Long> byNombre;
+
+	ProductoKeyIndex(int expectedSize) {
+		int capacity = Math.max(16, (int) (expectedSize / 0.75f) + 1);
+		this.byCodigoBarra = new ConcurrentHashMap<>(capacity);
+		this.byNombre = new ConcurrentHashMap<>(capacity);
+	}
+
+	/**
+	 * Id del producto existente: primero por código de barras y si no por nombre (mismo orden que la búsqueda
+	 * tras un 23505). null si no está.
+	 */
+	public Long find(String codigoBarra, String nombre) {
+		if (codigoBarra != null) {
+			Long id = byCodigoBarra.get(codigoBarra);
+			if (id != null) {
+				return id;
+			}
+		}
+		return nombre == null ? null : byNombre.get(nombre);
+	}
+
+	public void put(long id, String codigoBarra, String nombre) {
+		if (codigoBarra != null && !codigoBarra.isBlank()) {
+			byCodigoBarra.putIfAbsent(codigoBarra.trim(), id);
+		}
+		if (nombre != null && !nombre.isBlank()) {
+			byNombre.putIfAbsent(nombre.trim(), id);
+		}
+	}
+
+	public int size() {
+		return Math.max(byCodigoBarra.size(), byNombre.size());
+	}
+}
@@ -6,6 +6,17 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 import javax.sql.DataSource;
 
@@ -20,13 +31,83 @@ import com.multiservicios.migrator.dto.TipoItem;
 @Component
 public class ProductoLoader {
 	private static final Logger log = LoggerFactory.getLogger(ProductoLoader.class);
+	private static final String UNMATCHED_CONFLICT =
+			"Error guardando producto en destino: conflicto de unicidad sin producto existente por codigo_barra/nombre";
+	/**
+	 * Cierre del INSERT en lote: devuelve cada id con el ordinal de su fila en el tramo. Como dentro del tramo no
+	 * se repiten claves, el par (codigo_barra, nombre) identifica una sola fila de {@code t}.
+	 */
+	private static final String ORDINAL_OF_INSERTED = "select ins.id, t.ord from ins join t "
+			+ "on t.codigo_barra is not distinct from ins.codigo_barra and t.nombre = ins.nombre";
 	private final MigratorProperties properties;
+	private final Map<DataSource, CatalogIdCache> catalogCaches = new WeakHashMap<>();
 
 	public ProductoLoader(MigratorProperties properties) {
 		this.properties = properties;
 	}
 
+	private CatalogIdCache.Scope catalogScope(DataSource destino) {
+		CatalogIdCache cache;
+		synchronized (catalogCaches) {
+			cache = catalogCaches.computeIfAbsent(destino,
+					ds -> new CatalogIdCache(properties.getDefaults().getCatalogCacheTtlSeconds()));
+		}
+		return cache.openScope();
+	}
+
+	/**
+	 * Precarga las claves únicas de {@code productos} para la corrida, si {@code migrator.productos.preloadKeyIndex}
+	 * está activo. Devuelve null si está desactivado o si la lectura falla (la corrida sigue sin índice).
+	 */
+	public ProductoKeyIndex preloadKeyIndex(DataSource destino) {
+		if (!properties.getProductos().isPreloadKeyIndex()) {
+			return null;
+		}
+		try (Connection connection = destino.getConnection()) {
+			boolean oldAutoCommit = connection.getAutoCommit();
+			// PostgreSQL solo usa cursor (fetchSize) fuera de autocommit
+			connection.setAutoCommit(false);
+			try {
+				int expected = 0;
+				try (PreparedStatement ps = connection.prepareStatement("select count(*) from productos");
+						ResultSet rs = ps.executeQuery()) {
+					if (rs.next()) {
+						expected = (int) Math.min(Integer.MAX_VALUE, rs.getLong(1));
+					}
+				}
+				ProductoKeyIndex index = new ProductoKeyIndex(expected);
+				try (PreparedStatement ps = connection.prepareStatement("select id, codigo_barra, nombre from productos order by id")) {
+					ps.setFetchSize(Math.max(1, properties.getExtract().getFetchSize()));
+					try (ResultSet rs = ps.executeQuery()) {
+						while (rs.next()) {
+							index.put(rs.getLong(1), rs.getString(2), rs.getString(3));
+						}
+					}
+				}
+				log.info("Índice de productos precargado: {} claves", index.size());
+				return index;
+			} finally {
+				try {
+					connection.rollback();
+					connection.setAutoCommit(oldAutoCommit);
+				} catch (Exception ignored) {
+				}
+			}
+		} catch (SQLException ex) {
+			log.warn("No se pudo precargar el índice de productos; se sigue sin índice: {}", ex.getMessage());
+			return null;
+		}
+	}
+
 	public LoadResult load(DataSource destino, ProductoMigrationDto dto, boolean dryRun) {
+		return load(destino, dto, dryRun, null);
+	}
+
+	/**
+	 * @param keyIndex índice de productos existentes precargado para la corrida (ver {@link #preloadKeyIndex});
+	 *                 null = se detectan los duplicados dejando fallar el INSERT, como siempre
+	 */
+	public LoadResult load(DataSource destino, ProductoMigrationDto dto, boolean dryRun, ProductoKeyIndex keyIndex) {
 		if (dto == null || dto.getProducto() == null) {
 			return LoadResult.fail("DTO producto vacío");
 		}
@@ -41,18 +122,9 @@ public class ProductoLoader {
 			return LoadResult.fail("producto.nombre es requerido");
 		}
 
-		BigDecimal stockMin = (esPaquete || esServicio) ? BigDecimal.ZERO : defaultZero(producto.getStockMin());
-		BigDecimal stockProducto = BigDecimal.ZERO; // regla: el inventario inicial va en tabla stocks
-		Boolean activo = includeAuditColumns ? (producto.getActivo() == null ? Boolean.TRUE : producto.getActivo()) : null;
-		Boolean serializable = producto.getSerializable() == null ? Boolean.FALSE : producto.getSerializable();
-		String codigoBarra = normalizeCodigoBarra(producto.getCodigoBarra());
-
-		Long marcaId = defaultFk(producto.getMarcaId(), properties.getDefaults().getMarcaGenericaId());
-		Long unidadMedidaId = defaultFk(producto.getUnidadMedidaId(), properties.getDefaults().getUnidadMedidaGenericaId());
-		Long categoriaId = defaultFk(producto.getCategoriaId(), properties.getDefaults().getCategoriaGenericaId());
-		BigDecimal ivaPercent = defaultZero(producto.getIvaPercent());
-		String createdBy = includeAuditColumns ? defaultUser(producto.getCreatedBy()) : null;
-		String updatedBy = includeAuditColumns ? defaultUser(producto.getUpdatedBy()) : null;
+		// regla: el inventario inicial va en tabla stocks (productos.stock arranca en 0)
+		ProductoAlta alta = resolveAlta(dto);
+		BigDecimal ivaPercent = alta.ivaPercent();
 
 		if (dryRun) {
 			String msg = "DRY-RUN insert producto: tipo=" + tipo.name() + " nombre=" + nombre
@@ -63,30 +135,11 @@ public class ProductoLoader {
 		try (Connection connection = destino.getConnection()) {
 			boolean oldAutoCommit = connection.getAutoCommit();
 			connection.setAutoCommit(false);
+			CatalogIdCache.Scope catalogs = catalogScope(destino);
 			try {
-				ensureCatalogAndDepositosExist(connection, marcaId, unidadMedidaId, categoriaId, dto);
-
-				ProductoUpsertResult productoResult = insertProducto(connection,
-						codigoBarra,
-						nombre,
-						producto.getDescripcion(),
-						marcaId,
-						unidadMedidaId,
-						categoriaId,
-						producto.getPrecioDeCompra(),
-						producto.getPrecioMinorista(),
-						producto.getPrecioMayorista(),
-						producto.getPrecioCredito(),
-						ivaPercent,
-						stockMin,
-						stockProducto,
-						serializable,
-						tipo.name(),
-						producto.getImagenUrl(),
-						activo,
-						createdBy,
-						updatedBy,
-						includeAuditColumns);
+				ensureCatalogAndDepositosExist(connection, catalogs, alta.marcaId(), alta.unidadMedidaId(), alta.categoriaId(), dto);
+
+				ProductoUpsertResult productoResult = insertOrReuse(connection, alta, includeAuditColumns, keyIndex);
 				long productoId = productoResult.id();
 
 				BigDecimal totalStock = null;
@@ -107,6 +160,10 @@ public class ProductoLoader {
 				}
 
 				connection.commit();
+				catalogs.committed();
+				if (keyIndex != null && productoResult.created()) {
+					keyIndex.put(productoId, alta.codigoBarra(), nombre);
+				}
 				String stockInfo;
 				if (esPaquete || esServicio) {
 					stockInfo = "sin stock (tipo=" + tipo.name() + ")";
@@ -149,32 +206,15 @@ public class ProductoLoader {
 		if (dto == null || dto.getProducto() == null) {
 			return LoadResult.fail("DTO producto vacío");
 		}
-		ProductoMigrationDto.ProductoDto producto = dto.getProducto();
-		TipoItem tipo = producto.getTipo() == null ? TipoItem.PRODUCTO : producto.getTipo();
-		boolean esPaquete = tipo == TipoItem.PAQUETE;
-		boolean esServicio = tipo == TipoItem.SERVICIO;
-
-		String nombre = trimToNull(producto.getNombre());
-		if (nombre == null) {
+		ProductoAlta alta = resolveAlta(dto);
+		if (alta == null) {
 			return LoadResult.fail("producto.nombre es requerido");
 		}
-
-		BigDecimal stockMin = (esPaquete || esServicio) ? BigDecimal.ZERO : defaultZero(producto.getStockMin());
-		BigDecimal stockProducto = BigDecimal.ZERO;
-		Boolean activo = producto.getActivo() == null ? Boolean.TRUE : producto.getActivo();
-		Boolean serializable = producto.getSerializable() == null ? Boolean.FALSE : producto.getSerializable();
-		String codigoBarra = normalizeCodigoBarra(producto.getCodigoBarra());
-
-		Long marcaId = defaultFk(producto.getMarcaId(), properties.getDefaults().getMarcaGenericaId());
-		Long unidadMedidaId = defaultFk(producto.getUnidadMedidaId(), properties.getDefaults().getUnidadMedidaGenericaId());
-		Long categoriaId = defaultFk(producto.getCategoriaId(), properties.getDefaults().getCategoriaGenericaId());
-		BigDecimal ivaPercent = defaultZero(producto.getIvaPercent());
-		String createdBy = defaultUser(producto.getCreatedBy());
-		String updatedBy = defaultUser(producto.getUpdatedBy());
+		String nombre = alta.nombre();
 		boolean includeAuditColumns = properties.getProductos().isIncludeAuditColumns();
 
 		if (dryRun) {
-			String msg = "DRY-RUN insert producto+stock: tipo=" + tipo.name() + " nombre=" + nombre;
+			String msg = "DRY-RUN insert producto+stock: tipo=" + alta.tipo().name() + " nombre=" + nombre;
 			return LoadResult.ok(msg);
 		}
 
@@ -183,33 +223,14 @@ public class ProductoLoader {
 		try (Connection connection = destino.getConnection()) {
 			boolean oldAutoCommit = connection.getAutoCommit();
 			connection.setAutoCommit(false);
+			CatalogIdCache.Scope catalogs = catalogScope(destino);
 			try {
-				ensureCatalogAndDepositosExist(connection, marcaId, unidadMedidaId, categoriaId, dto);
-
-				ProductoUpsertResult productoResult = insertProducto(connection,
-						codigoBarra,
-						nombre,
-						producto.getDescripcion(),
-						marcaId,
-						unidadMedidaId,
-						categoriaId,
-						producto.getPrecioDeCompra(),
-						producto.getPrecioMinorista(),
-						producto.getPrecioMayorista(),
-						producto.getPrecioCredito(),
-						ivaPercent,
-						stockMin,
-						stockProducto,
-						serializable,
-						tipo.name(),
-						producto.getImagenUrl(),
-						activo,
-						createdBy,
-						updatedBy,
-						includeAuditColumns);
+				ensureCatalogAndDepositosExist(connection, catalogs, alta.marcaId(), alta.unidadMedidaId(), alta.categoriaId(), dto);
+				ProductoUpsertResult productoResult = insertProducto(connection, alta, includeAuditColumns);
 				productoId = productoResult.id();
 				created = productoResult.created();
 				connection.commit();
+				catalogs.committed();
 			} catch (Exception ex) {
 				try {
 					connection.rollback();
@@ -227,7 +248,7 @@ public class ProductoLoader {
 		}
 
 		// 2da fase: stock best-effort (si corresponde)
-		if (!esPaquete && !esServicio) {
+		if (alta.conStock()) {
 			try (Connection connection = destino.getConnection()) {
 				boolean oldAutoCommit = connection.getAutoCommit();
 				connection.setAutoCommit(false);
@@ -252,7 +273,7 @@ public class ProductoLoader {
 				log.warn("Producto creado (id={}) pero falló carga de stock (2da fase): {}", productoId, ex.getMessage());
 				return LoadResult.ok("Producto creado en destino: id=" + productoId + " nombre=" + nombre + " (WARN: stock no se pudo cargar)", productoId);
 			}
-		} else if (esServicio) {
+		} else if (alta.tipo() == TipoItem.SERVICIO) {
 			try (Connection connection = destino.getConnection()) {
 				deleteStocks(connection, productoId);
 			} catch (Exception ex) {
@@ -264,6 +285,813 @@ public class ProductoLoader {
 		return LoadResult.ok((created ? "Producto creado en destino" : "Producto ya existía en destino") + ": id=" + productoId + " nombre=" + nombre, productoId);
 	}
 
+	/**
+	 * Igual que {@link #createWithInitialStockBestEffort} para una lista de productos, sobre una sola conexión y
+	 * en dos transacciones (productos y stock inicial).
+	 *
+	 * Cada fase intenta primero la versión por conjuntos: un INSERT ... SELECT FROM unnest(arrays) con RETURNING
+	 * para los productos, y un upsert de stocks, un insert de movimientos y un UPDATE de productos.stock para todo
+	 * el tramo. Si una sentencia falla (una fila viola un CHECK o una FK), la fase se revierte a su SAVEPOINT y se
+	 * repite ítem a ítem para reportar el error exacto sin revertir a los demás.
+	 *
+	 * Devuelve un resultado por ítem, en el mismo orden que {@code dtos}.
+	 */
+	public List<LoadResult> createBatchWithInitialStockBestEffort(DataSource destino, List<ProductoMigrationDto> dtos, boolean dryRun) {
+		return createBatchWithInitialStockBestEffort(destino, dtos, dryRun, null);
+	}
+
+	/**
+	 * @param keyIndex índice precargado de productos existentes (ver {@link #preloadKeyIndex}); con índice, los
+	 *                 productos ya conocidos no se intentan insertar y los creados se agregan al índice tras el commit
+	 */
+	public List<LoadResult> createBatchWithInitialStockBestEffort(DataSource destino, List<ProductoMigrationDto> dtos, boolean dryRun,
+			ProductoKeyIndex keyIndex) {
+		int size = dtos == null ? 0 : dtos.size();
+		if (size == 0) {
+			return List.of();
+		}
+		BatchAlta batch = new BatchAlta(size);
+		for (int i = 0; i < size; i++) {
+			ProductoMigrationDto dto = dtos.get(i);
+			if (dto == null || dto.getProducto() == null) {
+				batch.results[i] = LoadResult.fail("DTO producto vacío");
+				continue;
+			}
+			batch.altas[i] = resolveAlta(dto);
+			if (batch.altas[i] == null) {
+				batch.results[i] = LoadResult.fail("producto.nombre es requerido");
+			} else if (dryRun) {
+				batch.results[i] = LoadResult.ok("DRY-RUN insert producto+stock: tipo=" + batch.altas[i].tipo().name() + " nombre=" + batch.altas[i].nombre());
+			}
+		}
+		if (dryRun) {
+			return Arrays.asList(batch.results);
+		}
+
+		boolean includeAuditColumns = properties.getProductos().isIncludeAuditColumns();
+		boolean productosCommitted = false;
+		CatalogIdCache.Scope catalogs = catalogScope(destino);
+		try (Connection connection = destino.getConnection()) {
+			boolean oldAutoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				Savepoint sp = connection.setSavepoint();
+				try {
+					List<Integer> unmatched = insertProductosSet(connection, catalogs, batch, includeAuditColumns, keyIndex);
+					connection.releaseSavepoint(sp);
+					// recién con la fase confirmada: si se revierte, el ítem a ítem los vuelve a evaluar
+					for (int i : unmatched) {
+						batch.results[i] = LoadResult.fail(UNMATCHED_CONFLICT);
+					}
+				} catch (SQLException ex) {
+					connection.rollback(sp);
+					catalogs.rolledBack();
+					log.debug("Alta por conjunto falló ({}); se reintenta ítem a ítem", ex.getMessage());
+					batch.resetPending();
+					insertProductosPerItem(connection, catalogs, batch, includeAuditColumns, keyIndex);
+				}
+				connection.commit();
+				catalogs.committed();
+				productosCommitted = true;
+				if (keyIndex != null) {
+					for (int i = 0; i < size; i++) {
+						if (batch.pending(i) && batch.created[i]) {
+							keyIndex.put(batch.ids[i], batch.altas[i].codigoBarra(), batch.altas[i].nombre());
+						}
+					}
+				}
+
+				// 2da fase: stock best-effort, en su propia transacción
+				sp = connection.setSavepoint();
+				try {
+					loadStocksSet(connection, batch, includeAuditColumns);
+					connection.releaseSavepoint(sp);
+				} catch (SQLException ex) {
+					connection.rollback(sp);
+					log.debug("Stock por conjunto falló ({}); se reintenta ítem a ítem", ex.getMessage());
+					loadStocksPerItem(connection, batch, includeAuditColumns);
+				}
+				connection.commit();
+			} catch (Exception ex) {
+				try {
+					connection.rollback();
+				} catch (Exception ignored) {
+				}
+				throw ex;
+			} finally {
+				try {
+					connection.setAutoCommit(oldAutoCommit);
+				} catch (Exception ignored) {
+				}
+			}
+		} catch (Exception ex) {
+			for (int i = 0; i < size; i++) {
+				if (batch.results[i] != null) {
+					continue;
+				}
+				if (productosCommitted) {
+					log.warn("Producto creado (id={}) pero falló carga de stock (2da fase): {}", batch.ids[i], ex.getMessage());
+					batch.warnings.set(i, List.of("stock no se pudo cargar: " + ex.getMessage()));
+				} else {
+					batch.results[i] = LoadResult.fail("Error guardando producto en destino: " + ex.getMessage());
+				}
+			}
+		}
+
+		for (int i = 0; i < size; i++) {
+			if (batch.results[i] != null) {
+				continue;
+			}
+			List<String> warnings = batch.warnings.get(i);
+			String msg = (batch.created[i] ? "Producto creado en destino" : "Producto ya existía en destino") + ": id=" + batch.ids[i]
+					+ " nombre=" + batch.altas[i].nombre()
+					+ (warnings.isEmpty() ? "" : " (WARN: stock no se pudo cargar)");
+			batch.results[i] = LoadResult.ok(msg, batch.ids[i], batch.created[i], warnings);
+		}
+		return Arrays.asList(batch.results);
+	}
+
+	/**
+	 * Estado del alta en lote: por ítem, el alta resuelta, el resultado (null = pendiente / en curso), el id en
+	 * destino y si se insertó o ya existía.
+	 */
+	private static final class BatchAlta {
+		private final ProductoAlta[] altas;
+		private final LoadResult[] results;
+		private final long[] ids;
+		private final boolean[] created;
+		private final boolean[] resolved;
+		private final List<List<String>> warnings;
+
+		private BatchAlta(int size) {
+			this.altas = new ProductoAlta[size];
+			this.results = new LoadResult[size];
+			this.ids = new long[size];
+			this.created = new boolean[size];
+			this.resolved = new boolean[size];
+			this.warnings = new ArrayList<>(Collections.nCopies(size, List.of()));
+		}
+
+		private int size() {
+			return altas.length;
+		}
+
+		private boolean pending(int i) {
+			return results[i] == null;
+		}
+
+		private void resolve(int i, long id, boolean wasCreated) {
+			ids[i] = id;
+			created[i] = wasCreated;
+			resolved[i] = true;
+		}
+
+		/**
+		 * Descarta lo resuelto por una fase revertida (los fallos de validación se conservan).
+		 */
+		private void resetPending() {
+			for (int i = 0; i < altas.length; i++) {
+				if (results[i] == null) {
+					resolved[i] = false;
+					ids[i] = 0;
+					created[i] = false;
+				}
+			}
+		}
+	}
+
+	private void insertProductosPerItem(Connection connection, CatalogIdCache.Scope catalogs, BatchAlta batch, boolean includeAuditColumns,
+			ProductoKeyIndex keyIndex) throws SQLException {
+		for (int i = 0; i < batch.size(); i++) {
+			if (!batch.pending(i)) {
+				continue;
+			}
+			ProductoAlta alta = batch.altas[i];
+			Savepoint sp = connection.setSavepoint();
+			try {
+				ensureCatalogAndDepositosExist(connection, catalogs, alta.marcaId(), alta.unidadMedidaId(), alta.categoriaId(), alta.dto());
+				ProductoUpsertResult productoResult = insertOrReuse(connection, alta, includeAuditColumns, keyIndex);
+				batch.resolve(i, productoResult.id(), productoResult.created());
+				connection.releaseSavepoint(sp);
+			} catch (Exception ex) {
+				connection.rollback(sp);
+				catalogs.rolledBack();
+				batch.results[i] = LoadResult.fail("Error guardando producto en destino: " + ex.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Un solo INSERT para todos los productos pendientes del tramo. Los que chocan con una restricción única
+	 * (ya existen) no se insertan ({@code on conflict do nothing}) y se resuelven después contra lo existente,
+	 * igual que en el alta individual; un producto que repite la clave de otro del mismo tramo va directo a esa
+	 * resolución y reutiliza el del primero. Cada fila insertada vuelve con su ordinal en el tramo, así que se
+	 * asocia a su ítem por posición.
+	 *
+	 * @return ítems que chocaron sin que aparezca el producto existente; no se marcan acá porque la fase todavía
+	 *         se puede revertir
+	 */
+	private List<Integer> insertProductosSet(Connection connection, CatalogIdCache.Scope catalogs, BatchAlta batch, boolean includeAuditColumns,
+			ProductoKeyIndex keyIndex) throws SQLException {
+		List<Integer> pending = new ArrayList<>();
+		for (int i = 0; i < batch.size(); i++) {
+			if (batch.pending(i)) {
+				pending.add(i);
+			}
+		}
+		if (pending.isEmpty()) {
+			return List.of();
+		}
+		ensureCatalogsForBatch(connection, catalogs, batch, pending);
+		if (keyIndex != null) {
+			// los que el índice ya conoce van directo a completar campos faltantes, sin intentar el INSERT
+			for (var it = pending.iterator(); it.hasNext();) {
+				int i = it.next();
+				Long existingId = keyIndex.find(batch.altas[i].codigoBarra(), batch.altas[i].nombre());
+				if (existingId != null) {
+					batch.resolve(i, reuseExisting(connection, existingId, batch.altas[i], includeAuditColumns).id(), false);
+					it.remove();
+				}
+			}
+			if (pending.isEmpty()) {
+				return List.of();
+			}
+		}
+
+		// dentro del tramo cada clave (código de barras, si no nombre) se inserta una sola vez
+		List<Integer> conflicts = new ArrayList<>();
+		Set<String> keys = new HashSet<>();
+		for (var it = pending.iterator(); it.hasNext();) {
+			int i = it.next();
+			if (!keys.add(productoKey(batch.altas[i].codigoBarra(), batch.altas[i].nombre()))) {
+				conflicts.add(i);
+				it.remove();
+			}
+		}
+
+		int n = pending.size();
+		String[] codigoBarra = new String[n];
+		String[] nombre = new String[n];
+		String[] descripcion = new String[n];
+		Long[] marcaId = new Long[n];
+		Long[] unidadMedidaId = new Long[n];
+		Long[] categoriaId = new Long[n];
+		BigDecimal[] precioDeCompra = new BigDecimal[n];
+		BigDecimal[] precioMinorista = new BigDecimal[n];
+		BigDecimal[] precioMayorista = new BigDecimal[n];
+		BigDecimal[] precioCredito = new BigDecimal[n];
+		BigDecimal[] ivaPercent = new BigDecimal[n];
+		BigDecimal[] stockMin = new BigDecimal[n];
+		BigDecimal[] stock = new BigDecimal[n];
+		Boolean[] serializable = new Boolean[n];
+		String[] tipo = new String[n];
+		String[] imagenUrl = new String[n];
+		Boolean[] activo = new Boolean[n];
+		String[] createdBy = new String[n];
+		String[] updatedBy = new String[n];
+		for (int k = 0; k < n; k++) {
+			ProductoAlta alta = batch.altas[pending.get(k)];
+			ProductoMigrationDto.ProductoDto producto = alta.dto().getProducto();
+			codigoBarra[k] = alta.codigoBarra();
+			nombre[k] = alta.nombre();
+			descripcion[k] = producto.getDescripcion();
+			marcaId[k] = alta.marcaId();
+			unidadMedidaId[k] = alta.unidadMedidaId();
+			categoriaId[k] = alta.categoriaId();
+			precioDeCompra[k] = producto.getPrecioDeCompra();
+			precioMinorista[k] = producto.getPrecioMinorista();
+			precioMayorista[k] = producto.getPrecioMayorista();
+			precioCredito[k] = producto.getPrecioCredito();
+			ivaPercent[k] = alta.ivaPercent();
+			stockMin[k] = alta.stockMin();
+			stock[k] = BigDecimal.ZERO;
+			serializable[k] = alta.serializable() != null && alta.serializable();
+			tipo[k] = alta.tipo().name();
+			imagenUrl[k] = producto.getImagenUrl();
+			activo[k] = alta.activo() == null || alta.activo();
+			createdBy[k] = alta.createdBy();
+			updatedBy[k] = alta.updatedBy();
+		}
+
+		final String sql;
+		if (includeAuditColumns) {
+			sql = "with t as (select * from unnest(?::text[], ?::text[], ?::text[], ?::bigint[], ?::bigint[], ?::bigint[], " +
+					"?::numeric[], ?::numeric[], ?::numeric[], ?::numeric[], ?::numeric[], ?::numeric[], ?::numeric[], " +
+					"?::boolean[], ?::text[], ?::text[], ?::boolean[], ?::text[], ?::text[]) with ordinality " +
+					"as t(codigo_barra, nombre, descripcion, marca_id, unidad_medida_id, categoria_id, " +
+					"precio_de_compra, precio_minorista, precio_mayorista, precio_credito, " +
+					"iva_percent, stock_min, stock, serializable, tipo, imagen_url, activo, created_by, updated_by, ord)), " +
+					"ins as (insert into productos (" +
+					"codigo_barra, nombre, descripcion, marca_id, unidad_medida_id, categoria_id, " +
+					"precio_de_compra, precio_minorista, precio_mayorista, precio_credito, " +
+					"iva_percent, stock_min, stock, serializable, tipo, imagen_url, activo, " +
+					"created_at, updated_at, created_by, updated_by" +
+					") select " +
+					"codigo_barra, nombre, descripcion, marca_id, unidad_medida_id, categoria_id, " +
+					"precio_de_compra, precio_minorista, precio_mayorista, precio_credito, " +
+					"iva_percent, stock_min, stock, serializable, tipo, imagen_url, activo, " +
+					"current_timestamp, current_timestamp, created_by, updated_by " +
+					"from t order by ord " +
+					"on conflict do nothing returning id, codigo_barra, nombre) " + ORDINAL_OF_INSERTED;
+		} else {
+			sql = "with t as (select * from unnest(?::text[], ?::text[], ?::text[], ?::bigint[], ?::bigint[], ?::bigint[], " +
+					"?::numeric[], ?::numeric[], ?::numeric[], ?::numeric[], ?::numeric[], ?::numeric[], ?::numeric[], " +
+					"?::boolean[], ?::text[], ?::text[]) with ordinality " +
+					"as t(codigo_barra, nombre, descripcion, marca_id, unidad_medida_id, categoria_id, " +
+					"precio_de_compra, precio_minorista, precio_mayorista, precio_credito, " +
+					"iva_percent, stock_min, stock, serializable, tipo, imagen_url, ord)), " +
+					"ins as (insert into productos (" +
+					"codigo_barra, nombre, descripcion, marca_id, unidad_medida_id, categoria_id, " +
+					"precio_de_compra, precio_minorista, precio_mayorista, precio_credito, " +
+					"iva_percent, stock_min, stock, serializable, tipo, imagen_url" +
+					") select " +
+					"codigo_barra, nombre, descripcion, marca_id, unidad_medida_id, categoria_id, " +
+					"precio_de_compra, precio_minorista, precio_mayorista, precio_credito, " +
+					"iva_percent, stock_min, stock, serializable, tipo, imagen_url " +
+					"from t order by ord " +
+					"on conflict do nothing returning id, codigo_barra, nombre) " + ORDINAL_OF_INSERTED;
+		}
+
+		// id insertado por posición en el tramo (null si chocó con uno existente)
+		Long[] insertedIds = new Long[n];
+		try (PreparedStatement ps = connection.prepareStatement(sql)) {
+			int p = 1;
+			ps.setArray(p++, connection.createArrayOf("text", codigoBarra));
+			ps.setArray(p++, connection.createArrayOf("text", nombre));
+			ps.setArray(p++, connection.createArrayOf("text", descripcion));
+			ps.setArray(p++, connection.createArrayOf("bigint", marcaId));
+			ps.setArray(p++, connection.createArrayOf("bigint", unidadMedidaId));
+			ps.setArray(p++, connection.createArrayOf("bigint", categoriaId));
+			ps.setArray(p++, connection.createArrayOf("numeric", precioDeCompra));
+			ps.setArray(p++, connection.createArrayOf("numeric", precioMinorista));
+			ps.setArray(p++, connection.createArrayOf("numeric", precioMayorista));
+			ps.setArray(p++, connection.createArrayOf("numeric", precioCredito));
+			ps.setArray(p++, connection.createArrayOf("numeric", ivaPercent));
+			ps.setArray(p++, connection.createArrayOf("numeric", stockMin));
+			ps.setArray(p++, connection.createArrayOf("numeric", stock));
+			ps.setArray(p++, connection.createArrayOf("boolean", serializable));
+			ps.setArray(p++, connection.createArrayOf("text", tipo));
+			ps.setArray(p++, connection.createArrayOf("text", imagenUrl));
+			if (includeAuditColumns) {
+				ps.setArray(p++, connection.createArrayOf("boolean", activo));
+				ps.setArray(p++, connection.createArrayOf("text", createdBy));
+				ps.setArray(p++, connection.createArrayOf("text", updatedBy));
+			}
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					insertedIds[rs.getInt(2) - 1] = rs.getLong(1);
+				}
+			}
+		}
+
+		for (int k = 0; k < n; k++) {
+			int i = pending.get(k);
+			if (insertedIds[k] != null) {
+				batch.resolve(i, insertedIds[k], true);
+			} else {
+				conflicts.add(i);
+			}
+		}
+		return conflicts.isEmpty() ? List.of() : resolveExistingProductos(connection, batch, conflicts, includeAuditColumns);
+	}
+
+	private static String productoKey(String codigoBarra, String nombre) {
+		String cb = codigoBarra == null ? null : codigoBarra.trim();
+		return cb != null && !cb.isEmpty() ? "cb:" + cb : "n:" + (nombre == null ? "" : nombre.trim());
+	}
+
+	/**
+	 * Ítems que no se insertaron por conflicto de unicidad: se busca el existente (por código de barras y si no
+	 * por nombre) y se completan sus campos faltantes, como en {@link #insertProducto}. Devuelve los que no tienen
+	 * un existente.
+	 */
+	private List<Integer> resolveExistingProductos(Connection connection, BatchAlta batch, List<Integer> items, boolean includeAuditColumns) throws SQLException {
+		Set<String> codigos = new HashSet<>();
+		Set<String> nombres = new HashSet<>();
+		for (int i : items) {
+			if (batch.altas[i].codigoBarra() != null) {
+				codigos.add(batch.altas[i].codigoBarra());
+			}
+			nombres.add(batch.altas[i].nombre());
+		}
+		Map<String, Long> byCodigo = new HashMap<>();
+		Map<String, Long> byNombre = new HashMap<>();
+		try (PreparedStatement ps = connection.prepareStatement(
+				"select id, codigo_barra, nombre from productos where codigo_barra = any(?) or nombre = any(?) order by id")) {
+			ps.setArray(1, connection.createArrayOf("text", codigos.toArray()));
+			ps.setArray(2, connection.createArrayOf("text", nombres.toArray()));
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					long id = rs.getLong(1);
+					if (rs.getString(2) != null) {
+						byCodigo.putIfAbsent(rs.getString(2), id);
+					}
+					if (rs.getString(3) != null) {
+						byNombre.putIfAbsent(rs.getString(3), id);
+					}
+				}
+			}
+		}
+		List<Integer> unmatched = new ArrayList<>();
+		for (int i : items) {
+			ProductoAlta alta = batch.altas[i];
+			Long existingId = alta.codigoBarra() != null ? byCodigo.get(alta.codigoBarra()) : null;
+			if (existingId == null) {
+				existingId = byNombre.get(alta.nombre());
+			}
+			if (existingId == null) {
+				unmatched.add(i);
+				continue;
+			}
+			log.warn("Producto duplicado (nombre/codigo_barra). Se reutiliza id={} nombre={}", existingId, alta.nombre());
+			reuseExisting(connection, existingId, alta, includeAuditColumns);
+			batch.resolve(i, existingId, false);
+		}
+		return unmatched;
+	}
+
+	/**
+	 * Pre-scan de catálogos y depósitos del tramo: junta los ids distintos por tabla, verifica los que no están en
+	 * cache con un solo {@code select id ... where id = any(?)} y crea los faltantes de una vez.
+	 */
+	private void ensureCatalogsForBatch(Connection connection, CatalogIdCache.Scope catalogs, BatchAlta batch, List<Integer> items) throws SQLException {
+		if (!properties.getDefaults().isAutoCreateCatalog()) {
+			return;
+		}
+		var defaults = properties.getDefaults();
+		Map<Long, String> marcas = new LinkedHashMap<>();
+		Map<Long, String> categorias = new LinkedHashMap<>();
+		Map<Long, String> unidades = new LinkedHashMap<>();
+		Map<Long, String> depositos = new LinkedHashMap<>();
+		for (int i : items) {
+			ProductoAlta alta = batch.altas[i];
+			putCatalogId(marcas, alta.marcaId(), defaults.getMarcaGenericaId(), defaults.getMarcaGenericaNombre());
+			putCatalogId(categorias, alta.categoriaId(), defaults.getCategoriaGenericaId(), defaults.getCategoriaGenericaNombre());
+			putCatalogId(unidades, alta.unidadMedidaId(), defaults.getUnidadMedidaGenericaId(), defaults.getUnidadMedidaGenericaNombre());
+			for (Long depositoId : depositoIds(alta.dto())) {
+				putCatalogId(depositos, depositoId, defaults.getDepositoCentralId(), defaults.getDepositoCentralNombre());
+			}
+		}
+		prescanCatalog(connection, catalogs, "marcas", marcas);
+		prescanCatalog(connection, catalogs, "categorias", categorias);
+		prescanCatalog(connection, catalogs, "unidades_medida", unidades);
+		prescanCatalog(connection, catalogs, "depositos", depositos);
+	}
+
+	private static void putCatalogId(Map<Long, String> ids, Long id, Long genericoId, String genericoNombre) {
+		if (id != null) {
+			ids.putIfAbsent(id, id.equals(genericoId) ? genericoNombre : "AUTO_" + id);
+		}
+	}
+
+	private void prescanCatalog(Connection connection, CatalogIdCache.Scope catalogs, String table, Map<Long, String> nombresById) throws SQLException {
+		Map<Long, String> unknown = new LinkedHashMap<>();
+		for (var e : nombresById.entrySet()) {
+			if (!catalogs.isKnown(table, e.getKey())) {
+				unknown.put(e.getKey(), e.getValue());
+			}
+		}
+		if (unknown.isEmpty()) {
+			return;
+		}
+		try (PreparedStatement ps = connection.prepareStatement("select id from " + table + " where id = any(?)")) {
+			ps.setArray(1, connection.createArrayOf("bigint", unknown.keySet().toArray()));
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					long id = rs.getLong(1);
+					catalogs.confirmed(table, id);
+					unknown.remove(id);
+				}
+			}
+		}
+		if (unknown.isEmpty()) {
+			return;
+		}
+
+		Long[] ids = unknown.keySet().toArray(Long[]::new);
+		String[] nombres = new String[ids.length];
+		for (int k = 0; k < ids.length; k++) {
+			String nombre = trimToNull(unknown.get(ids[k]));
+			nombres[k] = nombre == null ? "AUTO_" + ids[k] : nombre;
+		}
+		// mismos intentos que ensureCatalogRowExists, para todo el conjunto
+		String[] candidates = new String[] {
+				"insert into " + table + " (id, nombre, activo, created_at, updated_at) select id, nombre, true, current_timestamp, current_timestamp from unnest(?::bigint[], ?::text[]) as t(id, nombre) on conflict do nothing",
+				"insert into " + table + " (id, nombre, activo, created_at) select id, nombre, true, current_timestamp from unnest(?::bigint[], ?::text[]) as t(id, nombre) on conflict do nothing",
+				"insert into " + table + " (id, nombre, activo) select id, nombre, true from unnest(?::bigint[], ?::text[]) as t(id, nombre) on conflict do nothing",
+				"insert into " + table + " (id, nombre) select id, nombre from unnest(?::bigint[], ?::text[]) as t(id, nombre) on conflict do nothing"
+		};
+		SQLException last = null;
+		for (String sql : candidates) {
+			Savepoint sp = connection.setSavepoint();
+			try (PreparedStatement ps = connection.prepareStatement(sql)) {
+				ps.setArray(1, connection.createArrayOf("bigint", ids));
+				ps.setArray(2, connection.createArrayOf("text", nombres));
+				ps.executeUpdate();
+				connection.releaseSavepoint(sp);
+				for (Long id : ids) {
+					catalogs.created(table, id);
+				}
+				return;
+			} catch (SQLException ex) {
+				connection.rollback(sp);
+				last = ex;
+			}
+		}
+		throw new SQLException("No se pudo auto-crear registros en tabla '" + table + "' para ids=" + unknown.keySet() + ": " + (last == null ? "error desconocido" : last.getMessage()), last);
+	}
+
+	/**
+	 * Depósitos que toca el alta (mismo criterio que {@link #ensureCatalogAndDepositosExist}).
+	 */
+	private List<Long> depositoIds(ProductoMigrationDto dto) {
+		Long central = properties.getDefaults().getDepositoCentralId();
+		List<Long> ids = new ArrayList<>();
+		if (dto.getStockPorDeposito() != null && !dto.getStockPorDeposito().isEmpty()) {
+			for (ProductoMigrationDto.StockPorDepositoDto s : dto.getStockPorDeposito()) {
+				if (s != null) {
+					ids.add(s.getDepositoId() != null ? s.getDepositoId() : central);
+				}
+			}
+		} else {
+			ids.add(dto.getDepositoId() != null ? dto.getDepositoId() : central);
+		}
+		return ids;
+	}
+
+	private void loadStocksPerItem(Connection connection, BatchAlta batch, boolean includeAuditColumns) throws SQLException {
+		for (int i = 0; i < batch.size(); i++) {
+			ProductoAlta alta = batch.altas[i];
+			if (!batch.pending(i) || (!alta.conStock() && alta.tipo() != TipoItem.SERVICIO)) {
+				continue;
+			}
+			Savepoint sp = connection.setSavepoint();
+			try {
+				if (alta.conStock()) {
+					var stockOps = upsertStocksAndMovimientos(connection, batch.ids[i], alta.dto(), batch.created[i]);
+					updateProductoStock(connection, batch.ids[i], stockOps.totalStock(), includeAuditColumns);
+				} else {
+					deleteStocks(connection, batch.ids[i]);
+				}
+				connection.releaseSavepoint(sp);
+			} catch (Exception ex) {
+				connection.rollback(sp);
+				log.warn("Producto creado (id={}) pero falló carga de stock: {}", batch.ids[i], ex.getMessage());
+				batch.warnings.set(i, List.of("stock no se pudo cargar: " + ex.getMessage()));
+			}
+		}
+	}
+
+	/**
+	 * Stock inicial del tramo en cuatro sentencias: upsert de stocks, insert de movimientos (solo para productos
+	 * recién creados), UPDATE de productos.stock con el total de cada producto y limpieza de stocks de SERVICIO.
+	 * Si un producto aparece dos veces (o un depósito se repite), gana el último valor, como en la carga ítem a ítem.
+	 */
+	private void loadStocksSet(Connection connection, BatchAlta batch, boolean includeAuditColumns) throws SQLException {
+		Map<List<Long>, BigDecimal[]> stockByKey = new LinkedHashMap<>();
+		List<Long> movProducto = new ArrayList<>();
+		List<Long> movDeposito = new ArrayList<>();
+		List<BigDecimal> movCantidad = new ArrayList<>();
+		Map<Long, BigDecimal> totalByProducto = new LinkedHashMap<>();
+		Set<Long> servicios = new LinkedHashSet<>();
+
+		for (int i = 0; i < batch.size(); i++) {
+			ProductoAlta alta = batch.altas[i];
+			if (!batch.pending(i)) {
+				continue;
+			}
+			long productoId = batch.ids[i];
+			if (alta.tipo() == TipoItem.SERVICIO) {
+				servicios.add(productoId);
+				continue;
+			}
+			if (!alta.conStock()) {
+				continue;
+			}
+			BigDecimal total = BigDecimal.ZERO;
+			for (StockOp op : stockOps(alta.dto())) {
+				stockByKey.remove(List.of(productoId, op.depositoId()));
+				stockByKey.put(List.of(productoId, op.depositoId()), new BigDecimal[] { op.cantidad(), op.reservado() });
+				if (batch.created[i]) {
+					movProducto.add(productoId);
+					movDeposito.add(op.depositoId());
+					movCantidad.add(op.cantidad());
+				}
+				total = total.add(op.cantidad());
+			}
+			totalByProducto.put(productoId, total);
+		}
+
+		if (!stockByKey.isEmpty()) {
+			int n = stockByKey.size();
+			Long[] productoIds = new Long[n];
+			Long[] depositoIds = new Long[n];
+			BigDecimal[] cantidades = new BigDecimal[n];
+			BigDecimal[] reservados = new BigDecimal[n];
+			int k = 0;
+			for (var e : stockByKey.entrySet()) {
+				productoIds[k] = e.getKey().get(0);
+				depositoIds[k] = e.getKey().get(1);
+				cantidades[k] = e.getValue()[0];
+				reservados[k] = e.getValue()[1];
+				k++;
+			}
+			String sql = "insert into stocks (created_at, activo, producto_id, deposito_id, cantidad, reservado) " +
+					"select current_timestamp, true, producto_id, deposito_id, cantidad, reservado " +
+					"from unnest(?::bigint[], ?::bigint[], ?::numeric[], ?::numeric[]) as t(producto_id, deposito_id, cantidad, reservado) " +
+					"on conflict (producto_id, deposito_id) do update set cantidad = excluded.cantidad, reservado = excluded.reservado";
+			try (PreparedStatement ps = connection.prepareStatement(sql)) {
+				ps.setArray(1, connection.createArrayOf("bigint", productoIds));
+				ps.setArray(2, connection.createArrayOf("bigint", depositoIds));
+				ps.setArray(3, connection.createArrayOf("numeric", cantidades));
+				ps.setArray(4, connection.createArrayOf("numeric", reservados));
+				ps.executeUpdate();
+			}
+		}
+
+		if (!movProducto.isEmpty()) {
+			String sql = "insert into stock_movimientos (" +
+					"created_at, activo, producto_id, deposito_id, cantidad, tipo, referencia, usuario, fecha, observaciones, venta_id, venta_detalle_id" +
+					") select " +
+					"current_timestamp, true, producto_id, deposito_id, cantidad, 'ENTRADA', 'ALTA_PRODUCTO', 'migrator', current_timestamp, 'Stock inicial', null, null " +
+					"from unnest(?::bigint[], ?::bigint[], ?::numeric[]) as t(producto_id, deposito_id, cantidad)";
+			try (PreparedStatement ps = connection.prepareStatement(sql)) {
+				ps.setArray(1, connection.createArrayOf("bigint", movProducto.toArray()));
+				ps.setArray(2, connection.createArrayOf("bigint", movDeposito.toArray()));
+				ps.setArray(3, connection.createArrayOf("numeric", movCantidad.toArray()));
+				ps.executeUpdate();
+			}
+		}
+
+		if (!totalByProducto.isEmpty()) {
+			String sql = includeAuditColumns
+					? "update productos p set stock = t.total, updated_at = current_timestamp from unnest(?::bigint[], ?::numeric[]) as t(id, total) where p.id = t.id"
+					: "update productos p set stock = t.total from unnest(?::bigint[], ?::numeric[]) as t(id, total) where p.id = t.id";
+			try (PreparedStatement ps = connection.prepareStatement(sql)) {
+				ps.setArray(1, connection.createArrayOf("bigint", totalByProducto.keySet().toArray()));
+				ps.setArray(2, connection.createArrayOf("numeric", totalByProducto.values().toArray()));
+				ps.executeUpdate();
+			}
+		}
+
+		if (!servicios.isEmpty()) {
+			try (PreparedStatement ps = connection.prepareStatement("delete from stocks where producto_id = any(?)")) {
+				ps.setArray(1, connection.createArrayOf("bigint", servicios.toArray()));
+				ps.executeUpdate();
+			}
+		}
+	}
+
+	private record StockOp(long depositoId, BigDecimal cantidad, BigDecimal reservado) {
+	}
+
+	/**
+	 * Filas de stock que genera el alta (mismo criterio que {@link #upsertStocksAndMovimientos}).
+	 */
+	private List<StockOp> stockOps(ProductoMigrationDto dto) {
+		List<StockOp> ops = new ArrayList<>();
+		Long central = properties.getDefaults().getDepositoCentralId();
+		if (dto.getStockPorDeposito() != null && !dto.getStockPorDeposito().isEmpty()) {
+			for (ProductoMigrationDto.StockPorDepositoDto s : dto.getStockPorDeposito()) {
+				if (s == null) {
+					continue;
+				}
+				Long depositoId = s.getDepositoId() != null ? s.getDepositoId() : central;
+				if (depositoId != null) {
+					ops.add(new StockOp(depositoId, defaultZero(s.getCantidad()), defaultZero(s.getReservado())));
+				}
+			}
+			return ops;
+		}
+		if (dto.getStock() != null) {
+			Long depositoId = dto.getDepositoId() != null ? dto.getDepositoId() : central;
+			if (depositoId != null) {
+				ops.add(new StockOp(depositoId, defaultZero(dto.getStock()), BigDecimal.ZERO));
+			}
+		}
+		return ops;
+	}
+
+	/**
+	 * Campos del alta ya normalizados y con defaults aplicados. null si falta el nombre.
+	 */
+	private ProductoAlta resolveAlta(ProductoMigrationDto dto) {
+		ProductoMigrationDto.ProductoDto producto = dto.getProducto();
+		TipoItem tipo = producto.getTipo() == null ? TipoItem.PRODUCTO : producto.getTipo();
+		String nombre = trimToNull(producto.getNombre());
+		if (nombre == null) {
+			return null;
+		}
+		boolean sinStock = tipo == TipoItem.PAQUETE || tipo == TipoItem.SERVICIO;
+		return new ProductoAlta(dto,
+				tipo,
+				nombre,
+				normalizeCodigoBarra(producto.getCodigoBarra()),
+				defaultFk(producto.getMarcaId(), properties.getDefaults().getMarcaGenericaId()),
+				defaultFk(producto.getUnidadMedidaId(), properties.getDefaults().getUnidadMedidaGenericaId()),
+				defaultFk(producto.getCategoriaId(), properties.getDefaults().getCategoriaGenericaId()),
+				defaultZero(producto.getIvaPercent()),
+				sinStock ? BigDecimal.ZERO : defaultZero(producto.getStockMin()),
+				producto.getActivo() == null ? Boolean.TRUE : producto.getActivo(),
+				producto.getSerializable() == null ? Boolean.FALSE : producto.getSerializable(),
+				defaultUser(producto.getCreatedBy()),
+				defaultUser(producto.getUpdatedBy()));
+	}
+
+	private ProductoUpsertResult insertProducto(Connection connection, ProductoAlta alta, boolean includeAuditColumns) throws SQLException {
+		ProductoMigrationDto.ProductoDto producto = alta.dto().getProducto();
+		return insertProducto(connection,
+				alta.codigoBarra(),
+				alta.nombre(),
+				producto.getDescripcion(),
+				alta.marcaId(),
+				alta.unidadMedidaId(),
+				alta.categoriaId(),
+				producto.getPrecioDeCompra(),
+				producto.getPrecioMinorista(),
+				producto.getPrecioMayorista(),
+				producto.getPrecioCredito(),
+				alta.ivaPercent(),
+				alta.stockMin(),
+				BigDecimal.ZERO,
+				alta.serializable(),
+				alta.tipo().name(),
+				producto.getImagenUrl(),
+				alta.activo(),
+				alta.createdBy(),
+				alta.updatedBy(),
+				includeAuditColumns);
+	}
+
+	private ProductoUpsertResult insertOrReuse(Connection connection, ProductoAlta alta, boolean includeAuditColumns,
+			ProductoKeyIndex keyIndex) throws SQLException {
+		Long existingId = keyIndex == null ? null : keyIndex.find(alta.codigoBarra(), alta.nombre());
+		if (existingId != null) {
+			return reuseExisting(connection, existingId, alta, includeAuditColumns);
+		}
+		return insertProducto(connection, alta, includeAuditColumns);
+	}
+
+	/**
+	 * Producto que ya existe en destino: se reutiliza su id y se completan (best-effort) los campos en NULL.
+	 */
+	private ProductoUpsertResult reuseExisting(Connection connection, long existingId, ProductoAlta alta, boolean includeAuditColumns) throws SQLException {
+		log.debug("Producto existente según índice. Se reutiliza id={} nombre={}", existingId, alta.nombre());
+		ProductoMigrationDto.ProductoDto producto = alta.dto().getProducto();
+		Savepoint sp = connection.getAutoCommit() ? null : connection.setSavepoint();
+		try {
+			patchProductoIfMissing(connection,
+					existingId,
+					alta.codigoBarra(),
+					alta.nombre(),
+					producto.getDescripcion(),
+					alta.marcaId(),
+					alta.unidadMedidaId(),
+					alta.categoriaId(),
+					producto.getPrecioDeCompra(),
+					producto.getPrecioMinorista(),
+					producto.getPrecioMayorista(),
+					producto.getPrecioCredito(),
+					alta.ivaPercent(),
+					alta.stockMin(),
+					alta.serializable(),
+					alta.tipo().name(),
+					producto.getImagenUrl(),
+					includeAuditColumns ? alta.activo() : null,
+					includeAuditColumns ? alta.createdBy() : null,
+					includeAuditColumns ? alta.updatedBy() : null,
+					includeAuditColumns);
+			if (sp != null) {
+				connection.releaseSavepoint(sp);
+			}
+		} catch (SQLException patchEx) {
+			if (sp != null) {
+				connection.rollback(sp);
+			}
+			log.warn("No se pudo completar campos faltantes del producto id={}: {}", existingId, patchEx.getMessage());
+		}
+		return new ProductoUpsertResult(existingId, false);
+	}
+
+	private record ProductoAlta(
+			ProductoMigrationDto dto,
+			TipoItem tipo,
+			String nombre,
+			String codigoBarra,
+			Long marcaId,
+			Long unidadMedidaId,
+			Long categoriaId,
+			BigDecimal ivaPercent,
+			BigDecimal stockMin,
+			Boolean activo,
+			Boolean serializable,
+			String createdBy,
+			String updatedBy) {
+		boolean conStock() {
+			return tipo != TipoItem.PAQUETE && tipo != TipoItem.SERVICIO;
+		}
+	}
+
 	private record StockOps(BigDecimal totalStock) {
 	}
 
@@ -617,6 +1445,7 @@ public class ProductoLoader {
 
 	private void ensureCatalogAndDepositosExist(
 			Connection connection,
+			CatalogIdCache.Scope catalogs,
 			Long marcaId,
 			Long unidadMedidaId,
 			Long categoriaId,
@@ -626,15 +1455,15 @@ public class ProductoLoader {
 		}
 
 		// Catálogos: marcas/categorias/unidades_medida
-		ensureCatalogRowExists(connection, "marcas", marcaId,
+		ensureCatalogRowExists(connection, catalogs, "marcas", marcaId,
 				marcaId != null && marcaId.equals(properties.getDefaults().getMarcaGenericaId())
 						? properties.getDefaults().getMarcaGenericaNombre()
 						: "AUTO_" + marcaId);
-		ensureCatalogRowExists(connection, "categorias", categoriaId,
+		ensureCatalogRowExists(connection, catalogs, "categorias", categoriaId,
 				categoriaId != null && categoriaId.equals(properties.getDefaults().getCategoriaGenericaId())
 						? properties.getDefaults().getCategoriaGenericaNombre()
 						: "AUTO_" + categoriaId);
-		ensureCatalogRowExists(connection, "unidades_medida", unidadMedidaId,
+		ensureCatalogRowExists(connection, catalogs, "unidades_medida", unidadMedidaId,
 				unidadMedidaId != null && unidadMedidaId.equals(properties.getDefaults().getUnidadMedidaGenericaId())
 						? properties.getDefaults().getUnidadMedidaGenericaNombre()
 						: "AUTO_" + unidadMedidaId);
@@ -647,14 +1476,14 @@ public class ProductoLoader {
 						continue;
 					}
 					Long depositoId = s.getDepositoId() != null ? s.getDepositoId() : properties.getDefaults().getDepositoCentralId();
-					ensureCatalogRowExists(connection, "depositos", depositoId,
+					ensureCatalogRowExists(connection, catalogs, "depositos", depositoId,
 							depositoId != null && depositoId.equals(properties.getDefaults().getDepositoCentralId())
 									? properties.getDefaults().getDepositoCentralNombre()
 									: "AUTO_" + depositoId);
 				}
 			} else {
 				Long depositoId = dto.getDepositoId() != null ? dto.getDepositoId() : properties.getDefaults().getDepositoCentralId();
-				ensureCatalogRowExists(connection, "depositos", depositoId,
+				ensureCatalogRowExists(connection, catalogs, "depositos", depositoId,
 						depositoId != null && depositoId.equals(properties.getDefaults().getDepositoCentralId())
 								? properties.getDefaults().getDepositoCentralNombre()
 								: "AUTO_" + depositoId);
@@ -662,11 +1491,12 @@ public class ProductoLoader {
 		}
 	}
 
-	private void ensureCatalogRowExists(Connection connection, String table, Long id, String nombre) throws SQLException {
-		if (id == null) {
+	private void ensureCatalogRowExists(Connection connection, CatalogIdCache.Scope catalogs, String table, Long id, String nombre) throws SQLException {
+		if (id == null || catalogs.isKnown(table, id)) {
 			return;
 		}
 		if (existsById(connection, table, id)) {
+			catalogs.confirmed(table, id);
 			return;
 		}
 
@@ -683,17 +1513,28 @@ public class ProductoLoader {
 				"insert into " + table + " (id, nombre) values (?, ?)"
 		};
 
+		// En PostgreSQL un intento fallido aborta la transacción: cada intento va en su SAVEPOINT.
+		boolean inTransaction = !connection.getAutoCommit();
 		SQLException last = null;
 		for (String sql : candidates) {
+			Savepoint sp = inTransaction ? connection.setSavepoint() : null;
 			try (PreparedStatement ps = connection.prepareStatement(sql)) {
 				ps.setLong(1, id);
 				ps.setString(2, resolvedNombre);
 				ps.executeUpdate();
+				if (sp != null) {
+					connection.releaseSavepoint(sp);
+				}
+				catalogs.created(table, id);
 				return;
 			} catch (SQLException ex) {
 				last = ex;
+				if (sp != null) {
+					connection.rollback(sp);
+				}
 				// Puede ser que otro proceso lo haya creado entre el exists y el insert
 				if (existsById(connection, table, id)) {
+					catalogs.confirmed(table, id);
 					return;
 				}
 			}
@@ -0,0 +1,510 @@
+package com.multiservicios.migrator.load;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.postgresql.PGConnection;
+import org.postgresql.jdbc.AutoSave;
+
+import com.multiservicios.migrator.load.UniversalTableLoader.LoadResult;
+import com.multiservicios.migrator.load.UniversalTableLoader.PreparedRow;
+import com.multiservicios.migrator.model.ColumnMeta;
+
+/**
+ * Sesión de carga de una corrida (o de un worker del pipeline) contra una tabla destino: una sola conexión,
+ * dialecto detectado una vez, SQL de INSERT y PreparedStatements cacheados por firma de columnas, y commit
+ * cada {@code migrator.load.commitEvery} filas en lugar de autocommit por fila.
+ *
+ * En PostgreSQL un error aborta la transacción entera; para que una fila con error no se lleve a las demás,
+ * mientras se carga fila a fila (modo ROW y reintento de un lote fallido) se activa el autosave del driver
+ * (SAVEPOINT en el mismo viaje que cada sentencia). Los lotes, COPY y merge van sin autosave.
+ *
+ * Aun así, hay errores con los que el motor revierte la transacción entera y no solo la sentencia: deadlocks y
+ * fallas de serialización (SQLState clase 40) en cualquier motor, y en MySQL/InnoDB también el lock wait timeout
+ * (con innodb_rollback_on_timeout). Lo mismo pasa si falla el commit. En esos casos se revierte todo, se
+ * re-ejecuta una vez lo cargado desde el último commit y, si tampoco se puede, la sesión falla en lugar de dar
+ * por cargadas filas que se perdieron.
+ *
+ * No es thread-safe: cada worker abre la suya. {@link #close()} confirma lo pendiente y devuelve la conexión.
+ */
+public final class UniversalLoadSession implements AutoCloseable {
+	private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+
+	private final UniversalTableLoader loader;
+	private final Connection connection;
+	private final String schema;
+	private final String table;
+	private final Set<String> allowedColumnsLower;
+	private final Map<String, ColumnMeta> columnMetaByLower;
+	private final Map<String, ColumnConverter> converters;
+	private final boolean dryRun;
+	private final boolean postgres;
+	private final int commitEvery;
+	private final int batchSize;
+	private final DuplicateHandling duplicates;
+	private final boolean oldAutoCommit;
+	private final AutoSave oldAutoSave;
+	private final PGConnection pg;
+	private boolean autosave;
+
+	private final Map<List<String>, String> sqlByColumns = new HashMap<>();
+	private final Map<String, PreparedStatement> statements = new HashMap<>();
+	private final Map<List<String>, String> stagingTables = new LinkedHashMap<>();
+	private int uncommitted;
+	/** Filas cargadas con {@link #insertRow} desde el último commit, para rehacerlas si se revierte la transacción. */
+	private final List<WindowRow> window = new ArrayList<>();
+
+	private record WindowRow(String sql, List<Object> params) {
+	}
+
+	UniversalLoadSession(UniversalTableLoader loader, Connection connection, String schema, String table,
+			Set<String> allowedColumnsLower, Map<String, ColumnMeta> columnMetaByLower, boolean dryRun, int commitEvery,
+			int batchSize, DuplicateHandling duplicates) throws SQLException {
+		this.loader = loader;
+		this.connection = connection;
+		this.schema = schema;
+		this.table = table;
+		this.allowedColumnsLower = allowedColumnsLower;
+		this.columnMetaByLower = columnMetaByLower;
+		this.converters = loader.compileConverters(columnMetaByLower);
+		this.dryRun = dryRun;
+		this.postgres = UniversalTableLoader.isPostgres(connection);
+		this.commitEvery = Math.max(1, commitEvery);
+		this.batchSize = Math.max(1, batchSize);
+		this.duplicates = duplicates;
+		this.oldAutoCommit = connection.getAutoCommit();
+
+		AutoSave previous = null;
+		PGConnection pgConnection = null;
+		if (!dryRun) {
+			connection.setAutoCommit(false);
+			if (postgres && connection.isWrapperFor(PGConnection.class)) {
+				pgConnection = connection.unwrap(PGConnection.class);
+				previous = pgConnection.getAutosave();
+				pgConnection.setAutosave(AutoSave.NEVER);
+			}
+		}
+		this.oldAutoSave = previous;
+		this.pg = pgConnection;
+	}
+
+	/**
+	 * Prende o apaga el autosave del driver (solo PostgreSQL): prendido cuesta un SAVEPOINT por sentencia, así
+	 * que se usa solo mientras se carga fila a fila.
+	 */
+	private void autosave(boolean on) {
+		if (pg != null && autosave != on) {
+			pg.setAutosave(on ? AutoSave.ALWAYS : AutoSave.NEVER);
+			autosave = on;
+		}
+	}
+
+	public String schema() {
+		return schema;
+	}
+
+	public String table() {
+		return table;
+	}
+
+	/**
+	 * Conexión para COPY y merge: sentencias de a muchas filas, sin autosave.
+	 */
+	Connection connection() {
+		autosave(false);
+		return connection;
+	}
+
+	boolean isPostgres() {
+		return postgres;
+	}
+
+	DuplicateHandling duplicates() {
+		return duplicates;
+	}
+
+	Map<String, ColumnMeta> columnMetaByLower() {
+		return columnMetaByLower;
+	}
+
+	/**
+	 * Filtra y convierte una fila con los conversores por columna de la sesión.
+	 */
+	PreparedRow prepareRow(Map<String, Object> values) {
+		return loader.prepareRow(values, allowedColumnsLower, columnMetaByLower, converters);
+	}
+
+	public LoadResult insertRow(Map<String, Object> values) {
+		PreparedRow row = prepareRow(values);
+		if (row.error() != null) {
+			return row.error();
+		}
+		String sql = insertSql(row.columns());
+		if (dryRun) {
+			return new LoadResult(true, "DRY RUN: " + sql);
+		}
+		autosave(true);
+		LoadResult result;
+		try {
+			result = executeInWindow(sql, row.params());
+		} catch (SQLException ex) {
+			result = loader.failureResult(ex, duplicates);
+		}
+		countAndMaybeCommit(1);
+		return result;
+	}
+
+	private LoadResult executeInWindow(String sql, List<Object> params) throws SQLException {
+		LoadResult result;
+		try {
+			result = loader.executeSingle(statement(sql), params, schema, table, duplicates);
+		} catch (SQLException ex) {
+			if (!rolledBackTransaction(ex)) {
+				throw ex;
+			}
+			replayWindow(ex);
+			result = loader.executeSingle(statement(sql), params, schema, table, duplicates);
+		}
+		window.add(new WindowRow(sql, params));
+		return result;
+	}
+
+	/**
+	 * La transacción se revirtió entera: se descarta lo que quedara de ella y se vuelven a ejecutar las filas
+	 * cargadas desde el último commit. Si no se puede, falla la sesión (esas filas ya se informaron como cargadas).
+	 */
+	private void replayWindow(SQLException cause) {
+		rollbackQuietly(false);
+		try {
+			for (WindowRow row : window) {
+				loader.executeSingle(statement(row.sql()), row.params(), schema, table, duplicates);
+			}
+		} catch (SQLException ex) {
+			int lost = window.size();
+			rollbackQuietly();
+			throw new IllegalStateException("Se revirtió la transacción en " + schema + "." + table + " ("
+					+ cause.getMessage() + ") y no se pudieron volver a cargar las " + lost + " filas sin confirmar: "
+					+ ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Errores con los que el motor revierte la transacción entera y no solo la sentencia.
+	 */
+	private boolean rolledBackTransaction(SQLException ex) {
+		for (SQLException cur = ex; cur != null; cur = cur.getNextException()) {
+			String state = cur.getSQLState();
+			if (cur instanceof SQLTransactionRollbackException || (state != null && state.startsWith("40"))) {
+				return true;
+			}
+			// MySQL: lock wait timeout, que con innodb_rollback_on_timeout revierte todo; se revierte igual para
+			// que el resultado no dependa de esa variable
+			if (!postgres && cur.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Carga por lotes: addBatch/executeBatch cada {@code migrator.load.batchSize} filas por firma de columnas.
+	 * Devuelve un resultado por fila, en el mismo orden que {@code rows}. Si un lote falla, se revierte y se
+	 * re-ejecuta fila a fila para reportar el error exacto.
+	 */
+	public List<LoadResult> insertBatch(List<Map<String, Object>> rows) {
+		int size = rows == null ? 0 : rows.size();
+		if (size == 0) {
+			return List.of();
+		}
+		LoadResult[] results = new LoadResult[size];
+		PreparedRow[] prepared = new PreparedRow[size];
+		for (int i = 0; i < size; i++) {
+			prepared[i] = prepareRow(rows.get(i));
+			if (prepared[i].error() != null) {
+				results[i] = prepared[i].error();
+			}
+		}
+
+		// lo pendiente de filas sueltas se confirma antes: un rollback del lote no debe arrastrarlo
+		commitOrThrow();
+		Map<String, PendingBatch> batches = new LinkedHashMap<>();
+		try {
+			for (int i = 0; i < size; i++) {
+				if (results[i] != null) {
+					continue;
+				}
+				String sql = insertSql(prepared[i].columns());
+				if (dryRun) {
+					results[i] = new LoadResult(true, "DRY RUN: " + sql);
+					continue;
+				}
+				PendingBatch batch = batches.get(sql);
+				if (batch == null) {
+					batch = new PendingBatch(statement(sql));
+					batches.put(sql, batch);
+				}
+				batch.add(i, prepared[i].params());
+				if (batch.size() >= batchSize) {
+					flushBatch(batch, results);
+				}
+			}
+			for (PendingBatch batch : batches.values()) {
+				flushBatch(batch, results);
+			}
+		} catch (Exception ex) {
+			LoadResult fail = new LoadResult(false, ex.getClass().getSimpleName() + ": " + ex.getMessage());
+			for (int i = 0; i < size; i++) {
+				if (results[i] == null) {
+					results[i] = fail;
+				}
+			}
+		}
+		return Arrays.asList(results);
+	}
+
+	private void flushBatch(PendingBatch batch, LoadResult[] results) throws SQLException {
+		if (batch.size() == 0) {
+			return;
+		}
+		try {
+			autosave(false);
+			int[] counts = batch.ps.executeBatch();
+			connection.commit();
+			for (int k = 0; k < batch.rowIndexes.size(); k++) {
+				int updated = k < counts.length ? counts[k] : Statement.SUCCESS_NO_INFO;
+				results[batch.rowIndexes.get(k)] = loader.resultForUpdateCount(updated, schema, table, duplicates);
+			}
+		} catch (SQLException ex) {
+			// El lote completo se revierte; reintentamos fila a fila para aislar las filas con error.
+			rollbackQuietly();
+			try {
+				batch.ps.clearBatch();
+			} catch (SQLException ignored) {
+			}
+			retryRowByRow(batch, results);
+		} finally {
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Reintento fila a fila de un lote revertido. Si a mitad del reintento el motor revierte la transacción
+	 * entera (o falla el commit), lo cargado del lote se perdió: se rehace una vez y, si vuelve a pasar, las filas
+	 * del lote quedan como fallidas.
+	 */
+	private void retryRowByRow(PendingBatch batch, LoadResult[] results) {
+		autosave(true);
+		for (int attempt = 1;; attempt++) {
+			try {
+				for (int k = 0; k < batch.rowIndexes.size(); k++) {
+					int rowIndex = batch.rowIndexes.get(k);
+					try {
+						results[rowIndex] = loader.executeSingle(batch.ps, batch.params.get(k), schema, table, duplicates);
+					} catch (SQLException rowEx) {
+						if (rolledBackTransaction(rowEx)) {
+							throw rowEx;
+						}
+						results[rowIndex] = loader.failureResult(rowEx, duplicates);
+					}
+				}
+				connection.commit();
+				return;
+			} catch (SQLException ex) {
+				rollbackQuietly();
+				if (attempt >= 2) {
+					LoadResult fail = new LoadResult(false, "Se revirtió la transacción del lote en " + schema + "." + table
+							+ ": " + ex.getMessage());
+					for (int rowIndex : batch.rowIndexes) {
+						results[rowIndex] = fail;
+					}
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Confirma las filas pendientes de la transacción actual.
+	 */
+	public void commit() throws SQLException {
+		if (!dryRun && uncommitted > 0) {
+			commitWindow();
+		}
+		uncommitted = 0;
+	}
+
+	/**
+	 * Commit en el servidor aunque no haya filas pendientes de esta sesión: falla si la conexión se cortó, lo que
+	 * sirve para saber que lo cargado hasta acá quedó confirmado.
+	 */
+	public void commitNow() throws SQLException {
+		if (!dryRun) {
+			commitWindow();
+		}
+		uncommitted = 0;
+	}
+
+	/**
+	 * Un commit fallido deja revertido todo lo pendiente: si hay filas sueltas sin confirmar, se rehacen una vez
+	 * y se vuelve a confirmar.
+	 */
+	private void commitWindow() throws SQLException {
+		try {
+			connection.commit();
+		} catch (SQLException ex) {
+			if (window.isEmpty()) {
+				throw ex;
+			}
+			replayWindow(ex);
+			connection.commit();
+		} finally {
+			window.clear();
+		}
+	}
+
+	private void countAndMaybeCommit(int rows) {
+		uncommitted += rows;
+		if (uncommitted >= commitEvery) {
+			commitOrThrow();
+		}
+	}
+
+	private void commitOrThrow() {
+		try {
+			commit();
+		} catch (SQLException ex) {
+			throw new IllegalStateException("No se pudo confirmar la transacción en " + schema + "." + table
+					+ ": " + ex.getMessage(), ex);
+		}
+	}
+
+	String insertSql(List<String> columns) {
+		return sqlByColumns.computeIfAbsent(columns,
+				cols -> loader.buildInsertSql(schema, table, cols, postgres, duplicates));
+	}
+
+	private PreparedStatement statement(String sql) throws SQLException {
+		PreparedStatement ps = statements.get(sql);
+		if (ps == null) {
+			ps = connection.prepareStatement(sql);
+			statements.put(sql, ps);
+		}
+		return ps;
+	}
+
+	/**
+	 * Tabla temporal de staging ya creada en esta conexión para esas columnas, o null.
+	 */
+	String stagingTable(List<String> columns) {
+		return stagingTables.get(columns);
+	}
+
+	/**
+	 * Registra una tabla temporal de staging creada en esta conexión (se elimina al cerrar la sesión).
+	 */
+	void registerStagingTable(List<String> columns, String name) {
+		stagingTables.put(List.copyOf(columns), name);
+	}
+
+	public void rollbackQuietly() {
+		rollbackQuietly(true);
+	}
+
+	private void rollbackQuietly(boolean forgetWindow) {
+		try {
+			connection.rollback();
+		} catch (SQLException ignored) {
+		}
+		if (forgetWindow) {
+			window.clear();
+			uncommitted = 0;
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			commit();
+		} catch (SQLException ex) {
+			rollbackQuietly();
+			throw new IllegalStateException("No se pudo confirmar la transacción en " + schema + "." + table + ": "
+					+ ex.getMessage(), ex);
+		} finally {
+			for (PreparedStatement ps : statements.values()) {
+				try {
+					ps.close();
+				} catch (Exception ignored) {
+				}
+			}
+			statements.clear();
+			dropStagingTables();
+			try {
+				if (oldAutoSave != null) {
+					connection.unwrap(PGConnection.class).setAutosave(oldAutoSave);
+				}
+				connection.setAutoCommit(oldAutoCommit);
+			} catch (Exception ignored) {
+			}
+			try {
+				connection.close();
+			} catch (Exception ignored) {
+			}
+		}
+	}
+
+	private void dropStagingTables() {
+		if (stagingTables.isEmpty()) {
+			return;
+		}
+		// las tablas temporales viven lo que la conexión, y la conexión vuelve al pool
+		try (Statement st = connection.createStatement()) {
+			for (String name : stagingTables.values()) {
+				st.execute("drop table if exists " + UniversalTableLoader.quoteIdent(name));
+			}
+			if (!connection.getAutoCommit()) {
+				connection.commit();
+			}
+		} catch (SQLException ignored) {
+			rollbackQuietly();
+		}
+		stagingTables.clear();
+	}
+
+	private static final class PendingBatch {
+		private final PreparedStatement ps;
+		private final List<Integer> rowIndexes = new ArrayList<>();
+		private final List<List<Object>> params = new ArrayList<>();
+
+		private PendingBatch(PreparedStatement ps) {
+			this.ps = ps;
+		}
+
+		private void add(int rowIndex, List<Object> rowParams) throws SQLException {
+			for (int i = 0; i < rowParams.size(); i++) {
+				ps.setObject(i + 1, rowParams.get(i));
+			}
+			ps.addBatch();
+			rowIndexes.add(rowIndex);
+			params.add(rowParams);
+		}
+
+		private int size() {
+			return rowIndexes.size();
+		}
+
+		private void clear() {
+			rowIndexes.clear();
+			params.clear();
+		}
+	}
+}
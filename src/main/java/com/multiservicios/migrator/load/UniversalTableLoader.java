@@ -4,6 +4,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -41,13 +42,229 @@ public class UniversalTableLoader {
 		if (destino == null) {
 			return new LoadResult(false, "Destino es null");
 		}
-		String safeSchema = (schema == null || schema.isBlank()) ? "public" : schema.trim();
 		String safeTable = table == null ? "" : table.trim();
 		if (safeTable.isBlank()) {
 			return new LoadResult(false, "Tabla destino es requerida");
 		}
+
+		try (UniversalLoadSession session = openSession(destino, schema, table, allowedColumnsLower, columnMetaByLower,
+				dryRun)) {
+			return session.insertRow(values);
+		} catch (Exception ex) {
+			return failureResult(ex);
+		}
+	}
+
+	/**
+	 * Abre una sesión de carga (una conexión del pool) para la corrida o para un worker. Hay que cerrarla:
+	 * el cierre confirma lo pendiente. Los duplicados siguen {@code migrator.policies.duplicatePolicy}.
+	 */
+	public UniversalLoadSession openSession(DataSource destino, String schema, String table,
+			Set<String> allowedColumnsLower, Map<String, ColumnMeta> columnMetaByLower, boolean dryRun) throws SQLException {
+		return openSession(destino, schema, table, allowedColumnsLower, columnMetaByLower, dryRun, null);
+	}
+
+	/**
+	 * Igual que {@link #openSession(DataSource, String, String, Set, Map, boolean)} con la política de duplicados de
+	 * la corrida. Con UPDATE sin columnas explícitas la clave de conflicto se descubre del destino (PK, o la primera
+	 * restricción única sin columnas autogeneradas); si no hay ninguna, la sesión no se abre.
+	 */
+	public UniversalLoadSession openSession(DataSource destino, String schema, String table,
+			Set<String> allowedColumnsLower, Map<String, ColumnMeta> columnMetaByLower, boolean dryRun,
+			DuplicateHandling duplicates) throws SQLException {
+		if (destino == null) {
+			throw new IllegalArgumentException("Destino es null");
+		}
+		String safeSchema = (schema == null || schema.isBlank()) ? "public" : schema.trim();
+		String safeTable = table == null ? "" : table.trim();
+		if (safeTable.isBlank()) {
+			throw new IllegalArgumentException("Tabla destino es requerida");
+		}
+		DuplicateHandling handling = duplicates == null ? defaultDuplicateHandling() : duplicates;
+		Connection c = destino.getConnection();
+		try {
+			if (handling.upserts()) {
+				handling = resolveConflictKey(c, safeSchema, safeTable, handling, allowedColumnsLower, columnMetaByLower);
+			}
+			return new UniversalLoadSession(this, c, safeSchema, safeTable, allowedColumnsLower, columnMetaByLower, dryRun,
+					resolveCommitEvery(), resolveBatchSize(), handling);
+		} catch (SQLException | RuntimeException ex) {
+			try {
+				c.close();
+			} catch (Exception ignored) {
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * Resuelve la política de la corrida contra el destino una sola vez (antes de abrir el cursor del origen),
+	 * para que un upsert sin clave falle de entrada y no fila por fila. Devuelve la misma política con la clave
+	 * de conflicto completa.
+	 */
+	public DuplicateHandling resolveDuplicateHandling(DataSource destino, String schema, String table,
+			DuplicateHandling duplicates, Set<String> allowedColumnsLower, Map<String, ColumnMeta> columnMetaByLower)
+			throws SQLException {
+		DuplicateHandling handling = duplicates == null ? defaultDuplicateHandling() : duplicates;
+		if (!handling.upserts()) {
+			return handling;
+		}
+		String safeSchema = (schema == null || schema.isBlank()) ? "public" : schema.trim();
+		String safeTable = table == null ? "" : table.trim();
+		try (Connection c = destino.getConnection()) {
+			return resolveConflictKey(c, safeSchema, safeTable, handling, allowedColumnsLower, columnMetaByLower);
+		}
+	}
+
+	/**
+	 * Clave de conflicto para el upsert: la explícita (validada contra el destino) o la descubierta por metadata.
+	 */
+	private DuplicateHandling resolveConflictKey(Connection c, String schema, String table, DuplicateHandling handling,
+			Set<String> allowedColumnsLower, Map<String, ColumnMeta> columnMetaByLower) throws SQLException {
+		if (!isPostgres(c)) {
+			throw new IllegalStateException("DuplicatePolicy UPDATE solo está soportado con destino PostgreSQL");
+		}
+		if (!handling.conflictColumns().isEmpty()) {
+			return handling.withConflictColumns(
+					canonicalConflictColumns(handling.conflictColumns(), schema, table, allowedColumnsLower, columnMetaByLower));
+		}
+		List<String> key = discoverConflictColumns(c, schema, table, columnMetaByLower);
+		if (key.isEmpty()) {
+			throw new IllegalStateException("DuplicatePolicy UPDATE requiere una clave: " + schema + "." + table
+					+ " no tiene PK ni restricción única; indicá las columnas de conflicto");
+		}
+		return handling.withConflictColumns(key);
+	}
+
+	/**
+	 * Columnas de conflicto explícitas con el nombre real del destino: se escriben a mano y se comparan sin
+	 * mayúsculas, pero van entre comillas en el ON CONFLICT, donde {@code "ID"} no es la columna {@code id}.
+	 */
+	static List<String> canonicalConflictColumns(List<String> columns, String schema, String table,
+			Set<String> allowedColumnsLower, Map<String, ColumnMeta> columnMetaByLower) {
+		Set<String> known = allowedColumnsLower != null && !allowedColumnsLower.isEmpty() ? allowedColumnsLower
+				: columnMetaByLower != null ? columnMetaByLower.keySet() : Set.of();
+		List<String> canonical = new ArrayList<>(columns.size());
+		for (String col : columns) {
+			String lower = col.toLowerCase();
+			if (!known.isEmpty() && !known.contains(lower)) {
+				throw new IllegalArgumentException("Columna de conflicto '" + col + "' no existe en " + schema + "."
+						+ table);
+			}
+			ColumnMeta meta = columnMetaByLower == null ? null : columnMetaByLower.get(lower);
+			canonical.add(meta != null && meta.name() != null ? meta.name() : col);
+		}
+		return canonical;
+	}
+
+	/**
+	 * PK y restricciones únicas (sin índices parciales ni de expresión). Se prefiere una clave sin columnas
+	 * autogeneradas: las filas migradas no traen esos valores, así que una PK serial nunca chocaría.
+	 */
+	private List<String> discoverConflictColumns(Connection c, String schema, String table,
+			Map<String, ColumnMeta> columnMetaByLower) throws SQLException {
+		var md = c.getMetaData();
+		List<List<String>> candidates = new ArrayList<>();
+		Map<Short, String> pk = new java.util.TreeMap<>();
+		try (ResultSet rs = md.getPrimaryKeys(null, schema, table)) {
+			while (rs.next()) {
+				pk.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+			}
+		}
+		if (!pk.isEmpty()) {
+			candidates.add(new ArrayList<>(pk.values()));
+		}
+		Map<String, Map<Short, String>> uniques = new LinkedHashMap<>();
+		Set<String> skipped = new java.util.HashSet<>();
+		try (ResultSet rs = md.getIndexInfo(null, schema, table, true, false)) {
+			while (rs.next()) {
+				String index = rs.getString("INDEX_NAME");
+				if (index == null || rs.getShort("TYPE") == java.sql.DatabaseMetaData.tableIndexStatistic) {
+					continue;
+				}
+				String column = rs.getString("COLUMN_NAME");
+				if (column == null || getStringQuietly(rs, "FILTER_CONDITION") != null) {
+					skipped.add(index);
+					continue;
+				}
+				uniques.computeIfAbsent(index, k -> new java.util.TreeMap<>()).put(rs.getShort("ORDINAL_POSITION"),
+						column);
+			}
+		}
+		for (var e : uniques.entrySet()) {
+			List<String> cols = new ArrayList<>(e.getValue().values());
+			if (!skipped.contains(e.getKey()) && !candidates.contains(cols)) {
+				candidates.add(cols);
+			}
+		}
+		for (List<String> cols : candidates) {
+			if (cols.stream().noneMatch(col -> isAutoGenerated(columnMetaByLower, col))) {
+				return cols;
+			}
+		}
+		return candidates.isEmpty() ? List.of() : candidates.get(0);
+	}
+
+	private static boolean isAutoGenerated(Map<String, ColumnMeta> columnMetaByLower, String column) {
+		ColumnMeta meta = columnMetaByLower == null ? null : columnMetaByLower.get(column.toLowerCase());
+		return meta != null && (meta.autoIncrement() || meta.generated());
+	}
+
+	LoadResult executeSingle(PreparedStatement ps, List<Object> params, String schema, String table,
+			DuplicateHandling handling) throws SQLException {
+		for (int i = 0; i < params.size(); i++) {
+			ps.setObject(i + 1, params.get(i));
+		}
+		return resultForUpdateCount(ps.executeUpdate(), schema, table, handling);
+	}
+
+	LoadResult failureResult(Exception ex) {
+		return failureResult(ex, defaultDuplicateHandling());
+	}
+
+	LoadResult failureResult(Exception ex, DuplicateHandling handling) {
+		if (ex instanceof SQLException sqlEx && handling.skipsDuplicates() && isUniqueViolation(sqlEx)) {
+			return new LoadResult(true, "SKIP duplicado (unique_violation)");
+		}
+		return new LoadResult(false, ex.getClass().getSimpleName() + ": " + ex.getMessage());
+	}
+
+	LoadResult resultForUpdateCount(int updated, String schema, String table, DuplicateHandling handling) {
+		String verb = handling.upserts() ? "Upsert OK en " : "Insert OK en ";
+		if (updated == 1) {
+			return new LoadResult(true, verb + schema + "." + table + " (" + updated + ")");
+		}
+		if (updated == Statement.SUCCESS_NO_INFO) {
+			return new LoadResult(true, verb + schema + "." + table + " (batch)");
+		}
+		// En PostgreSQL con ON CONFLICT DO NOTHING, updated puede ser 0 si hubo duplicado.
+		if (updated == 0 && handling.policy() != MigratorProperties.DuplicatePolicy.ERROR) {
+			return new LoadResult(true, "SKIP duplicado (ya existe en " + schema + "." + table + ")");
+		}
+		return new LoadResult(false, "No se insertó la fila (updated=" + updated + ")");
+	}
+
+	/**
+	 * Conversores por columna (nombre en minúsculas), compilados una vez por sesión de carga.
+	 */
+	Map<String, ColumnConverter> compileConverters(Map<String, ColumnMeta> columnMetaByLower) {
+		Map<String, ColumnConverter> converters = new java.util.HashMap<>();
+		if (columnMetaByLower != null) {
+			for (var e : columnMetaByLower.entrySet()) {
+				converters.put(e.getKey(), typeAdapter.compile(e.getValue()));
+			}
+		}
+		return converters;
+	}
+
+	/**
+	 * Filtra por columnas permitidas, descarta autogeneradas y convierte cada valor al tipo del destino con
+	 * los conversores de la sesión.
+	 */
+	PreparedRow prepareRow(Map<String, Object> values, Set<String> allowedColumnsLower,
+			Map<String, ColumnMeta> columnMetaByLower, Map<String, ColumnConverter> converters) {
 		if (values == null || values.isEmpty()) {
-			return new LoadResult(false, "No hay columnas mapeadas para insertar");
+			return PreparedRow.failed("No hay columnas mapeadas para insertar");
 		}
 
 		// Filtrar por columnas permitidas (defensa fuerte)
@@ -58,67 +275,57 @@ public class UniversalTableLoader {
 			if (col.isEmpty()) {
 				continue;
 			}
+			String lower = col.toLowerCase();
 			if (allowedColumnsLower != null && !allowedColumnsLower.isEmpty()) {
-				if (!allowedColumnsLower.contains(col.toLowerCase())) {
+				if (!allowedColumnsLower.contains(lower)) {
 					continue;
 				}
 			}
 
 			// Si el destino marca la columna como autogenerada, NO la insertamos.
 			// Ej: id SERIAL/IDENTITY/AUTO_INCREMENT.
-			if (columnMetaByLower != null && !columnMetaByLower.isEmpty()) {
-				ColumnMeta meta = columnMetaByLower.get(col.toLowerCase());
-				if (meta != null && (meta.autoIncrement() || meta.generated())) {
-					continue;
-				}
+			ColumnMeta meta = columnMetaByLower == null ? null : columnMetaByLower.get(lower);
+			if (meta != null && (meta.autoIncrement() || meta.generated())) {
+				continue;
 			}
-			Object rawValue = e.getValue();
-			Object converted = rawValue;
-			if (columnMetaByLower != null && !columnMetaByLower.isEmpty()) {
-				ColumnMeta meta = columnMetaByLower.get(col.toLowerCase());
+			Object converted = e.getValue();
+			if (meta != null) {
+				ColumnConverter converter = converters == null ? null : converters.get(lower);
 				try {
-					converted = typeAdapter.convert(meta, rawValue);
+					converted = converter != null ? converter.convert(converted) : typeAdapter.convert(meta, converted);
 				} catch (Exception ex) {
-					return new LoadResult(false, "Columna '" + col + "': " + ex.getMessage());
+					return PreparedRow.failed("Columna '" + col + "': " + ex.getMessage());
 				}
 			}
 			columns.add(col);
 			params.add(converted);
 		}
 		if (columns.isEmpty()) {
-			return new LoadResult(false,
-					"No hay columnas válidas para insertar (revisá mapeos vs columnas reales del destino)");
+			return PreparedRow.failed("No hay columnas válidas para insertar (revisá mapeos vs columnas reales del destino)");
 		}
+		return new PreparedRow(columns, params, null);
+	}
 
-		try (Connection c = destino.getConnection()) {
-			String sql = buildInsertSql(c, safeSchema, safeTable, columns);
-			if (dryRun) {
-				return new LoadResult(true, "DRY RUN: " + sql);
-			}
-			try (PreparedStatement ps = c.prepareStatement(sql)) {
-			for (int i = 0; i < params.size(); i++) {
-				ps.setObject(i + 1, params.get(i));
-			}
-			int updated = ps.executeUpdate();
-			if (updated == 1) {
-				return new LoadResult(true, "Insert OK en " + safeSchema + "." + safeTable + " (" + updated + ")");
-			}
-			// En PostgreSQL con ON CONFLICT DO NOTHING, updated puede ser 0 si hubo duplicado.
-			if (updated == 0 && shouldSkipDuplicates()) {
-				return new LoadResult(true, "SKIP duplicado (ya existe en " + safeSchema + "." + safeTable + ")");
-			}
-			return new LoadResult(false, "No se insertó la fila (updated=" + updated + ")");
-			}
-		} catch (SQLException ex) {
-			if (shouldSkipDuplicates() && isUniqueViolation(ex)) {
-				return new LoadResult(true, "SKIP duplicado (unique_violation)");
-			}
-			return new LoadResult(false, ex.getClass().getSimpleName() + ": " + ex.getMessage());
-		} catch (Exception ex) {
-			return new LoadResult(false, ex.getClass().getSimpleName() + ": " + ex.getMessage());
+	record PreparedRow(List<String> columns, List<Object> params, LoadResult error) {
+		static PreparedRow failed(String message) {
+			return new PreparedRow(List.of(), List.of(), new LoadResult(false, message));
 		}
 	}
 
+	private int resolveBatchSize() {
+		if (properties == null || properties.getLoad() == null) {
+			return 500;
+		}
+		return Math.max(1, properties.getLoad().getBatchSize());
+	}
+
+	private int resolveCommitEvery() {
+		if (properties == null || properties.getLoad() == null) {
+			return 1000;
+		}
+		return Math.max(1, properties.getLoad().getCommitEvery());
+	}
+
 	public List<ColumnMeta> describeColumns(DataSource destino, String schema, String table) throws SQLException {
 		String safeSchema = (schema == null || schema.isBlank()) ? "public" : schema.trim();
 		String safeTable = table == null ? "" : table.trim();
@@ -209,7 +416,8 @@ public class UniversalTableLoader {
 		return cols;
 	}
 
-	private String buildInsertSql(Connection c, String schema, String table, List<String> columns) {
+	String buildInsertSql(String schema, String table, List<String> columns, boolean postgres,
+			DuplicateHandling handling) {
 		StringBuilder sb = new StringBuilder();
 		sb.append("insert into ");
 		sb.append(quoteIdent(schema)).append('.').append(quoteIdent(table));
@@ -224,25 +432,21 @@ public class UniversalTableLoader {
 			sb.append('?');
 		}
 		sb.append(')');
-
-		if (shouldSkipDuplicates() && isPostgres(c)) {
-			sb.append(" on conflict do nothing");
-		}
+		sb.append(handling.onConflictClause(columns, postgres));
 		return sb.toString();
 	}
 
-	private boolean shouldSkipDuplicates() {
-		try {
-			if (properties == null || properties.getPolicies() == null || properties.getPolicies().getDuplicatePolicy() == null) {
-				return true;
-			}
-			return properties.getPolicies().getDuplicatePolicy() == MigratorProperties.DuplicatePolicy.SKIP;
-		} catch (Exception ex) {
-			return true;
+	/**
+	 * Política de {@code migrator.policies.duplicatePolicy} (SKIP si no está configurada), sin columnas explícitas.
+	 */
+	public DuplicateHandling defaultDuplicateHandling() {
+		if (properties == null || properties.getPolicies() == null) {
+			return DuplicateHandling.of(MigratorProperties.DuplicatePolicy.SKIP);
 		}
+		return DuplicateHandling.of(properties.getPolicies().getDuplicatePolicy());
 	}
 
-	private static boolean isPostgres(Connection c) {
+	static boolean isPostgres(Connection c) {
 		if (c == null) {
 			return false;
 		}
@@ -259,7 +463,7 @@ public class UniversalTableLoader {
 		return ex != null && "23505".equals(ex.getSQLState());
 	}
 
-	private static String quoteIdent(String ident) {
+	static String quoteIdent(String ident) {
 		String s = ident == null ? "" : ident.trim();
 		// double quote escaping
 		s = s.replace("\"", "\"\"");
@@ -3,50 +3,94 @@ package com.multiservicios.migrator.load;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.text.ParsePosition;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalQuery;
+import java.util.List;
 
 import org.springframework.stereotype.Component;
 
 import com.multiservicios.migrator.model.ColumnMeta;
+import com.multiservicios.migrator.transform.NumberParser;
 
 @Component
 public class UniversalTypeAdapter {
+	private static final DateTimeFormatter DD_MM_UUUU = DateTimeFormatter.ofPattern("dd/MM/uuuu");
+	private static final DateTimeFormatter UUUU_MM_DD = DateTimeFormatter.ofPattern("uuuu-MM-dd");
+	private static final DateTimeFormatter UUUU_MM_DD_TIME = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss");
+	private static final DateTimeFormatter DD_MM_UUUU_TIME = DateTimeFormatter.ofPattern("dd/MM/uuuu HH:mm:ss");
+
+	private static final List<DateFormat<LocalDate>> DATE_FORMATS = List.of(
+			new DateFormat<>(DateTimeFormatter.ISO_LOCAL_DATE, LocalDate::from),
+			new DateFormat<>(DD_MM_UUUU, LocalDate::from),
+			new DateFormat<>(UUUU_MM_DD, LocalDate::from));
+
+	private static final List<DateFormat<LocalDateTime>> TIMESTAMP_FORMATS = List.of(
+			new DateFormat<>(DateTimeFormatter.ISO_LOCAL_DATE_TIME, LocalDateTime::from),
+			// timestamp con zona: se lleva a la hora local del servidor
+			new DateFormat<>(DateTimeFormatter.ISO_OFFSET_DATE_TIME,
+					t -> OffsetDateTime.from(t).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime()),
+			new DateFormat<>(UUUU_MM_DD_TIME, LocalDateTime::from),
+			new DateFormat<>(DD_MM_UUUU_TIME, LocalDateTime::from));
+
+	/**
+	 * Conversión puntual. Para convertir muchas filas conviene {@link #compile} una vez por columna.
+	 */
 	public Object convert(ColumnMeta meta, Object rawValue) {
 		if (rawValue == null) {
 			return null;
 		}
+		return compile(meta).convert(rawValue);
+	}
+
+	/**
+	 * Resuelve la conversión de la columna una sola vez (tipo JDBC, typeName, longitud máxima). Las columnas
+	 * de fecha recuerdan el último formato que funcionó y lo prueban primero en la fila siguiente.
+	 */
+	public ColumnConverter compile(ColumnMeta meta) {
 		if (meta == null) {
-			return rawValue;
+			return ColumnConverter.IDENTITY;
 		}
-
 		String typeName = meta.typeName() == null ? "" : meta.typeName().trim().toLowerCase();
 		if ("uuid".equals(typeName)) {
-			return toUuid(rawValue);
+			return nullSafe(UniversalTypeAdapter::toUuid);
 		}
 		if ("json".equals(typeName) || "jsonb".equals(typeName)) {
 			// best-effort: dejar String/Map tal cual y que el driver/DB haga coerción
-			return rawValue;
+			return ColumnConverter.IDENTITY;
 		}
 
 		return switch (meta.dataType()) {
-			case Types.INTEGER, Types.SMALLINT, Types.TINYINT -> toInteger(rawValue);
-			case Types.BIGINT -> toLong(rawValue);
-			case Types.NUMERIC, Types.DECIMAL -> toBigDecimal(rawValue);
-			case Types.REAL, Types.FLOAT, Types.DOUBLE -> toDouble(rawValue);
-			case Types.BIT, Types.BOOLEAN -> toBoolean(rawValue);
-			case Types.DATE -> toSqlDate(rawValue);
-			case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> toTimestamp(rawValue);
-			case Types.CHAR, Types.NCHAR, Types.VARCHAR, Types.NVARCHAR, Types.LONGVARCHAR, Types.LONGNVARCHAR ->
-					toVarchar(rawValue, meta.columnSize());
-			default -> rawValue;
+			case Types.INTEGER, Types.SMALLINT, Types.TINYINT -> nullSafe(UniversalTypeAdapter::toInteger);
+			case Types.BIGINT -> nullSafe(UniversalTypeAdapter::toLong);
+			case Types.NUMERIC, Types.DECIMAL -> nullSafe(UniversalTypeAdapter::toBigDecimal);
+			case Types.REAL, Types.FLOAT, Types.DOUBLE -> nullSafe(UniversalTypeAdapter::toDouble);
+			case Types.BIT, Types.BOOLEAN -> nullSafe(UniversalTypeAdapter::toBoolean);
+			case Types.DATE -> {
+				DateParser<LocalDate> parser = new DateParser<>(DATE_FORMATS, "Fecha inválida: '");
+				yield nullSafe(raw -> toSqlDate(raw, parser));
+			}
+			case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> {
+				DateParser<LocalDateTime> parser = new DateParser<>(TIMESTAMP_FORMATS, "Timestamp inválido: '");
+				yield nullSafe(raw -> toTimestamp(raw, parser));
+			}
+			case Types.CHAR, Types.NCHAR, Types.VARCHAR, Types.NVARCHAR, Types.LONGVARCHAR, Types.LONGNVARCHAR -> {
+				Integer maxLen = meta.columnSize();
+				yield nullSafe(raw -> toVarchar(raw, maxLen));
+			}
+			default -> ColumnConverter.IDENTITY;
 		};
 	}
 
+	private static ColumnConverter nullSafe(ColumnConverter converter) {
+		return raw -> raw == null ? null : converter.convert(raw);
+	}
+
 	private static Object toVarchar(Object raw, Integer maxLen) {
 		String s = raw instanceof String str ? str : String.valueOf(raw);
 		if (s.isEmpty()) {
@@ -94,16 +138,15 @@ public class UniversalTypeAdapter {
 		if (raw instanceof Number n) {
 			return n.longValue();
 		}
-		String s = normalizeNumberString(raw);
-		if (s == null) {
+		CharSequence s = asText(raw);
+		if (NumberParser.isBlank(s)) {
 			return null;
 		}
-		try {
-			BigDecimal bd = new BigDecimal(s);
-			return bd.longValue();
-		} catch (Exception ex) {
-			throw new IllegalArgumentException("Número entero inválido: '" + s + "'");
+		Long l = NumberParser.parseLongTruncated(s);
+		if (l == null) {
+			throw new IllegalArgumentException("Número entero inválido: '" + s.toString().trim() + "'");
 		}
+		return l;
 	}
 
 	private static BigDecimal toBigDecimal(Object raw) {
@@ -114,15 +157,15 @@ public class UniversalTypeAdapter {
 			// evitar problemas de punto flotante cuando venga Double
 			return new BigDecimal(String.valueOf(n));
 		}
-		String s = normalizeNumberString(raw);
-		if (s == null) {
+		CharSequence s = asText(raw);
+		if (NumberParser.isBlank(s)) {
 			return null;
 		}
-		try {
-			return new BigDecimal(s);
-		} catch (Exception ex) {
-			throw new IllegalArgumentException("Número decimal inválido: '" + s + "'");
+		BigDecimal bd = NumberParser.parseDecimal(s);
+		if (bd == null) {
+			throw new IllegalArgumentException("Número decimal inválido: '" + s.toString().trim() + "'");
 		}
+		return bd;
 	}
 
 	private static Double toDouble(Object raw) {
@@ -132,15 +175,20 @@ public class UniversalTypeAdapter {
 		if (raw instanceof Number n) {
 			return n.doubleValue();
 		}
-		String s = normalizeNumberString(raw);
-		if (s == null) {
+		CharSequence s = asText(raw);
+		if (NumberParser.isBlank(s)) {
 			return null;
 		}
-		try {
-			return Double.parseDouble(s);
-		} catch (Exception ex) {
-			throw new IllegalArgumentException("Número inválido: '" + s + "'");
+		// REAL/FLOAT/DOUBLE admiten NaN e infinitos
+		Double d = NumberParser.parseDouble(s);
+		if (d == null) {
+			throw new IllegalArgumentException("Número inválido: '" + s.toString().trim() + "'");
 		}
+		return d;
+	}
+
+	private static CharSequence asText(Object raw) {
+		return raw instanceof CharSequence cs ? cs : String.valueOf(raw);
 	}
 
 	private static Boolean toBoolean(Object raw) {
@@ -161,7 +209,7 @@ public class UniversalTypeAdapter {
 		};
 	}
 
-	private static java.sql.Date toSqlDate(Object raw) {
+	private static java.sql.Date toSqlDate(Object raw, DateParser<LocalDate> parser) {
 		if (raw instanceof java.sql.Date d) {
 			return d;
 		}
@@ -181,11 +229,11 @@ public class UniversalTypeAdapter {
 		if (s.isEmpty()) {
 			return null;
 		}
-		LocalDate parsed = parseLocalDate(s);
+		LocalDate parsed = parser.parse(s);
 		return java.sql.Date.valueOf(parsed);
 	}
 
-	private static Timestamp toTimestamp(Object raw) {
+	private static Timestamp toTimestamp(Object raw, DateParser<LocalDateTime> parser) {
 		if (raw instanceof Timestamp ts) {
 			return ts;
 		}
@@ -208,68 +256,70 @@ public class UniversalTypeAdapter {
 		if (s.isEmpty()) {
 			return null;
 		}
-		LocalDateTime parsed = parseLocalDateTime(s);
+		LocalDateTime parsed = parser.parse(s);
 		return Timestamp.valueOf(parsed);
 	}
 
-	private static LocalDate parseLocalDate(String s) {
-		try {
-			return LocalDate.parse(s);
-		} catch (Exception ignored) {
+	private record DateFormat<T>(DateTimeFormatter formatter, TemporalQuery<T> query) {
+		/**
+		 * Chequeo sin excepciones: el texto completo encaja con el patrón (los valores todavía no se validan).
+		 */
+		boolean matches(String s) {
+			ParsePosition pos = new ParsePosition(0);
+			return formatter.parseUnresolved(s, pos) != null && pos.getErrorIndex() < 0 && pos.getIndex() == s.length();
 		}
-		try {
-			return LocalDate.parse(s, DateTimeFormatter.ofPattern("dd/MM/uuuu"));
-		} catch (Exception ignored) {
-		}
-		try {
-			return LocalDate.parse(s, DateTimeFormatter.ofPattern("uuuu-MM-dd"));
-		} catch (Exception ignored) {
-		}
-		throw new IllegalArgumentException("Fecha inválida: '" + s + "'");
-	}
 
-	private static LocalDateTime parseLocalDateTime(String s) {
-		try {
-			// ISO_LOCAL_DATE_TIME
-			return LocalDateTime.parse(s);
-		} catch (Exception ignored) {
-		}
-		try {
-			// timestamp con zona (ISO_OFFSET_DATE_TIME)
-			OffsetDateTime odt = OffsetDateTime.parse(s);
-			return odt.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
-		} catch (Exception ignored) {
-		}
-		// formatos comunes
-		try {
-			return LocalDateTime.parse(s, DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss"));
-		} catch (Exception ignored) {
+		T parse(String s) {
+			return formatter.parse(s, query);
 		}
-		try {
-			return LocalDateTime.parse(s, DateTimeFormatter.ofPattern("dd/MM/uuuu HH:mm:ss"));
-		} catch (Exception ignored) {
-		}
-		throw new IllegalArgumentException("Timestamp inválido: '" + s + "'");
 	}
 
-	private static String normalizeNumberString(Object raw) {
-		String s = String.valueOf(raw);
-		if (s == null) {
-			return null;
+	/**
+	 * Parser de fechas de una columna. Las columnas suelen traer todas las filas en el mismo formato: el que
+	 * funcionó queda primero y la fila siguiente se parsea directo con él, sin chequeo previo. Solo si deja de
+	 * encajar se vuelven a probar los demás, con {@link DateFormat#matches} antes de parsear para no usar
+	 * excepciones como control de flujo.
+	 */
+	private static final class DateParser<T> {
+		private final List<DateFormat<T>> formats;
+		private final String errorPrefix;
+		private volatile int preferred = -1;
+
+		private DateParser(List<DateFormat<T>> formats, String errorPrefix) {
+			this.formats = formats;
+			this.errorPrefix = errorPrefix;
 		}
-		s = s.trim();
-		if (s.isEmpty()) {
-			return null;
+
+		T parse(String s) {
+			int current = preferred;
+			if (current >= 0) {
+				try {
+					return formats.get(current).parse(s);
+				} catch (Exception ignored) {
+					// cambió el formato (o el valor es inválido): se busca otro
+				}
+			}
+			for (int i = 0; i < formats.size(); i++) {
+				if (i == current) {
+					continue;
+				}
+				DateFormat<T> format = formats.get(i);
+				if (format.matches(s)) {
+					T value = parseOrFail(format, s);
+					preferred = i;
+					return value;
+				}
+			}
+			throw new IllegalArgumentException(errorPrefix + s + "'");
 		}
-		// normalizar separadores: "1.234,56" => "1234.56"
-		if (s.contains(",") && s.contains(".")) {
-			s = s.replace(".", "");
-			s = s.replace(",", ".");
-		} else if (s.contains(",") && !s.contains(".")) {
-			s = s.replace(",", ".");
+
+		private T parseOrFail(DateFormat<T> format, String s) {
+			try {
+				return format.parse(s);
+			} catch (Exception ex) {
+				// encaja con el patrón pero el valor no existe (ej. 31/02/2024)
+				throw new IllegalArgumentException(errorPrefix + s + "'");
+			}
 		}
-		// quitar espacios internos
-		s = s.replace(" ", "");
-		return s;
 	}
 }
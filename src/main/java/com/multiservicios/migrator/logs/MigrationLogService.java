@@ -1,32 +1,64 @@
 package com.multiservicios.migrator.logs;
 
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import org.springframework.stereotype.Service;
 
+import com.multiservicios.migrator.config.MigratorProperties;
+
+/**
+ * Logs de corrida: cada corrida escribe en su propio {@link RunLog}, así que dos corridas a la vez no se pisan
+ * ni compiten por un lock. Acá solo se registran para poder leerlos después por id (el del job). El log de un
+ * job se quita con {@link #discard} al limpiar el job; si además se juntan más de
+ * {@code migrator.logs.retainedRuns}, se descartan los más viejos de corridas ya terminadas (nunca el de un job
+ * en cola o en curso).
+ */
 @Service
 public class MigrationLogService {
-	private final List<MigrationLogEntry> entries = Collections.synchronizedList(new ArrayList<>());
+	private final MigratorProperties properties;
+	private final Map<UUID, RunLog> runs = new LinkedHashMap<>();
 
-	public void clear() {
-		entries.clear();
+	public MigrationLogService(MigratorProperties properties) {
+		this.properties = properties;
 	}
 
-	public void info(int rowNumber, String message) {
-		entries.add(new MigrationLogEntry(Instant.now(), rowNumber, "INFO", message));
+	/**
+	 * Log de una corrida sincrónica: no se registra (lo lee quien lo recibe) y no desplaza a los de los jobs.
+	 */
+	public RunLog start() {
+		return new RunLog(UUID.randomUUID(), properties.getLogs().getRunCapacity());
 	}
 
-	public void error(int rowNumber, String message) {
-		entries.add(new MigrationLogEntry(Instant.now(), rowNumber, "ERROR", message));
+	public synchronized RunLog start(UUID runId) {
+		RunLog log = new RunLog(runId, properties.getLogs().getRunCapacity());
+		runs.put(runId, log);
+		int retained = Math.max(1, properties.getLogs().getRetainedRuns());
+		var it = runs.values().iterator();
+		while (runs.size() > retained && it.hasNext()) {
+			if (it.next().isFinished()) {
+				it.remove();
+			}
+		}
+		return log;
 	}
 
-	public List<MigrationLogEntry> snapshot() {
-		synchronized (entries) {
-			return List.copyOf(entries);
+	/**
+	 * Entradas del log de la corrida, o vacío si ya no se conserva.
+	 */
+	public List<MigrationLogEntry> snapshot(UUID runId) {
+		RunLog log;
+		synchronized (this) {
+			log = runs.get(runId);
 		}
+		return log == null ? List.of() : log.snapshot();
+	}
+
+	public synchronized void discard(UUID runId) {
+		runs.remove(runId);
 	}
 
 	public record MigrationLogEntry(Instant at, int rowNumber, String level, String message) {
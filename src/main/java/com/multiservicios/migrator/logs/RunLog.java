@@ -0,0 +1,89 @@
+package com.multiservicios.migrator.logs;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.multiservicios.migrator.logs.MigrationLogService.MigrationLogEntry;
+
+/**
+ * Log de una sola corrida: un buffer circular sin locks. Cada entrada toma su número con un
+ * {@code getAndIncrement} y se escribe en su casillero con un compare-and-set, así que los loaders del pipeline
+ * registran en paralelo sin esperarse entre sí. Al llenarse, las entradas nuevas pisan a las más viejas y nunca
+ * al revés.
+ *
+ * El snapshot devuelve las entradas vigentes en orden de llegada; si hubo descartes lo avisa en la primera
+ * línea. Una entrada que todavía se está escribiendo puede no aparecer en ese snapshot.
+ */
+public final class RunLog {
+	private final UUID id;
+	private final int capacity;
+	private final AtomicReferenceArray<Slot> slots;
+	private final AtomicLong next = new AtomicLong();
+	private volatile boolean finished;
+
+	private record Slot(long seq, MigrationLogEntry entry) {
+	}
+
+	RunLog(UUID id, int capacity) {
+		this.id = id;
+		this.capacity = Math.max(1, capacity);
+		this.slots = new AtomicReferenceArray<>(this.capacity);
+	}
+
+	public UUID getId() {
+		return id;
+	}
+
+	public void info(int rowNumber, String message) {
+		append(new MigrationLogEntry(Instant.now(), rowNumber, "INFO", message));
+	}
+
+	public void error(int rowNumber, String message) {
+		append(new MigrationLogEntry(Instant.now(), rowNumber, "ERROR", message));
+	}
+
+	/**
+	 * La corrida terminó: desde acá el registro puede descartar este log para hacer lugar a otros.
+	 */
+	public void markFinished() {
+		finished = true;
+	}
+
+	boolean isFinished() {
+		return finished;
+	}
+
+	private void append(MigrationLogEntry entry) {
+		long seq = next.getAndIncrement();
+		int index = (int) (seq % capacity);
+		Slot slot = new Slot(seq, entry);
+		// un escritor demorado no pisa a uno más nuevo que ya dio la vuelta al buffer: su entrada se descarta
+		for (Slot current = slots.get(index); current == null || current.seq() < seq; current = slots.get(index)) {
+			if (slots.compareAndSet(index, current, slot)) {
+				return;
+			}
+		}
+	}
+
+	public List<MigrationLogEntry> snapshot() {
+		long end = next.get();
+		long start = Math.max(0, end - capacity);
+		List<MigrationLogEntry> entries = new ArrayList<>((int) (end - start) + 1);
+		if (start > 0) {
+			entries.add(new MigrationLogEntry(Instant.now(), 0, "INFO", "Se descartaron las " + start
+					+ " entradas más viejas del log (se conservan las últimas " + capacity + ")"));
+		}
+		for (long seq = start; seq < end; seq++) {
+			Slot slot = slots.get((int) (seq % capacity));
+			// el casillero puede estar a medio escribir o ya pisado por una entrada más nueva
+			if (slot != null && slot.seq() == seq) {
+				entries.add(slot.entry());
+			}
+		}
+		return entries;
+	}
+}
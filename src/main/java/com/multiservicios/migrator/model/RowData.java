@@ -1,35 +1,131 @@
 package com.multiservicios.migrator.model;
 
-import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
 
+/**
+ * Fila del origen: un {@code Object[]} con los valores y el {@link RowSchema} compartido por todo el resultado.
+ * Las búsquedas por nombre (exacto o ignorando mayúsculas) son O(1) sobre el índice del schema.
+ */
 public class RowData {
-	private final Map<String, Object> values;
+	private final RowSchema schema;
+	private final Object[] values;
+	private Map<String, Object> view;
 
 	public RowData(Map<String, Object> values) {
-		this.values = Collections.unmodifiableMap(new LinkedHashMap<>(Objects.requireNonNull(values, "values")));
+		Objects.requireNonNull(values, "values");
+		this.schema = RowSchema.of(values.keySet());
+		this.values = values.values().toArray();
 	}
 
+	/**
+	 * @param values valores en el orden del schema; la fila se queda con el array (no se copia ni se modifica)
+	 */
+	public RowData(RowSchema schema, Object[] values) {
+		this.schema = Objects.requireNonNull(schema, "schema");
+		this.values = Objects.requireNonNull(values, "values");
+		if (values.length != schema.size()) {
+			throw new IllegalArgumentException(
+					"La fila tiene " + values.length + " valores y el schema " + schema.size() + " columnas");
+		}
+	}
+
+	public RowSchema schema() {
+		return schema;
+	}
+
+	public Object valueAt(int index) {
+		return values[index];
+	}
+
+	/**
+	 * Vista de solo lectura columna→valor (en el orden del resultado), sin copiar los valores.
+	 */
 	public Map<String, Object> values() {
-		return values;
+		Map<String, Object> v = view;
+		if (v == null) {
+			v = new RowView();
+			view = v;
+		}
+		return v;
 	}
 
 	public Object get(String columnName) {
-		if (columnName == null) {
-			return null;
+		int idx = schema.indexOf(columnName);
+		return idx < 0 ? null : values[idx];
+	}
+
+	private final class RowView extends AbstractMap<String, Object> {
+		@Override
+		public int size() {
+			return values.length;
 		}
-		Object direct = values.get(columnName);
-		if (direct != null || values.containsKey(columnName)) {
-			return direct;
+
+		@Override
+		public boolean containsKey(Object key) {
+			return schema.indexOfExact(key) >= 0;
 		}
-		for (var entry : values.entrySet()) {
-			String key = entry.getKey();
-			if (key != null && key.equalsIgnoreCase(columnName)) {
-				return entry.getValue();
-			}
+
+		@Override
+		public Object get(Object key) {
+			int idx = schema.indexOfExact(key);
+			return idx < 0 ? null : values[idx];
+		}
+
+		@Override
+		public Set<String> keySet() {
+			return new AbstractSet<>() {
+				@Override
+				public int size() {
+					return values.length;
+				}
+
+				@Override
+				public boolean contains(Object o) {
+					return schema.indexOfExact(o) >= 0;
+				}
+
+				@Override
+				public Iterator<String> iterator() {
+					return schema.names().iterator();
+				}
+			};
+		}
+
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return new AbstractSet<>() {
+				@Override
+				public int size() {
+					return values.length;
+				}
+
+				@Override
+				public Iterator<Entry<String, Object>> iterator() {
+					return new Iterator<>() {
+						private int next;
+
+						@Override
+						public boolean hasNext() {
+							return next < values.length;
+						}
+
+						@Override
+						public Entry<String, Object> next() {
+							if (next >= values.length) {
+								throw new NoSuchElementException();
+							}
+							int i = next++;
+							return new SimpleImmutableEntry<>(schema.name(i), values[i]);
+						}
+					};
+				}
+			};
 		}
-		return null;
 	}
 }
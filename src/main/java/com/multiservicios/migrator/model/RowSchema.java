@@ -0,0 +1,96 @@
+package com.multiservicios.migrator.model;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Columnas de un resultado, compartidas por todas sus filas: nombres, tipos JDBC y un índice nombre→posición
+ * (exacto y case-insensitive) calculado una sola vez. Cada {@link RowData} guarda solo su {@code Object[]}.
+ *
+ * Los nombres deben ser únicos (el extractor resuelve los repetidos antes de armar el schema).
+ */
+public final class RowSchema {
+	private final String[] names;
+	private final int[] jdbcTypes;
+	private final Map<String, Integer> indexByName;
+	private final Map<String, Integer> indexByLower;
+	private final List<String> nameList;
+
+	public RowSchema(String[] names, int[] jdbcTypes) {
+		Objects.requireNonNull(names, "names");
+		this.names = names.clone();
+		this.jdbcTypes = jdbcTypes == null ? filled(names.length, Types.OTHER) : jdbcTypes.clone();
+		if (this.jdbcTypes.length != this.names.length) {
+			throw new IllegalArgumentException("names y jdbcTypes deben tener el mismo largo");
+		}
+		Map<String, Integer> exact = new HashMap<>(Math.max(4, names.length * 2));
+		Map<String, Integer> lower = new HashMap<>(Math.max(4, names.length * 2));
+		for (int i = 0; i < names.length; i++) {
+			if (exact.putIfAbsent(names[i], i) != null) {
+				throw new IllegalArgumentException("Columna repetida en el schema: " + names[i]);
+			}
+			if (names[i] != null) {
+				// si dos columnas difieren solo en mayúsculas, gana la primera (igual que el recorrido anterior)
+				lower.putIfAbsent(names[i].toLowerCase(Locale.ROOT), i);
+			}
+		}
+		this.indexByName = exact;
+		this.indexByLower = lower;
+		this.nameList = Collections.unmodifiableList(Arrays.asList(this.names));
+	}
+
+	public static RowSchema of(Collection<String> names) {
+		return new RowSchema(names.toArray(String[]::new), null);
+	}
+
+	public int size() {
+		return names.length;
+	}
+
+	public String name(int index) {
+		return names[index];
+	}
+
+	public int jdbcType(int index) {
+		return jdbcTypes[index];
+	}
+
+	public List<String> names() {
+		return nameList;
+	}
+
+	/**
+	 * Posición de la columna: primero por nombre exacto y si no, ignorando mayúsculas. -1 si no existe.
+	 */
+	public int indexOf(String name) {
+		if (name == null) {
+			return -1;
+		}
+		Integer idx = indexByName.get(name);
+		if (idx == null) {
+			idx = indexByLower.get(name.toLowerCase(Locale.ROOT));
+		}
+		return idx == null ? -1 : idx;
+	}
+
+	/**
+	 * Posición por nombre exacto (semántica de {@link Map#get}). -1 si no existe.
+	 */
+	int indexOfExact(Object name) {
+		Integer idx = indexByName.get(name);
+		return idx == null ? -1 : idx;
+	}
+
+	private static int[] filled(int length, int value) {
+		int[] a = new int[length];
+		Arrays.fill(a, value);
+		return a;
+	}
+}
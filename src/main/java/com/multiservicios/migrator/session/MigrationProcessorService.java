@@ -1,14 +1,20 @@
 package com.multiservicios.migrator.session;
 
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.springframework.stereotype.Service;
 
 import com.multiservicios.migrator.config.MigratorProperties;
 import com.multiservicios.migrator.client.MultiServiciosProductoClient;
 import com.multiservicios.migrator.dto.CreateProductoResponse;
-import com.multiservicios.migrator.dto.ProductoCreateRequest;
+import com.multiservicios.migrator.dto.CreateProductosResponse;
 import com.multiservicios.migrator.transform.ProductoTransformService;
 
 @Service
@@ -31,45 +37,176 @@ public class MigrationProcessorService {
 
 	public MigrationSessionStatus runNext(UUID sessionId, boolean dryRun) {
 		MigrationSession session = bufferService.getRequired(sessionId);
-		BufferedRow bufferedRow = session.pollNext();
-		if (bufferedRow == null) {
+		BufferedRow bufferedRow = session.claimNext();
+		if (bufferedRow != null) {
+			process(session, bufferedRow, dryRun, maxAttempts());
+		}
+		return bufferService.status(sessionId, 50);
+	}
+
+	public MigrationSessionStatus runAll(UUID sessionId, boolean dryRun, Integer maxItems) {
+		return runAll(sessionId, dryRun, maxItems, null);
+	}
+
+	/**
+	 * Procesa hasta {@code maxItems} intentos (por defecto, lo pendiente al empezar) con hasta {@code parallelism}
+	 * envíos simultáneos al destino (acotado por {@code migrator.session.maxParallelism}). Igual que la versión secuencial, el presupuesto cuenta intentos: una fila
+	 * reencolada para reintento consume otro intento del mismo presupuesto.
+	 */
+	public MigrationSessionStatus runAll(UUID sessionId, boolean dryRun, Integer maxItems, Integer parallelism) {
+		MigrationSession session = bufferService.getRequired(sessionId);
+		int pendingAtStart = session.getPendingCount();
+		int limit = maxItems == null ? pendingAtStart : Math.max(0, maxItems);
+		int toProcess = Math.min(pendingAtStart, limit);
+		int workers = Math.max(1, parallelism == null ? properties.getSession().getParallelism() : parallelism);
+		// el request puede pedir más envíos simultáneos, pero no más de los que admite la configuración
+		workers = Math.min(workers, Math.max(1, properties.getSession().getMaxParallelism()));
+		int maxAttempts = maxAttempts();
+
+		int chunkSize = destinoBatchSize();
+
+		if (workers == 1) {
+			int launched = 0;
+			while (launched < toProcess) {
+				List<BufferedRow> next = session.claimNext(Math.min(chunkSize, toProcess - launched));
+				if (next.isEmpty()) {
+					break;
+				}
+				process(session, next, dryRun, maxAttempts);
+				launched += next.size();
+			}
 			return bufferService.status(sessionId, 50);
 		}
 
-		Map<String, Object> row = bufferedRow.getRow();
-		int maxAttempts = Math.max(1, properties.getSession().getMaxAttempts());
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			CompletionService<Void> done = new ExecutorCompletionService<>(executor);
+			int launched = 0;
+			int running = 0;
+			try {
+				while (launched < toProcess) {
+					if (running >= workers) {
+						done.take();
+						running--;
+						continue;
+					}
+					List<BufferedRow> next = session.claimNext(Math.min(chunkSize, toProcess - launched));
+					if (next.isEmpty()) {
+						// la cola puede estar vacía solo momentáneamente: una fila en vuelo puede volver a encolarse
+						if (running == 0) {
+							break;
+						}
+						done.take();
+						running--;
+						continue;
+					}
+					done.submit(() -> {
+						process(session, next, dryRun, maxAttempts);
+						return null;
+					});
+					launched += next.size();
+					running++;
+				}
+				while (running > 0) {
+					done.take();
+					running--;
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				executor.shutdownNow();
+			}
+		}
+		return bufferService.status(sessionId, 50);
+	}
 
+	private void process(MigrationSession session, List<BufferedRow> rows, boolean dryRun, int maxAttempts) {
+		if (rows.size() == 1) {
+			process(session, rows.get(0), dryRun, maxAttempts);
+		} else {
+			processBatch(session, rows, dryRun, maxAttempts);
+		}
+	}
+
+	/**
+	 * Un solo POST /api/productos/batch para el tramo. Las filas que no se pueden transformar fallan antes del
+	 * envío; si el request entero falla, cada fila registra el error (y se reintenta como en el modo por fila).
+	 */
+	private void processBatch(MigrationSession session, List<BufferedRow> rows, boolean dryRun, int maxAttempts) {
+		List<BufferedRow> sent = new ArrayList<>(rows.size());
+		List<Object> payloads = new ArrayList<>(rows.size());
+		try {
+			for (BufferedRow bufferedRow : rows) {
+				try {
+					payloads.add(transformService.toProductoMigrationDto(bufferedRow.getRow(), session.getRowBinding()));
+					sent.add(bufferedRow);
+				} catch (Exception ex) {
+					session.registerFailure(bufferedRow, ex.getClass().getSimpleName() + ": " + ex.getMessage(), null, maxAttempts);
+				}
+			}
+			if (sent.isEmpty()) {
+				return;
+			}
+			CreateProductosResponse resp;
+			try {
+				resp = productoClient.createProductos(payloads, dryRun);
+			} catch (Exception ex) {
+				String msg = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+				for (BufferedRow bufferedRow : sent) {
+					session.registerFailure(bufferedRow, msg, null, maxAttempts);
+				}
+				return;
+			}
+			List<CreateProductosResponse.Item> items = resp == null || resp.items() == null ? List.of() : resp.items();
+			for (int i = 0; i < sent.size(); i++) {
+				BufferedRow bufferedRow = sent.get(i);
+				CreateProductosResponse.Item item = i < items.size() ? items.get(i) : null;
+				if (item == null) {
+					session.registerFailure(bufferedRow, "Respuesta sin resultado para la fila en el lote", null, maxAttempts);
+				} else if (item.success()) {
+					String details = item.id() == null ? null : ("id=" + item.id());
+					if (item.warnings() != null && !item.warnings().isEmpty()) {
+						details = (details == null ? "" : details + " | ") + "WARN: " + String.join("; ", item.warnings());
+					}
+					session.markOk(item.message(), details);
+				} else {
+					session.registerFailure(bufferedRow, item.message(), null, maxAttempts);
+				}
+			}
+		} finally {
+			session.release(rows.size());
+		}
+	}
+
+	private void process(MigrationSession session, BufferedRow bufferedRow, boolean dryRun, int maxAttempts) {
+		Map<String, Object> row = bufferedRow.getRow();
 		try {
 			Object payload = switch (properties.getDestino().getContract()) {
-				case NESTED -> transformService.toProductoMigrationDto(row);
-				case FLAT -> transformService.toCreateProductoRequest(row);
+				case NESTED -> transformService.toProductoMigrationDto(row, session.getRowBinding());
+				case FLAT -> transformService.toCreateProductoRequest(row, session.getRowBinding());
 			};
 			CreateProductoResponse resp = productoClient.createProducto(payload, dryRun);
 			if (resp == null) {
 				session.registerFailure(bufferedRow, "Respuesta null del destino", null, maxAttempts);
-				return bufferService.status(sessionId, 50);
-			}
-			if (resp.success()) {
+			} else if (resp.success()) {
 				session.markOk(resp.message(), resp.id() == null ? null : ("id=" + resp.id()));
-				return bufferService.status(sessionId, 50);
+			} else {
+				session.registerFailure(bufferedRow, resp.message(), null, maxAttempts);
 			}
-			session.registerFailure(bufferedRow, resp.message(), null, maxAttempts);
-			return bufferService.status(sessionId, 50);
 		} catch (Exception ex) {
 			session.registerFailure(bufferedRow, ex.getClass().getSimpleName() + ": " + ex.getMessage(), null, maxAttempts);
-			return bufferService.status(sessionId, 50);
+		} finally {
+			session.release();
 		}
 	}
 
-	public MigrationSessionStatus runAll(UUID sessionId, boolean dryRun, Integer maxItems) {
-		MigrationSession session = bufferService.getRequired(sessionId);
-		int pendingAtStart = session.getPendingCount();
-		int limit = maxItems == null ? pendingAtStart : Math.max(0, maxItems);
-		int toProcess = Math.min(pendingAtStart, limit);
-
-		for (int i = 0; i < toProcess; i++) {
-			runNext(sessionId, dryRun);
+	private int destinoBatchSize() {
+		// el endpoint batch recibe ProductoMigrationDto: solo aplica al contrato NESTED
+		if (properties.getDestino().getContract() != MigratorProperties.DestinoContract.NESTED) {
+			return 1;
 		}
-		return bufferService.status(sessionId, 50);
+		return Math.max(1, properties.getDestino().getBatchSize());
+	}
+
+	private int maxAttempts() {
+		return Math.max(1, properties.getSession().getMaxAttempts());
 	}
 }
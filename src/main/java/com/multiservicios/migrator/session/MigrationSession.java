@@ -8,12 +8,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import com.multiservicios.migrator.transform.ProductoRowBinding;
+
 public class MigrationSession {
 	private final UUID id;
 	private final Instant createdAt;
 	private final String origenProfile;
 	private final String sql;
 
+	private final ProductoRowBinding rowBinding;
+
 	private final Deque<BufferedRow> pendientes;
 	private final List<FailedRow> failed = new ArrayList<>();
 	private final List<MigrationLogEntry> logs = new ArrayList<>();
@@ -21,6 +25,7 @@ public class MigrationSession {
 	private int attempted;
 	private int ok;
 	private int error;
+	private int inFlight;
 
 	public MigrationSession(UUID id, String origenProfile, String sql, List<Map<String, Object>> rows) {
 		this.id = id;
@@ -28,6 +33,8 @@ public class MigrationSession {
 		this.origenProfile = origenProfile;
 		this.sql = sql;
 		this.pendientes = new ArrayDeque<>(rows == null ? List.of() : rows.stream().map(BufferedRow::new).toList());
+		// todas las filas salen del mismo SQL: los alias se resuelven una vez con las columnas de la primera
+		this.rowBinding = rows == null || rows.isEmpty() ? null : ProductoRowBinding.forKeys(rows.get(0).keySet());
 	}
 
 	public UUID getId() {
@@ -46,6 +53,13 @@ public class MigrationSession {
 		return sql;
 	}
 
+	/**
+	 * Alias del Extract Contract resueltos contra las columnas del SQL; null si la sesión no tiene filas.
+	 */
+	public ProductoRowBinding getRowBinding() {
+		return rowBinding;
+	}
+
 	public synchronized int getPendingCount() {
 		return pendientes.size();
 	}
@@ -76,10 +90,47 @@ public class MigrationSession {
 		return new ArrayList<>(logs.subList(from, logs.size()));
 	}
 
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
 	public synchronized BufferedRow pollNext() {
 		return pendientes.pollFirst();
 	}
 
+	/**
+	 * Como {@link #pollNext()}, pero cuenta la fila como "en vuelo" hasta {@link #release()}; así el status
+	 * refleja las filas que se están enviando cuando runAll procesa en paralelo.
+	 */
+	public synchronized BufferedRow claimNext() {
+		BufferedRow next = pendientes.pollFirst();
+		if (next != null) {
+			inFlight++;
+		}
+		return next;
+	}
+
+	/**
+	 * Hasta {@code max} filas de una vez (en orden), contadas como "en vuelo" hasta {@link #release(int)}.
+	 */
+	public synchronized List<BufferedRow> claimNext(int max) {
+		int n = Math.min(Math.max(0, max), pendientes.size());
+		List<BufferedRow> claimed = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			claimed.add(pendientes.pollFirst());
+		}
+		inFlight += n;
+		return claimed;
+	}
+
+	public synchronized void release() {
+		release(1);
+	}
+
+	public synchronized void release(int count) {
+		inFlight = Math.max(0, inFlight - count);
+	}
+
 	public synchronized void requeue(BufferedRow bufferedRow) {
 		if (bufferedRow != null) {
 			pendientes.addLast(bufferedRow);
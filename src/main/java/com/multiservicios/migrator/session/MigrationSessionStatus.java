@@ -10,6 +10,7 @@ public class MigrationSessionStatus {
 	private String origenProfile;
 	private String sql;
 	private int pending;
+	private int inFlight;
 	private int attempted;
 	private int ok;
 	private int error;
@@ -56,6 +57,14 @@ public class MigrationSessionStatus {
 		this.pending = pending;
 	}
 
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	public void setInFlight(int inFlight) {
+		this.inFlight = inFlight;
+	}
+
 	public int getAttempted() {
 		return attempted;
 	}
@@ -74,6 +74,7 @@ public class SqlBufferService {
 		st.setOrigenProfile(s.getOrigenProfile());
 		st.setSql(s.getSql());
 		st.setPending(s.getPendingCount());
+		st.setInFlight(s.getInFlight());
 		st.setAttempted(s.getAttempted());
 		st.setOk(s.getOk());
 		st.setError(s.getError());
@@ -12,6 +12,11 @@ public class RunAllRequest {
 
 	private Integer maxItems;
 
+	/**
+	 * Opcional: pisa migrator.session.parallelism para esta corrida (hasta migrator.session.maxParallelism).
+	 */
+	private Integer parallelism;
+
 	public Integer getMaxItems() {
 		return maxItems;
 	}
@@ -35,4 +40,12 @@ public class RunAllRequest {
 	public void setMaxItems(Integer maxItems) {
 		this.maxItems = maxItems;
 	}
+
+	public Integer getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(Integer parallelism) {
+		this.parallelism = parallelism;
+	}
 }
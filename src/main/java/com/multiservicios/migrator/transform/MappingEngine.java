@@ -1,19 +1,21 @@
 package com.multiservicios.migrator.transform;
 
-import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.stereotype.Component;
 
 import com.multiservicios.migrator.dto.ProductoMigrationDto;
 import com.multiservicios.migrator.model.FieldMapping;
 import com.multiservicios.migrator.model.RowData;
+import com.multiservicios.migrator.model.RowSchema;
 
 @Component
 public class MappingEngine {
 	private final RuleProcessor ruleProcessor;
+	private final PropertySetters setters = new PropertySetters(ProductoMigrationDto.class);
 
 	public MappingEngine(RuleProcessor ruleProcessor) {
 		this.ruleProcessor = ruleProcessor;
@@ -22,7 +24,6 @@ public class MappingEngine {
 	public ProductoMigrationDto mapToProducto(RowData row, List<FieldMapping> mappings) {
 		ProductoMigrationDto dto = new ProductoMigrationDto();
 		ensureNesting(dto);
-		BeanWrapper wrapper = new BeanWrapperImpl(dto);
 
 		for (FieldMapping mapping : mappings) {
 			if (mapping == null) {
@@ -36,123 +37,91 @@ public class MappingEngine {
 			if (target.isEmpty()) {
 				continue;
 			}
-			Object resolved = ruleProcessor.resolveValue(row, mapping);
-			setSafely(wrapper, target, resolved);
+			PropertySetters.Setter setter = setters.find(target);
+			if (setter == null) {
+				continue;
+			}
+			set(dto, target, setter, ruleProcessor.resolveValue(row, mapping));
 		}
 		return dto;
 	}
 
-	private void ensureNesting(ProductoMigrationDto dto) {
-		if (dto.getProducto() == null) {
-			dto.setProducto(new ProductoMigrationDto.ProductoDto());
-		}
-		if (dto.getStockPorDeposito() == null) {
-			dto.setStockPorDeposito(new java.util.ArrayList<>());
-		}
-		if (dto.getStockPorDeposito().isEmpty()) {
-			dto.getStockPorDeposito().add(new ProductoMigrationDto.StockPorDepositoDto());
-		}
+	/**
+	 * Compila los mapeos una vez por corrida (ver {@link RuleProcessor#compile}) y liga cada target a su setter
+	 * en {@link ProductoMigrationDto}. Rechaza targets que no existen (ver {@link #validateTargets}).
+	 */
+	public MappingPlan compile(List<FieldMapping> mappings, Collection<String> sourceColumns) {
+		requireValidTargets(mappings);
+		return ruleProcessor.compile(mappings, sourceColumns).bind(setters);
 	}
 
-	private void setSafely(BeanWrapper wrapper, String propertyPath, Object value) {
-		try {
-			Object coerced = coerceValueForTarget(wrapper, propertyPath, value);
-			wrapper.setPropertyValue(propertyPath, coerced);
-		} catch (Exception ignored) {
-			// la UI puede enviar targets inválidos; se reporta en logs por registro
-		}
+	public MappingPlan compile(List<FieldMapping> mappings, RowSchema schema) {
+		requireValidTargets(mappings);
+		return ruleProcessor.compile(mappings, schema).bind(setters);
 	}
 
-	private static Object coerceValueForTarget(BeanWrapper wrapper, String propertyPath, Object value) {
-		if (value == null) {
+	/**
+	 * Targets que no se pueden asignar en {@link ProductoMigrationDto} (propiedad inexistente, de solo lectura
+	 * o índice sobre algo que no es lista). Devuelve el mensaje de error, o null si todos son válidos.
+	 */
+	public String validateTargets(List<FieldMapping> mappings) {
+		if (mappings == null) {
 			return null;
 		}
-		Class<?> targetType;
-		try {
-			targetType = wrapper.getPropertyType(propertyPath);
-		} catch (Exception ex) {
-			return value;
-		}
-		if (targetType == null) {
-			return value;
-		}
-
-		if (BigDecimal.class.equals(targetType)) {
-			return asBigDecimalOrNull(value);
-		}
-		if (Long.class.equals(targetType)) {
-			return asLongOrNull(value);
-		}
-		if (Boolean.class.equals(targetType)) {
-			return asBooleanOrNull(value);
-		}
-		if (targetType.isEnum() && value instanceof String s) {
-			String t = s.trim();
-			if (t.isEmpty()) {
-				return null;
+		Set<String> errors = new LinkedHashSet<>();
+		for (FieldMapping mapping : mappings) {
+			if (mapping == null || mapping.getTarget() == null || mapping.getTarget().isBlank()) {
+				continue;
 			}
-			@SuppressWarnings({"rawtypes", "unchecked"})
-			Class<? extends Enum> enumType = (Class<? extends Enum>) targetType;
-			try {
-				return Enum.valueOf(enumType, t.toUpperCase());
-			} catch (Exception ex) {
-				return value;
+			String error = setters.error(mapping.getTarget().trim());
+			if (error != null) {
+				errors.add(error);
 			}
 		}
-		return value;
+		return errors.isEmpty() ? null : String.join("; ", errors);
 	}
 
-	private static BigDecimal asBigDecimalOrNull(Object value) {
-		if (value == null) {
-			return null;
-		}
-		if (value instanceof BigDecimal bd) {
-			return bd;
+	private void requireValidTargets(List<FieldMapping> mappings) {
+		String error = validateTargets(mappings);
+		if (error != null) {
+			throw new IllegalArgumentException(error);
 		}
-		if (value instanceof Number n) {
-			return new BigDecimal(String.valueOf(n));
-		}
-		String s = String.valueOf(value).trim();
-		if (s.isEmpty()) {
-			return null;
-		}
-		return new BigDecimal(s);
 	}
 
-	private static Long asLongOrNull(Object value) {
-		if (value == null) {
-			return null;
-		}
-		if (value instanceof Long l) {
-			return l;
-		}
-		if (value instanceof Integer i) {
-			return i.longValue();
-		}
-		if (value instanceof Number n) {
-			return n.longValue();
-		}
-		String s = String.valueOf(value).trim();
-		if (s.isEmpty()) {
-			return null;
+	/**
+	 * Lanza {@link IllegalArgumentException} si un valor no se puede convertir al tipo de su target.
+	 */
+	public ProductoMigrationDto mapToProducto(RowData row, MappingPlan plan) {
+		ProductoMigrationDto dto = new ProductoMigrationDto();
+		ensureNesting(dto);
+
+		MappingPlan bound = plan.isBound() ? plan : plan.bind(setters);
+		for (int i = 0; i < bound.size(); i++) {
+			set(dto, bound.target(i), bound.setter(i), bound.resolve(i, row));
 		}
-		return Long.parseLong(s);
+		return dto;
 	}
 
-	private static Boolean asBooleanOrNull(Object value) {
-		if (value == null) {
-			return null;
+	private void ensureNesting(ProductoMigrationDto dto) {
+		if (dto.getProducto() == null) {
+			dto.setProducto(new ProductoMigrationDto.ProductoDto());
 		}
-		if (value instanceof Boolean b) {
-			return b;
+		if (dto.getStockPorDeposito() == null) {
+			dto.setStockPorDeposito(new java.util.ArrayList<>());
 		}
-		if (value instanceof Number n) {
-			return n.intValue() != 0;
+		if (dto.getStockPorDeposito().isEmpty()) {
+			dto.getStockPorDeposito().add(new ProductoMigrationDto.StockPorDepositoDto());
 		}
-		String s = String.valueOf(value).trim();
-		if (s.isEmpty()) {
-			return null;
+	}
+
+	private static void set(ProductoMigrationDto dto, String target, PropertySetters.Setter setter, Object value) {
+		try {
+			setter.set(dto, value);
+		} catch (Error ex) {
+			throw ex;
+		} catch (Throwable ex) {
+			throw new IllegalArgumentException("No se pudo asignar '" + value + "' a " + target + ": "
+					+ ex.getClass().getSimpleName() + (ex.getMessage() == null ? "" : " " + ex.getMessage()), ex);
 		}
-		return Boolean.parseBoolean(s);
 	}
 }
@@ -0,0 +1,74 @@
+package com.multiservicios.migrator.transform;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import com.multiservicios.migrator.model.RowData;
+
+/**
+ * Mapeos ya compilados para un set de columnas de origen: targets recortados, columnas de origen resueltas
+ * (sin búsqueda case-insensitive por fila), literales y defaults pre-calculados, expresiones parseadas y
+ * reglas convertidas en funciones. Es inmutable y se puede compartir entre hilos.
+ *
+ * Se arma con {@link RuleProcessor#compile(List, Collection)} una vez por corrida. Para mapear a un DTO
+ * ({@link MappingEngine}) el plan se liga además a los setters de cada target, así que asignar un valor no
+ * busca la ruta por fila.
+ */
+public final class MappingPlan {
+	private final Step[] steps;
+	private final PropertySetters.Setter[] setters;
+
+	MappingPlan(List<Step> steps) {
+		this(steps.toArray(Step[]::new), null);
+	}
+
+	private MappingPlan(Step[] steps, PropertySetters.Setter[] setters) {
+		this.steps = steps;
+		this.setters = setters;
+	}
+
+	/**
+	 * El mismo plan con el setter de cada target resuelto en {@code propertySetters}. Falla si algún target no
+	 * es asignable.
+	 */
+	MappingPlan bind(PropertySetters propertySetters) {
+		PropertySetters.Setter[] resolved = new PropertySetters.Setter[steps.length];
+		for (int i = 0; i < steps.length; i++) {
+			resolved[i] = propertySetters.find(steps[i].target());
+			if (resolved[i] == null) {
+				throw new IllegalArgumentException(propertySetters.error(steps[i].target()));
+			}
+		}
+		return new MappingPlan(steps, resolved);
+	}
+
+	boolean isBound() {
+		return setters != null;
+	}
+
+	PropertySetters.Setter setter(int index) {
+		return setters[index];
+	}
+
+	public int size() {
+		return steps.length;
+	}
+
+	public String target(int index) {
+		return steps[index].target();
+	}
+
+	public Object resolve(int index, RowData row) {
+		Step step = steps[index];
+		return step.rule().apply(step.source().read(row));
+	}
+
+	@FunctionalInterface
+	interface ValueSource {
+		Object read(RowData row);
+	}
+
+	record Step(String target, ValueSource source, UnaryOperator<Object> rule) {
+	}
+}
@@ -0,0 +1,284 @@
+package com.multiservicios.migrator.transform;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Parser numérico compartido por las reglas ({@code toint}, {@code tolong}, {@code todecimal}) y por el
+ * {@code UniversalTypeAdapter}. Acepta las formas de origen habituales:
+ * <ul>
+ * <li>"1234.56" (punto decimal)</li>
+ * <li>"1234,56" (coma decimal)</li>
+ * <li>"1.234,56" (con coma y punto, los puntos son separadores de miles)</li>
+ * </ul>
+ * más signo, exponente ("1e3") y espacios, que se ignoran.
+ *
+ * Recorre el texto una vez acumulando dígitos en un long (hasta 18 dígitos, sin armar strings intermedios) y
+ * devuelve null ante un texto que no es número, en lugar de lanzar: el que llama arma su propio mensaje.
+ */
+public final class NumberParser {
+	private static final int MAX_LONG_DIGITS = 18;
+	private static final int MAX_EXPONENT = 100_000_000;
+	private static final long[] POW10 = new long[MAX_LONG_DIGITS + 1];
+
+	static {
+		POW10[0] = 1;
+		for (int i = 1; i < POW10.length; i++) {
+			POW10[i] = POW10[i - 1] * 10;
+		}
+	}
+
+	private NumberParser() {
+	}
+
+	/**
+	 * Vacío o solo espacios: para las reglas y el adapter equivale a null, no a un número inválido.
+	 */
+	public static boolean isBlank(CharSequence s) {
+		if (s == null) {
+			return true;
+		}
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Valor decimal con la escala escrita ("1,50" → 1.50). null si está en blanco o no es un número.
+	 */
+	public static BigDecimal parseDecimal(CharSequence s) {
+		Scan scan = scan(s);
+		if (scan == null) {
+			return null;
+		}
+		if (scan.digits <= MAX_LONG_DIGITS) {
+			return BigDecimal.valueOf(scan.negative ? -scan.unscaled : scan.unscaled, scan.scale);
+		}
+		return scan.toBigDecimal(s);
+	}
+
+	/**
+	 * Valor para una columna de punto flotante: como {@link #parseDecimal}, y además "NaN", "Infinity",
+	 * "-Infinity" (y "inf"/"-inf", como los acepta PostgreSQL), sin distinguir mayúsculas. null si está en blanco
+	 * o no es un número.
+	 */
+	public static Double parseDouble(CharSequence s) {
+		Double special = nonFinite(s);
+		if (special != null) {
+			return special;
+		}
+		BigDecimal bd = parseDecimal(s);
+		return bd == null ? null : bd.doubleValue();
+	}
+
+	private static Double nonFinite(CharSequence s) {
+		if (s == null) {
+			return null;
+		}
+		String t = s.toString().trim();
+		boolean negative = t.startsWith("-");
+		String name = negative || t.startsWith("+") ? t.substring(1) : t;
+		if (name.equalsIgnoreCase("infinity") || name.equalsIgnoreCase("inf")) {
+			return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+		}
+		if (t.equalsIgnoreCase("nan")) {
+			return Double.NaN;
+		}
+		return null;
+	}
+
+	/**
+	 * Entero exacto ("12", "12,0", "1.200"). null si está en blanco, no es un número, tiene parte decimal
+	 * distinta de cero o no entra en un long.
+	 */
+	public static Long parseLongExact(CharSequence s) {
+		Scan scan = scan(s);
+		if (scan == null) {
+			return null;
+		}
+		if (scan.digits > MAX_LONG_DIGITS) {
+			BigDecimal bd = scan.toBigDecimal(s);
+			return bd.signum() == 0 || bd.stripTrailingZeros().scale() <= 0 ? fitLong(bd.toBigInteger()) : null;
+		}
+		if (scan.scale > 0) {
+			if (scan.unscaled == 0) {
+				return 0L;
+			}
+			if (scan.scale > MAX_LONG_DIGITS || scan.unscaled % POW10[scan.scale] != 0) {
+				return null;
+			}
+			return scan.signed(scan.unscaled / POW10[scan.scale]);
+		}
+		return scan.scaledUp();
+	}
+
+	/**
+	 * Parte entera, descartando los decimales ("12,9" → 12). null si está en blanco, no es un número o no entra
+	 * en un long.
+	 */
+	public static Long parseLongTruncated(CharSequence s) {
+		Scan scan = scan(s);
+		if (scan == null) {
+			return null;
+		}
+		if (scan.digits > MAX_LONG_DIGITS) {
+			return fitLong(scan.toBigDecimal(s).toBigInteger());
+		}
+		if (scan.scale > 0) {
+			return scan.signed(scan.scale > MAX_LONG_DIGITS ? 0 : scan.unscaled / POW10[scan.scale]);
+		}
+		return scan.scaledUp();
+	}
+
+	private static Long fitLong(BigInteger value) {
+		return value.bitLength() < Long.SIZE ? value.longValue() : null;
+	}
+
+	/**
+	 * Recorrido único: dígitos al acumulador, separadores contados (la interpretación de punto/coma depende de si
+	 * aparecen los dos, y se resuelve al final), exponente opcional. null si está en blanco o es inválido.
+	 */
+	private static Scan scan(CharSequence s) {
+		if (s == null) {
+			return null;
+		}
+		int len = s.length();
+		boolean negative = false;
+		boolean signAllowed = true;
+		long unscaled = 0;
+		int digits = 0;
+		int significant = 0;
+		int dots = 0;
+		int commas = 0;
+		int digitsAfterDot = 0;
+		int digitsAfterComma = 0;
+		boolean inExponent = false;
+		boolean exponentNegative = false;
+		boolean exponentSignAllowed = false;
+		int exponentDigits = 0;
+		int exponent = 0;
+
+		for (int i = 0; i < len; i++) {
+			char c = s.charAt(i);
+			if (c <= ' ') {
+				// espacios: los del borde son el trim de siempre, los internos se ignoran ("1 234,5")
+				continue;
+			}
+			if (inExponent) {
+				if ((c == '+' || c == '-') && exponentSignAllowed) {
+					exponentNegative = c == '-';
+					exponentSignAllowed = false;
+				} else if (c >= '0' && c <= '9') {
+					exponent = exponent * 10 + (c - '0');
+					exponentDigits++;
+					exponentSignAllowed = false;
+					if (exponent > MAX_EXPONENT) {
+						return null;
+					}
+				} else {
+					return null;
+				}
+				continue;
+			}
+			if (c >= '0' && c <= '9') {
+				digits++;
+				if (significant > 0 || c != '0') {
+					// los ceros a la izquierda no cuentan para el límite del long
+					significant++;
+					if (significant <= MAX_LONG_DIGITS) {
+						unscaled = unscaled * 10 + (c - '0');
+					}
+				}
+				if (dots > 0) {
+					digitsAfterDot++;
+				}
+				if (commas > 0) {
+					digitsAfterComma++;
+				}
+				signAllowed = false;
+			} else if (c == '.') {
+				dots++;
+				digitsAfterDot = 0;
+				signAllowed = false;
+			} else if (c == ',') {
+				commas++;
+				signAllowed = false;
+			} else if ((c == '+' || c == '-') && signAllowed) {
+				negative = c == '-';
+				signAllowed = false;
+			} else if ((c == 'e' || c == 'E') && digits > 0) {
+				inExponent = true;
+				exponentSignAllowed = true;
+			} else {
+				return null;
+			}
+		}
+		if (digits == 0 || inExponent && exponentDigits == 0 || commas > 1) {
+			return null;
+		}
+		int scale;
+		if (commas == 1) {
+			// "1.234,56" o "1234,56": la coma es el separador decimal y los puntos se descartan
+			scale = digitsAfterComma;
+		} else if (dots > 1) {
+			return null;
+		} else {
+			scale = dots == 1 ? digitsAfterDot : 0;
+		}
+		Scan scan = new Scan();
+		scan.negative = negative;
+		scan.unscaled = unscaled;
+		scan.digits = significant;
+		scan.scale = scale - (exponentNegative ? -exponent : exponent);
+		return scan;
+	}
+
+	private static final class Scan {
+		private boolean negative;
+		private long unscaled;
+		private int digits;
+		private int scale;
+
+		private Long signed(long magnitude) {
+			return negative ? -magnitude : magnitude;
+		}
+
+		/**
+		 * Escala cero o negativa ("12e3"): el valor es unscaled * 10^-scale, si entra en un long.
+		 */
+		private Long scaledUp() {
+			int pow = -scale;
+			if (unscaled == 0) {
+				return 0L;
+			}
+			if (pow > MAX_LONG_DIGITS || unscaled > Long.MAX_VALUE / POW10[pow]) {
+				return null;
+			}
+			return signed(unscaled * POW10[pow]);
+		}
+
+		/**
+		 * Más de 18 dígitos significativos (poco habitual): se copian los dígitos a un char[] para el BigDecimal.
+		 */
+		private BigDecimal toBigDecimal(CharSequence s) {
+			char[] buf = new char[s.length() + 1];
+			int n = 0;
+			if (negative) {
+				buf[n++] = '-';
+			}
+			for (int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				if (c == 'e' || c == 'E') {
+					break;
+				}
+				if (c >= '0' && c <= '9') {
+					buf[n++] = c;
+				}
+			}
+			return new BigDecimal(buf, 0, n).scaleByPowerOfTen(-scale);
+		}
+	}
+}
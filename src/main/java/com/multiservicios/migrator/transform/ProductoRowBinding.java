@@ -0,0 +1,141 @@
+package com.multiservicios.migrator.transform;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolución de los alias del Extract Contract (nombre, precioMinorista, stock, ...) a las claves reales de las
+ * filas, hecha una vez a partir del set de columnas del SQL. Todas las filas de una sesión traen las mismas
+ * columnas, así que leer una fila es un solo recorrido de sus entradas con búsqueda exacta por clave, sin
+ * comparar con {@code equalsIgnoreCase} contra cada alias.
+ *
+ * El resultado es el mismo que buscar cada alias en la fila (primero exacto, después ignorando mayúsculas). Una
+ * fila con otras columnas (otro SQL, otra capitalización) se rechaza: hay que resolver su propio binding.
+ */
+public final class ProductoRowBinding {
+	private static final Object ABSENT = new Object();
+
+	enum Field {
+		TIPO("tipo"),
+		NOMBRE("nombre"),
+		CODIGO_BARRA("codigoBarra"),
+		PRECIO_MINORISTA("precioMinorista"),
+		PRECIO_DE_COMPRA("precioDeCompra"),
+		IVA_PERCENT("ivaPercent"),
+		MARCA_ID("marcaId"),
+		CATEGORIA_ID("categoriaId"),
+		UNIDAD_MEDIDA_ID("unidadMedidaId"),
+		STOCK("stock"),
+		STOCK_POR_DEPOSITO("stockPorDeposito"),
+		DEPOSITO_ID("depositoId");
+
+		private static final Field[] VALUES = values();
+
+		private final String alias;
+
+		Field(String alias) {
+			this.alias = alias;
+		}
+	}
+
+	/**
+	 * Clave real de la fila → campo que alimenta; las columnas que no son alias del contrato mapean a null.
+	 */
+	private final Map<String, Field> fieldByKey;
+
+	private ProductoRowBinding(Map<String, Field> fieldByKey) {
+		this.fieldByKey = fieldByKey;
+	}
+
+	/**
+	 * Por cada alias, la clave exacta si existe y si no la primera que coincide ignorando mayúsculas (mismo
+	 * criterio que la búsqueda por fila).
+	 */
+	public static ProductoRowBinding forKeys(Collection<String> keys) {
+		Map<String, Field> fieldByKey = new HashMap<>();
+		for (String key : keys) {
+			fieldByKey.put(key, null);
+		}
+		// se compara contra las claves y no con contains(): el keySet de un LinkedCaseInsensitiveMap (filas de
+		// JdbcTemplate) ya ignora mayúsculas y devolvería un alias que no es la clave real de la entrada
+		for (Field field : Field.VALUES) {
+			String bound = null;
+			for (String key : keys) {
+				if (field.alias.equals(key)) {
+					bound = key;
+					break;
+				}
+			}
+			if (bound == null) {
+				for (String key : keys) {
+					if (field.alias.equalsIgnoreCase(key)) {
+						bound = key;
+						break;
+					}
+				}
+			}
+			if (bound != null) {
+				fieldByKey.put(bound, field);
+			}
+		}
+		return new ProductoRowBinding(fieldByKey);
+	}
+
+	/**
+	 * Los valores de la fila por campo, en un recorrido. Lanza {@link IllegalArgumentException} si la fila no
+	 * trae exactamente las columnas con las que se resolvió el binding.
+	 */
+	BoundRow bind(Map<String, Object> row) {
+		if (row.size() != fieldByKey.size()) {
+			throw mismatch(row);
+		}
+		Object[] values = new Object[Field.VALUES.length];
+		Arrays.fill(values, ABSENT);
+		for (var entry : row.entrySet()) {
+			String key = entry.getKey();
+			Field field = fieldByKey.get(key);
+			if (field == null) {
+				if (!fieldByKey.containsKey(key)) {
+					throw mismatch(row);
+				}
+				continue;
+			}
+			values[field.ordinal()] = entry.getValue();
+		}
+		return new BoundRow(row, values);
+	}
+
+	private IllegalArgumentException mismatch(Map<String, Object> row) {
+		return new IllegalArgumentException("La fila trae las columnas " + row.keySet()
+				+ " y los alias se resolvieron para " + fieldByKey.keySet());
+	}
+
+	/**
+	 * Una fila vista por campo: {@link #has} equivale a que el SQL exponga el alias, {@link #get} a su valor.
+	 */
+	static final class BoundRow {
+		private final Map<String, Object> row;
+		private final Object[] values;
+
+		private BoundRow(Map<String, Object> row, Object[] values) {
+			this.row = row;
+			this.values = values;
+		}
+
+		boolean has(Field field) {
+			return values[field.ordinal()] != ABSENT;
+		}
+
+		Object get(Field field) {
+			Object value = values[field.ordinal()];
+			return value == ABSENT ? null : value;
+		}
+
+		Set<String> keys() {
+			return row.keySet();
+		}
+	}
+}
@@ -7,42 +7,50 @@ import java.util.Map;
 
 import org.springframework.stereotype.Service;
 
-import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.multiservicios.migrator.config.MigratorProperties;
 import com.multiservicios.migrator.dto.ProductoCreateRequest;
 import com.multiservicios.migrator.dto.ProductoCreateRequest.StockPorDepositoItem;
 import com.multiservicios.migrator.dto.ProductoMigrationDto;
 import com.multiservicios.migrator.dto.TipoItem;
+import com.multiservicios.migrator.transform.ProductoRowBinding.BoundRow;
+import com.multiservicios.migrator.transform.ProductoRowBinding.Field;
 
 @Service
 public class ProductoTransformService {
 	private final MigratorProperties properties;
-	private final ObjectMapper objectMapper;
+	private final StockItemsParser<StockPorDepositoItem> stockItems;
+	private final StockItemsParser<ProductoMigrationDto.StockPorDepositoDto> nestedStockItems;
 
 	public ProductoTransformService(MigratorProperties properties, ObjectMapper objectMapper) {
 		this.properties = properties;
-		this.objectMapper = objectMapper;
+		this.stockItems = new StockItemsParser<>(objectMapper, StockPorDepositoItem.class);
+		this.nestedStockItems = new StockItemsParser<>(objectMapper, ProductoMigrationDto.StockPorDepositoDto.class);
 	}
 
-	public ProductoCreateRequest toCreateProductoRequest(Map<String, Object> row) {
+	/**
+	 * Con {@code binding} (resuelto una vez por sesión, ver {@link ProductoRowBinding#forKeys}) cada alias se lee
+	 * sin buscarlo en la fila; null resuelve los alias para esta fila.
+	 */
+	public ProductoCreateRequest toCreateProductoRequest(Map<String, Object> row, ProductoRowBinding binding) {
 		if (row == null) {
 			throw new IllegalArgumentException("Fila null");
 		}
+		BoundRow r = bind(row, binding);
 
 		ProductoCreateRequest req = new ProductoCreateRequest();
 
-		String tipo = normalizeTipo(asString(getIgnoreCase(row, "tipo")));
+		String tipo = normalizeTipo(asString(r.get(Field.TIPO)));
 		if (tipo == null) {
 			tipo = "PRODUCTO";
 		}
 
-		validateExtractContractV1(row, tipo);
+		validateExtractContractV1(r, tipo);
 
 		req.setTipo(tipo);
-		req.setNombre(normalizeNombre(asString(getIgnoreCase(row, "nombre"))));
-		req.setPrecioMinorista(asBigDecimal(getIgnoreCase(row, "precioMinorista")));
-		req.setIvaPercent(asBigDecimal(getIgnoreCase(row, "ivaPercent")));
+		req.setNombre(normalizeNombre(asString(r.get(Field.NOMBRE))));
+		req.setPrecioMinorista(asBigDecimal(r.get(Field.PRECIO_MINORISTA)));
+		req.setIvaPercent(asBigDecimal(r.get(Field.IVA_PERCENT)));
 
 		// Regla: si tipo != PRODUCTO -> NO mandar stock
 		if (!"PRODUCTO".equalsIgnoreCase(tipo)) {
@@ -54,7 +62,7 @@ public class ProductoTransformService {
 		}
 
 		// Prioridad: si stockPorDeposito viene informado, NO mandar stock+depositoId
-		List<StockPorDepositoItem> stockPorDeposito = parseStockPorDeposito(getIgnoreCase(row, "stockPorDeposito"));
+		List<StockPorDepositoItem> stockPorDeposito = stockItems.parse(r.get(Field.STOCK_POR_DEPOSITO));
 		if (stockPorDeposito != null && !stockPorDeposito.isEmpty()) {
 			req.setStockPorDeposito(stockPorDeposito);
 			req.setDepositoId(null);
@@ -64,11 +72,11 @@ public class ProductoTransformService {
 		}
 
 		// Forma A (simple): deposito central + stock
-		BigDecimal stock = asBigDecimal(getIgnoreCase(row, "stock"));
+		BigDecimal stock = asBigDecimal(r.get(Field.STOCK));
 		if (stock == null) {
 			stock = BigDecimal.ZERO;
 		}
-		Long depositoId = asLong(getIgnoreCase(row, "depositoId"));
+		Long depositoId = asLong(r.get(Field.DEPOSITO_ID));
 		if (depositoId == null) {
 			depositoId = requiredDefault(properties.getDefaults().getDepositoCentralId(), "depositoCentralId");
 		}
@@ -80,12 +88,13 @@ public class ProductoTransformService {
 		return req;
 	}
 
-	public ProductoMigrationDto toProductoMigrationDto(Map<String, Object> row) {
+	public ProductoMigrationDto toProductoMigrationDto(Map<String, Object> row, ProductoRowBinding binding) {
 		if (row == null) {
 			throw new IllegalArgumentException("Fila null");
 		}
+		BoundRow r = bind(row, binding);
 
-		String tipoStr = normalizeTipo(asString(getIgnoreCase(row, "tipo")));
+		String tipoStr = normalizeTipo(asString(r.get(Field.TIPO)));
 		TipoItem tipo = TipoItem.PRODUCTO;
 		if (tipoStr != null) {
 			try {
@@ -95,22 +104,22 @@ public class ProductoTransformService {
 			}
 		}
 
-		validateExtractContractV1(row, tipo.name());
+		validateExtractContractV1(r, tipo.name());
 
 		ProductoMigrationDto dto = new ProductoMigrationDto();
 		ProductoMigrationDto.ProductoDto producto = new ProductoMigrationDto.ProductoDto();
 		producto.setTipo(tipo);
 
 		// Defaults del destino (cuando aplica) - se puede sobrescribir desde el SQL (aliases: marcaId/categoriaId/unidadMedidaId)
-		Long marcaId = asLong(getIgnoreCase(row, "marcaId"));
+		Long marcaId = asLong(r.get(Field.MARCA_ID));
 		if (marcaId == null) {
 			marcaId = requiredDefault(properties.getDefaults().getMarcaGenericaId(), "marcaGenericaId");
 		}
-		Long categoriaId = asLong(getIgnoreCase(row, "categoriaId"));
+		Long categoriaId = asLong(r.get(Field.CATEGORIA_ID));
 		if (categoriaId == null) {
 			categoriaId = requiredDefault(properties.getDefaults().getCategoriaGenericaId(), "categoriaGenericaId");
 		}
-		Long unidadMedidaId = asLong(getIgnoreCase(row, "unidadMedidaId"));
+		Long unidadMedidaId = asLong(r.get(Field.UNIDAD_MEDIDA_ID));
 		if (unidadMedidaId == null) {
 			unidadMedidaId = requiredDefault(properties.getDefaults().getUnidadMedidaGenericaId(), "unidadMedidaGenericaId");
 		}
@@ -118,11 +127,11 @@ public class ProductoTransformService {
 		producto.setCategoriaId(categoriaId);
 		producto.setUnidadMedidaId(unidadMedidaId);
 
-		producto.setNombre(normalizeNombre(asString(getIgnoreCase(row, "nombre"))));
-		producto.setCodigoBarra(normalizeCodigoBarra(asString(getIgnoreCase(row, "codigoBarra"))));
-		producto.setPrecioMinorista(asBigDecimal(getIgnoreCase(row, "precioMinorista")));
-		producto.setPrecioDeCompra(asBigDecimal(getIgnoreCase(row, "precioDeCompra")));
-		producto.setIvaPercent(asBigDecimal(getIgnoreCase(row, "ivaPercent")));
+		producto.setNombre(normalizeNombre(asString(r.get(Field.NOMBRE))));
+		producto.setCodigoBarra(normalizeCodigoBarra(asString(r.get(Field.CODIGO_BARRA))));
+		producto.setPrecioMinorista(asBigDecimal(r.get(Field.PRECIO_MINORISTA)));
+		producto.setPrecioDeCompra(asBigDecimal(r.get(Field.PRECIO_DE_COMPRA)));
+		producto.setIvaPercent(asBigDecimal(r.get(Field.IVA_PERCENT)));
 
 		dto.setProducto(producto);
 
@@ -136,7 +145,7 @@ public class ProductoTransformService {
 		}
 
 		// Prioridad: stockPorDeposito > stock
-		List<ProductoMigrationDto.StockPorDepositoDto> stockPorDeposito = parseStockPorDepositoNested(getIgnoreCase(row, "stockPorDeposito"));
+		List<ProductoMigrationDto.StockPorDepositoDto> stockPorDeposito = nestedStockItems.parse(r.get(Field.STOCK_POR_DEPOSITO));
 		if (stockPorDeposito != null && !stockPorDeposito.isEmpty()) {
 			dto.setStockPorDeposito(stockPorDeposito);
 			dto.setDepositoId(null);
@@ -145,11 +154,11 @@ public class ProductoTransformService {
 			return dto;
 		}
 
-		BigDecimal stock = asBigDecimal(getIgnoreCase(row, "stock"));
+		BigDecimal stock = asBigDecimal(r.get(Field.STOCK));
 		if (stock == null) {
 			stock = BigDecimal.ZERO;
 		}
-		Long depositoId = asLong(getIgnoreCase(row, "depositoId"));
+		Long depositoId = asLong(r.get(Field.DEPOSITO_ID));
 		if (depositoId == null) {
 			depositoId = requiredDefault(properties.getDefaults().getDepositoCentralId(), "depositoCentralId");
 		}
@@ -229,20 +238,20 @@ public class ProductoTransformService {
 		}
 	}
 
-	private static void validateExtractContractV1(Map<String, Object> row, String tipo) {
+	private static void validateExtractContractV1(BoundRow r, String tipo) {
 		List<String> missing = new ArrayList<>();
 		// Requeridos para el destino
-		if (!containsKeyIgnoreCase(row, "nombre")) {
+		if (!r.has(Field.NOMBRE)) {
 			missing.add("nombre");
 		}
-		if (!containsKeyIgnoreCase(row, "precioMinorista")) {
+		if (!r.has(Field.PRECIO_MINORISTA)) {
 			missing.add("precioMinorista");
 		}
 
 		// Para PRODUCTO, requerimos stock (Forma A) o stockPorDeposito (Forma B)
 		if ("PRODUCTO".equalsIgnoreCase(tipo)) {
-			boolean hasStock = containsKeyIgnoreCase(row, "stock");
-			boolean hasStockPorDeposito = containsKeyIgnoreCase(row, "stockPorDeposito");
+			boolean hasStock = r.has(Field.STOCK);
+			boolean hasStockPorDeposito = r.has(Field.STOCK_POR_DEPOSITO);
 			if (!hasStock && !hasStockPorDeposito) {
 				missing.add("stock (o stockPorDeposito)");
 			}
@@ -252,82 +261,12 @@ public class ProductoTransformService {
 		if (!missing.isEmpty()) {
 			throw new IllegalArgumentException(
 					"El SQL no expone los alias requeridos (Extract Contract v1): " + missing
-							+ "; aliases presentes: " + row.keySet());
+							+ "; aliases presentes: " + r.keys());
 		}
 	}
 
-	private List<StockPorDepositoItem> parseStockPorDeposito(Object value) {
-		if (value == null) {
-			return null;
-		}
-		if (value instanceof List<?> list) {
-			try {
-				JavaType type = objectMapper.getTypeFactory().constructCollectionType(List.class, StockPorDepositoItem.class);
-				return objectMapper.convertValue(list, type);
-			} catch (IllegalArgumentException ex) {
-				throw new IllegalArgumentException("No se pudo interpretar stockPorDeposito como lista de items: " + ex.getMessage());
-			}
-		}
-		String s = asString(value);
-		s = trimToNull(s);
-		if (s == null) {
-			return null;
-		}
-		try {
-			JavaType type = objectMapper.getTypeFactory().constructCollectionType(List.class, StockPorDepositoItem.class);
-			return objectMapper.readValue(s, type);
-		} catch (Exception ex) {
-			throw new IllegalArgumentException("No se pudo parsear stockPorDeposito (esperado JSON array): " + ex.getMessage());
-		}
-	}
-
-	private List<ProductoMigrationDto.StockPorDepositoDto> parseStockPorDepositoNested(Object value) {
-		if (value == null) {
-			return null;
-		}
-		if (value instanceof List<?> list) {
-			try {
-				JavaType type = objectMapper.getTypeFactory().constructCollectionType(List.class, ProductoMigrationDto.StockPorDepositoDto.class);
-				return objectMapper.convertValue(list, type);
-			} catch (IllegalArgumentException ex) {
-				throw new IllegalArgumentException("No se pudo interpretar stockPorDeposito como lista de items: " + ex.getMessage());
-			}
-		}
-		String s = asString(value);
-		s = trimToNull(s);
-		if (s == null) {
-			return null;
-		}
-		try {
-			JavaType type = objectMapper.getTypeFactory().constructCollectionType(List.class, ProductoMigrationDto.StockPorDepositoDto.class);
-			return objectMapper.readValue(s, type);
-		} catch (Exception ex) {
-			throw new IllegalArgumentException("No se pudo parsear stockPorDeposito (esperado JSON array): " + ex.getMessage());
-		}
-	}
-
-	private static boolean containsKeyIgnoreCase(Map<String, Object> row, String key) {
-		if (row.containsKey(key)) {
-			return true;
-		}
-		for (String k : row.keySet()) {
-			if (k != null && k.equalsIgnoreCase(key)) {
-				return true;
-			}
-		}
-		return false;
-	}
-
-	private static Object getIgnoreCase(Map<String, Object> row, String key) {
-		if (row.containsKey(key)) {
-			return row.get(key);
-		}
-		for (var entry : row.entrySet()) {
-			if (entry.getKey() != null && entry.getKey().equalsIgnoreCase(key)) {
-				return entry.getValue();
-			}
-		}
-		return null;
+	private static BoundRow bind(Map<String, Object> row, ProductoRowBinding binding) {
+		return (binding == null ? ProductoRowBinding.forKeys(row.keySet()) : binding).bind(row);
 	}
 
 	private static String asString(Object value) {
@@ -367,7 +306,7 @@ public class ProductoTransformService {
 		if (s == null) {
 			return null;
 		}
-		return s.trim().replaceAll("\\s+", " ").toUpperCase();
+		return collapseWhitespace(s).toUpperCase();
 	}
 
 	private static String normalizeTipo(String s) {
@@ -380,10 +319,74 @@ public class ProductoTransformService {
 		if (s == null) {
 			return null;
 		}
-		String compact = s.replaceAll("\\s+", "");
+		String compact = removeWhitespace(s);
 		return compact.isEmpty() ? null : compact;
 	}
 
+	/**
+	 * Equivale a {@code replaceAll("\\s+", " ")} sin regex; si no hay nada que colapsar devuelve el mismo string.
+	 */
+	private static String collapseWhitespace(String s) {
+		int len = s.length();
+		int i = 0;
+		// prefijo que ya está normalizado: sin espacios, o espacios simples
+		while (i < len) {
+			char c = s.charAt(i);
+			if (isRegexSpace(c) && (c != ' ' || i + 1 < len && isRegexSpace(s.charAt(i + 1)))) {
+				break;
+			}
+			i++;
+		}
+		if (i == len) {
+			return s;
+		}
+		StringBuilder sb = new StringBuilder(len).append(s, 0, i);
+		boolean inSpace = false;
+		for (; i < len; i++) {
+			char c = s.charAt(i);
+			if (isRegexSpace(c)) {
+				if (!inSpace) {
+					sb.append(' ');
+					inSpace = true;
+				}
+			} else {
+				sb.append(c);
+				inSpace = false;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Equivale a {@code replaceAll("\\s+", "")} sin regex.
+	 */
+	private static String removeWhitespace(String s) {
+		int len = s.length();
+		int i = 0;
+		while (i < len && !isRegexSpace(s.charAt(i))) {
+			i++;
+		}
+		if (i == len) {
+			return s;
+		}
+		StringBuilder sb = new StringBuilder(len).append(s, 0, i);
+		for (; i < len; i++) {
+			char c = s.charAt(i);
+			if (!isRegexSpace(c)) {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Los caracteres de {@code \s} en java.util.regex: espacio, tab, salto de línea, tab vertical, form feed y
+	 * retorno de carro.
+	 */
+	private static boolean isRegexSpace(char c) {
+		return c == ' ' || c >= '\t' && c <= '\r';
+	}
+
 	private static String trimToNull(String s) {
 		if (s == null) {
 			return null;
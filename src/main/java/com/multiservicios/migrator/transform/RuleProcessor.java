@@ -4,50 +4,156 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.UnaryOperator;
 
+import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ConcurrentLruCache;
 
 import com.multiservicios.migrator.config.MigratorProperties;
 import com.multiservicios.migrator.model.FieldMapping;
 import com.multiservicios.migrator.model.MappingType;
 import com.multiservicios.migrator.model.RowData;
+import com.multiservicios.migrator.model.RowSchema;
 
 @Component
 public class RuleProcessor {
+	private static final int EXPRESSION_CACHE_SIZE = 256;
+
 	private final MigratorProperties properties;
 	private final ExpressionParser spel = new SpelExpressionParser();
+	/**
+	 * MIXED: arranca interpretada y, tras unas evaluaciones, compila a bytecode. Si la versión compilada
+	 * falla SpEL vuelve sola al modo interpretado. Se usa solo para planes (una instancia por corrida):
+	 * el bytecode asume los tipos vistos al compilar y dentro de una corrida las columnas no cambian de tipo.
+	 */
+	private final ExpressionParser compilingSpel = new SpelExpressionParser(
+			new SpelParserConfiguration(SpelCompilerMode.MIXED, RuleProcessor.class.getClassLoader()));
+	/**
+	 * Expresiones interpretadas por texto, para la resolución suelta ({@link #resolveValue}) que antes
+	 * parseaba en cada fila.
+	 */
+	private final ConcurrentLruCache<String, Expression> expressions = new ConcurrentLruCache<>(EXPRESSION_CACHE_SIZE,
+			spel::parseExpression);
+	/**
+	 * El contexto de evaluación no es thread-safe pero sí reutilizable: uno por worker evita armarlo por fila
+	 * (y conserva sus cachés de resolvers/accessors).
+	 */
+	private final ThreadLocal<StandardEvaluationContext> evaluationContext = ThreadLocal
+			.withInitial(StandardEvaluationContext::new);
 
 	public RuleProcessor(MigratorProperties properties) {
 		this.properties = properties;
 	}
 
 	public Object resolveValue(RowData row, FieldMapping mapping) {
-		Object base;
-		if (mapping.getType() == null) {
-			base = directValue(row, mapping.getSource());
-		} else {
-			base = switch (mapping.getType()) {
-				case DIRECTO -> directValue(row, mapping.getSource());
-				case CONSTANTE -> mapping.getValue();
-				case EXPRESION -> evaluateExpression(row.values(), mapping.getValue());
-				case DEFAULT -> resolveDefault(mapping);
+		Object base = compileSource(mapping, row.schema(), false).read(row);
+		return compileRule(mapping.getRule()).apply(base);
+	}
+
+	/**
+	 * Compila los mapeos contra las columnas del origen: lo que antes se resolvía por fila (parseo de la regla,
+	 * trim de source/target, búsqueda case-insensitive de la columna, parseo de la expresión) se hace una vez.
+	 * Los mapeos nulos o sin target se descartan.
+	 */
+	public MappingPlan compile(List<FieldMapping> mappings, Collection<String> sourceColumns) {
+		return compile(mappings, RowSchema.of(sourceColumns == null ? List.of() : sourceColumns));
+	}
+
+	/**
+	 * Igual que {@link #compile(List, Collection)} pero resolviendo las columnas a posiciones del schema: con
+	 * filas de ese mismo schema la lectura es un acceso directo al array.
+	 */
+	public MappingPlan compile(List<FieldMapping> mappings, RowSchema schema) {
+		List<MappingPlan.Step> steps = new ArrayList<>();
+		if (mappings != null) {
+			for (FieldMapping mapping : mappings) {
+				if (mapping == null || mapping.getTarget() == null || mapping.getTarget().isBlank()) {
+					continue;
+				}
+				steps.add(new MappingPlan.Step(mapping.getTarget().trim(), compileSource(mapping, schema, true),
+						compileRule(mapping.getRule())));
+			}
+		}
+		return new MappingPlan(steps);
+	}
+
+	private MappingPlan.ValueSource compileSource(FieldMapping mapping, RowSchema schema, boolean forPlan) {
+		MappingType type = mapping.getType() == null ? MappingType.DIRECTO : mapping.getType();
+		return switch (type) {
+			case DIRECTO -> compileDirect(mapping.getSource(), schema);
+			case CONSTANTE -> constant(mapping.getValue());
+			case EXPRESION -> compileExpression(mapping.getValue(), forPlan);
+			case DEFAULT -> constant(resolveDefault(mapping));
+		};
+	}
+
+	private static MappingPlan.ValueSource constant(Object value) {
+		return row -> value;
+	}
+
+	private static MappingPlan.ValueSource compileDirect(String column, RowSchema schema) {
+		if (column == null) {
+			return constant(null);
+		}
+		String col = column.trim();
+		if (col.isEmpty()) {
+			return constant(null);
+		}
+		int idx = schema.indexOf(col);
+		if (idx >= 0) {
+			// Si la columna existe (aunque sea NULL), no la tratamos como literal.
+			String name = schema.name(idx);
+			return row -> row.schema() == schema ? row.valueAt(idx) : row.get(name);
+		}
+
+		// UX: permitir literales aunque el tipo sea DIRECTO.
+		// Ej: source="true" -> Boolean.TRUE, source="0" -> BigDecimal(0), source="'abc'" -> "abc".
+		return constant(parseLiteral(col));
+	}
+
+	private MappingPlan.ValueSource compileExpression(String expression, boolean forPlan) {
+		if (expression == null || expression.isBlank()) {
+			return constant(null);
+		}
+		Expression parsed;
+		try {
+			parsed = forPlan ? compilingSpel.parseExpression(expression) : expressions.get(expression);
+		} catch (ParseException ex) {
+			// el error se reporta por fila, igual que antes
+			return row -> {
+				throw ex;
 			};
 		}
-		return applyRule(base, mapping.getRule());
+		return row -> {
+			StandardEvaluationContext ctx = evaluationContext.get();
+			ctx.setVariable("row", row.values());
+			try {
+				return parsed.getValue(ctx);
+			} finally {
+				ctx.setVariable("row", null);
+			}
+		};
 	}
 
-	private Object applyRule(Object value, String ruleRaw) {
+	/**
+	 * Convierte la regla (ej: trim, toDecimal, toDate(yyyy-MM-dd), coalesce(0)) en una función. El nombre,
+	 * el argumento y el formato de fecha se resuelven una sola vez.
+	 */
+	private UnaryOperator<Object> compileRule(String ruleRaw) {
 		if (ruleRaw == null || ruleRaw.isBlank()) {
-			return value;
+			return UnaryOperator.identity();
 		}
 		String rule = ruleRaw.trim();
-		if (rule.isEmpty()) {
-			return value;
-		}
 
 		String name = rule;
 		String arg = null;
@@ -55,200 +161,180 @@ public class RuleProcessor {
 		if (p > 0 && rule.endsWith(")")) {
 			name = rule.substring(0, p).trim();
 			arg = rule.substring(p + 1, rule.length() - 1).trim();
-			if (arg != null && ((arg.startsWith("\"") && arg.endsWith("\"")) || (arg.startsWith("'") && arg.endsWith("'")))) {
+			if ((arg.startsWith("\"") && arg.endsWith("\"")) || (arg.startsWith("'") && arg.endsWith("'"))) {
 				arg = arg.substring(1, arg.length() - 1);
 			}
 		}
 
 		String key = name.toLowerCase();
 		return switch (key) {
-			case "now", "currenttimestamp", "current_timestamp" -> LocalDateTime.now();
-			case "today", "currentdate", "current_date" -> LocalDate.now();
-			case "trim" -> value == null ? null : String.valueOf(value).trim();
-			case "upper" -> value == null ? null : String.valueOf(value).toUpperCase();
-			case "lower" -> value == null ? null : String.valueOf(value).toLowerCase();
-			case "emptytonull" -> {
-				if (value == null) yield null;
-				String s = String.valueOf(value).trim();
-				yield s.isEmpty() ? null : s;
-			}
+			case "now", "currenttimestamp", "current_timestamp" -> value -> LocalDateTime.now();
+			case "today", "currentdate", "current_date" -> value -> LocalDate.now();
+			case "trim" -> value -> value == null ? null : String.valueOf(value).trim();
+			case "upper" -> value -> value == null ? null : String.valueOf(value).toUpperCase();
+			case "lower" -> value -> value == null ? null : String.valueOf(value).toLowerCase();
+			case "emptytonull" -> RuleProcessor::emptyToNull;
 			case "coalesce" -> {
-				if (value != null) {
-					if (!(value instanceof String)) yield value;
-					String s = ((String) value).trim();
-					if (!s.isEmpty()) yield value;
-				}
-				yield parseLiteral(arg);
-			}
-			case "toint" -> {
-				if (value == null) yield null;
-				if (value instanceof Number n) yield n.intValue();
-				String s = normalizeNumberString(value);
-				if (s == null) yield null;
-				try {
-					yield new BigDecimal(s).intValueExact();
-				} catch (Exception ex) {
-					throw new IllegalArgumentException("toInt: número inválido");
-				}
-			}
-			case "tolong" -> {
-				if (value == null) yield null;
-				if (value instanceof Number n) yield n.longValue();
-				String s = normalizeNumberString(value);
-				if (s == null) yield null;
-				try {
-					yield new BigDecimal(s).longValueExact();
-				} catch (Exception ex) {
-					throw new IllegalArgumentException("toLong: número inválido");
-				}
-			}
-			case "todecimal" -> {
-				if (value == null) yield null;
-				if (value instanceof BigDecimal bd) yield bd;
-				if (value instanceof Number n) yield new BigDecimal(String.valueOf(n));
-				String s = normalizeNumberString(value);
-				if (s == null) yield null;
-				try {
-					yield new BigDecimal(s);
-				} catch (Exception ex) {
-					throw new IllegalArgumentException("toDecimal: número inválido");
-				}
-			}
-			case "tobool", "toboolean" -> {
-				if (value == null) yield null;
-				if (value instanceof Boolean b) yield b;
-				String s = String.valueOf(value).trim().toLowerCase();
-				if (s.isEmpty()) yield null;
-				yield switch (s) {
-					case "1", "true", "t", "y", "yes", "s", "si", "sí" -> true;
-					case "0", "false", "f", "n", "no" -> false;
-					default -> throw new IllegalArgumentException("toBool: valor inválido");
-				};
+				Object fallback = parseLiteral(arg);
+				yield value -> coalesce(value, fallback);
 			}
+			case "toint" -> RuleProcessor::toInt;
+			case "tolong" -> RuleProcessor::toLong;
+			case "todecimal" -> RuleProcessor::toDecimal;
+			case "tobool", "toboolean" -> RuleProcessor::toBool;
 			case "todate" -> {
-				if (value == null) yield null;
-				if (value instanceof LocalDate ld) yield ld;
-				String s = String.valueOf(value).trim();
-				if (s.isEmpty()) yield null;
-				try {
-					if (arg == null || arg.isBlank()) yield LocalDate.parse(s);
-					yield LocalDate.parse(s, DateTimeFormatter.ofPattern(arg));
-				} catch (Exception ex) {
-					throw new IllegalArgumentException("toDate: fecha inválida");
-				}
+				DatePattern pattern = DatePattern.of(arg);
+				yield value -> toDate(value, pattern);
 			}
 			case "totimestamp", "todatetime" -> {
-				if (value == null) yield null;
-				if (value instanceof LocalDateTime ldt) yield ldt;
-				String s = String.valueOf(value).trim();
-				if (s.isEmpty()) yield null;
-				try {
-					if (arg == null || arg.isBlank()) yield LocalDateTime.parse(s);
-					yield LocalDateTime.parse(s, DateTimeFormatter.ofPattern(arg));
-				} catch (Exception ex) {
-					throw new IllegalArgumentException("toTimestamp: valor inválido");
-				}
+				DatePattern pattern = DatePattern.of(arg);
+				yield value -> toTimestamp(value, pattern);
 			}
-			default -> value;
+			default -> UnaryOperator.identity();
 		};
 	}
 
-	private static Object parseLiteral(String arg) {
-		if (arg == null) {
-			return null;
-		}
-		String s = arg.trim();
-		if (s.isEmpty()) {
-			return null;
-		}
-		String lower = s.toLowerCase();
-		if ("null".equals(lower)) {
+	private static Object emptyToNull(Object value) {
+		if (value == null) {
 			return null;
 		}
-		if ("true".equals(lower)) {
-			return true;
-		}
-		if ("false".equals(lower)) {
-			return false;
-		}
-		try {
-			String n = normalizeNumberString(s);
-			if (n != null) {
-				return new BigDecimal(n);
+		String s = String.valueOf(value).trim();
+		return s.isEmpty() ? null : s;
+	}
+
+	private static Object coalesce(Object value, Object fallback) {
+		if (value != null) {
+			if (!(value instanceof String)) {
+				return value;
+			}
+			String s = ((String) value).trim();
+			if (!s.isEmpty()) {
+				return value;
 			}
-		} catch (Exception ignored) {
 		}
-		return s;
+		return fallback;
 	}
 
-	private static String normalizeNumberString(Object raw) {
-		if (raw == null) {
-			return null;
+	private static Object toInt(Object value) {
+		if (value == null) return null;
+		if (value instanceof Number n) return n.intValue();
+		CharSequence s = asText(value);
+		if (NumberParser.isBlank(s)) return null;
+		Long l = NumberParser.parseLongExact(s);
+		if (l == null || l < Integer.MIN_VALUE || l > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("toInt: número inválido");
 		}
-		String s = String.valueOf(raw).trim();
-		if (s.isEmpty()) {
-			return null;
-		}
-		if (s.contains(",") && s.contains(".")) {
-			s = s.replace(".", "");
-			s = s.replace(",", ".");
-		} else if (s.contains(",") && !s.contains(".")) {
-			s = s.replace(",", ".");
-		}
-		s = s.replace(" ", "");
-		return s;
+		return l.intValue();
 	}
 
-	private Object directValue(RowData row, String column) {
-		if (column == null) {
-			return null;
-		}
-		String col = column.trim();
-		if (col.isEmpty()) {
-			return null;
-		}
-		Object v = row.get(col);
-		if (v != null) {
-			return v;
+	private static Object toLong(Object value) {
+		if (value == null) return null;
+		if (value instanceof Number n) return n.longValue();
+		CharSequence s = asText(value);
+		if (NumberParser.isBlank(s)) return null;
+		Long l = NumberParser.parseLongExact(s);
+		if (l == null) {
+			throw new IllegalArgumentException("toLong: número inválido");
 		}
+		return l;
+	}
 
-		// Si la columna existe (aunque sea NULL), no la tratamos como literal.
-		if (hasColumnIgnoreCase(row, col)) {
-			return null;
+	private static Object toDecimal(Object value) {
+		if (value == null) return null;
+		if (value instanceof BigDecimal bd) return bd;
+		if (value instanceof Number n) return new BigDecimal(String.valueOf(n));
+		CharSequence s = asText(value);
+		if (NumberParser.isBlank(s)) return null;
+		BigDecimal bd = NumberParser.parseDecimal(s);
+		if (bd == null) {
+			throw new IllegalArgumentException("toDecimal: número inválido");
 		}
+		return bd;
+	}
 
-		// UX: permitir literales aunque el tipo sea DIRECTO.
-		// Ej: source="true" -> Boolean.TRUE, source="0" -> BigDecimal(0), source="'abc'" -> "abc".
-		return parseLiteral(col);
+	private static CharSequence asText(Object value) {
+		return value instanceof CharSequence cs ? cs : String.valueOf(value);
 	}
 
-	private static boolean hasColumnIgnoreCase(RowData row, String column) {
-		if (row == null || column == null) {
-			return false;
+	private static Object toBool(Object value) {
+		if (value == null) return null;
+		if (value instanceof Boolean b) return b;
+		String s = String.valueOf(value).trim().toLowerCase();
+		if (s.isEmpty()) return null;
+		return switch (s) {
+			case "1", "true", "t", "y", "yes", "s", "si", "sí" -> true;
+			case "0", "false", "f", "n", "no" -> false;
+			default -> throw new IllegalArgumentException("toBool: valor inválido");
+		};
+	}
+
+	private static Object toDate(Object value, DatePattern pattern) {
+		if (value == null) return null;
+		if (value instanceof LocalDate ld) return ld;
+		String s = String.valueOf(value).trim();
+		if (s.isEmpty()) return null;
+		if (pattern.invalid()) {
+			throw new IllegalArgumentException("toDate: fecha inválida");
 		}
-		String col = column.trim();
-		if (col.isEmpty()) {
-			return false;
+		try {
+			return pattern.formatter() == null ? LocalDate.parse(s) : LocalDate.parse(s, pattern.formatter());
+		} catch (Exception ex) {
+			throw new IllegalArgumentException("toDate: fecha inválida");
 		}
-		Map<String, Object> values = row.values();
-		if (values.containsKey(col)) {
-			return true;
+	}
+
+	private static Object toTimestamp(Object value, DatePattern pattern) {
+		if (value == null) return null;
+		if (value instanceof LocalDateTime ldt) return ldt;
+		String s = String.valueOf(value).trim();
+		if (s.isEmpty()) return null;
+		if (pattern.invalid()) {
+			throw new IllegalArgumentException("toTimestamp: valor inválido");
+		}
+		try {
+			return pattern.formatter() == null ? LocalDateTime.parse(s) : LocalDateTime.parse(s, pattern.formatter());
+		} catch (Exception ex) {
+			throw new IllegalArgumentException("toTimestamp: valor inválido");
 		}
-		for (String k : values.keySet()) {
-			if (k != null && k.equalsIgnoreCase(col)) {
-				return true;
+	}
+
+	/**
+	 * Formato de fecha de la regla, resuelto una vez. Un patrón inválido no falla al compilar: cada fila con
+	 * valor lo reporta como dato inválido (mismo comportamiento que antes).
+	 */
+	private record DatePattern(DateTimeFormatter formatter, boolean invalid) {
+		static DatePattern of(String arg) {
+			if (arg == null || arg.isBlank()) {
+				return new DatePattern(null, false);
+			}
+			try {
+				return new DatePattern(DateTimeFormatter.ofPattern(arg), false);
+			} catch (Exception ex) {
+				return new DatePattern(null, true);
 			}
 		}
-		return false;
 	}
 
-	private Object evaluateExpression(Map<String, Object> row, String expression) {
-		if (expression == null || expression.isBlank()) {
+	private static Object parseLiteral(String arg) {
+		if (arg == null) {
 			return null;
 		}
-		StandardEvaluationContext ctx = new StandardEvaluationContext();
-		ctx.setVariable("row", row);
-		return spel.parseExpression(expression).getValue(ctx);
+		String s = arg.trim();
+		if (s.isEmpty()) {
+			return null;
+		}
+		String lower = s.toLowerCase();
+		if ("null".equals(lower)) {
+			return null;
+		}
+		if ("true".equals(lower)) {
+			return true;
+		}
+		if ("false".equals(lower)) {
+			return false;
+		}
+		BigDecimal n = NumberParser.parseDecimal(s);
+		return n != null ? n : s;
 	}
 
 	private Object resolveDefault(FieldMapping mapping) {
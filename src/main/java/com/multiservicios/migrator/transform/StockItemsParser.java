@@ -0,0 +1,113 @@
+package com.multiservicios.migrator.transform;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.postgresql.util.PGobject;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Lee la columna {@code stockPorDeposito} a una lista de items, con el reader y el tipo de lista armados una
+ * sola vez. Acepta lo que puede traer el origen:
+ * <ul>
+ * <li>texto JSON (array): se recorre en streaming y cada objeto se lee directo al item, sin árbol intermedio</li>
+ * <li>{@code json}/{@code jsonb} de PostgreSQL ({@link PGobject}) y {@code json[]}/{@code text[]}
+ * ({@link java.sql.Array}) tal como los entrega el driver</li>
+ * <li>List/Map ya deserializados (sesiones bufferizadas)</li>
+ * </ul>
+ */
+final class StockItemsParser<T> {
+	private final ObjectMapper objectMapper;
+	private final Class<T> itemType;
+	private final ObjectReader itemReader;
+	private final JavaType listType;
+
+	StockItemsParser(ObjectMapper objectMapper, Class<T> itemType) {
+		this.objectMapper = objectMapper;
+		this.itemType = itemType;
+		this.itemReader = objectMapper.readerFor(itemType);
+		this.listType = objectMapper.getTypeFactory().constructCollectionType(List.class, itemType);
+	}
+
+	List<T> parse(Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof List<?> list) {
+			try {
+				return objectMapper.convertValue(list, listType);
+			} catch (IllegalArgumentException ex) {
+				throw new IllegalArgumentException("No se pudo interpretar stockPorDeposito como lista de items: " + ex.getMessage());
+			}
+		}
+		if (value instanceof Array array) {
+			return fromSqlArray(array);
+		}
+		String json = value instanceof PGobject pg ? pg.getValue() : String.valueOf(value);
+		if (json == null || json.isBlank()) {
+			return null;
+		}
+		try {
+			return readArray(json);
+		} catch (Exception ex) {
+			throw new IllegalArgumentException("No se pudo parsear stockPorDeposito (esperado JSON array): " + ex.getMessage());
+		}
+	}
+
+	private List<T> readArray(String json) throws java.io.IOException {
+		try (JsonParser parser = itemReader.createParser(json)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				throw new IllegalArgumentException("se esperaba un array JSON");
+			}
+			List<T> items = new ArrayList<>();
+			JsonToken token;
+			while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+				if (token == null) {
+					throw new IllegalArgumentException("array JSON incompleto");
+				}
+				items.add(token == JsonToken.VALUE_NULL ? null : itemReader.readValue(parser));
+			}
+			return items;
+		}
+	}
+
+	/**
+	 * Arrays SQL: cada elemento es un objeto JSON (PGobject o texto) o un Map.
+	 */
+	private List<T> fromSqlArray(Array array) {
+		Object[] elements;
+		try {
+			elements = (Object[]) array.getArray();
+		} catch (SQLException | ClassCastException ex) {
+			throw new IllegalArgumentException("No se pudo leer stockPorDeposito como array SQL: " + ex.getMessage());
+		}
+		List<T> items = new ArrayList<>(elements.length);
+		for (Object element : elements) {
+			items.add(readItem(element));
+		}
+		return items;
+	}
+
+	private T readItem(Object element) {
+		if (element == null) {
+			return null;
+		}
+		try {
+			if (element instanceof Map<?, ?> map) {
+				return objectMapper.convertValue(map, itemType);
+			}
+			String json = element instanceof PGobject pg ? pg.getValue() : String.valueOf(element);
+			return json == null || json.isBlank() ? null : itemReader.readValue(json);
+		} catch (Exception ex) {
+			throw new IllegalArgumentException("No se pudo interpretar stockPorDeposito como lista de items: " + ex.getMessage());
+		}
+	}
+}
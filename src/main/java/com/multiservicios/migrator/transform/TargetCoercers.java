@@ -0,0 +1,104 @@
+package com.multiservicios.migrator.transform;
+
+import java.math.BigDecimal;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coerción del valor mapeado al tipo de la propiedad destino, elegida una vez por tipo (ver
+ * {@link PropertySetters}). null entra y sale como null.
+ */
+final class TargetCoercers {
+	private TargetCoercers() {
+	}
+
+	static UnaryOperator<Object> forType(Class<?> targetType) {
+		if (BigDecimal.class.equals(targetType)) {
+			return TargetCoercers::asBigDecimalOrNull;
+		}
+		if (Long.class.equals(targetType)) {
+			return TargetCoercers::asLongOrNull;
+		}
+		if (Boolean.class.equals(targetType)) {
+			return TargetCoercers::asBooleanOrNull;
+		}
+		if (String.class.equals(targetType)) {
+			return value -> value == null || value instanceof String ? value : String.valueOf(value);
+		}
+		if (targetType.isEnum()) {
+			@SuppressWarnings({"rawtypes", "unchecked"})
+			Class<? extends Enum> enumType = (Class<? extends Enum>) targetType;
+			return value -> asEnumOrValue(enumType, value);
+		}
+		return UnaryOperator.identity();
+	}
+
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private static Object asEnumOrValue(Class<? extends Enum> enumType, Object value) {
+		if (!(value instanceof String s)) {
+			return value;
+		}
+		String t = s.trim();
+		if (t.isEmpty()) {
+			return null;
+		}
+		try {
+			return Enum.valueOf(enumType, t.toUpperCase());
+		} catch (Exception ex) {
+			return value;
+		}
+	}
+
+	private static BigDecimal asBigDecimalOrNull(Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof BigDecimal bd) {
+			return bd;
+		}
+		if (value instanceof Number n) {
+			return new BigDecimal(String.valueOf(n));
+		}
+		String s = String.valueOf(value).trim();
+		if (s.isEmpty()) {
+			return null;
+		}
+		return new BigDecimal(s);
+	}
+
+	private static Long asLongOrNull(Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof Long l) {
+			return l;
+		}
+		if (value instanceof Integer i) {
+			return i.longValue();
+		}
+		if (value instanceof Number n) {
+			return n.longValue();
+		}
+		String s = String.valueOf(value).trim();
+		if (s.isEmpty()) {
+			return null;
+		}
+		return Long.parseLong(s);
+	}
+
+	private static Boolean asBooleanOrNull(Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof Boolean b) {
+			return b;
+		}
+		if (value instanceof Number n) {
+			return n.intValue() != 0;
+		}
+		String s = String.valueOf(value).trim();
+		if (s.isEmpty()) {
+			return null;
+		}
+		return Boolean.parseBoolean(s);
+	}
+}
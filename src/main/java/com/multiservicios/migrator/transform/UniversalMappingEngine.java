@@ -1,5 +1,6 @@
 package com.multiservicios.migrator.transform;
 
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -9,6 +10,7 @@ import org.springframework.stereotype.Component;
 import com.multiservicios.migrator.model.FieldMapping;
 import com.multiservicios.migrator.model.MappingType;
 import com.multiservicios.migrator.model.RowData;
+import com.multiservicios.migrator.model.RowSchema;
 
 @Component
 public class UniversalMappingEngine {
@@ -37,6 +39,25 @@ public class UniversalMappingEngine {
 		return values;
 	}
 
+	/**
+	 * Compila los mapeos una vez por corrida (ver {@link RuleProcessor#compile}).
+	 */
+	public MappingPlan compile(List<FieldMapping> mappings, Collection<String> sourceColumns) {
+		return ruleProcessor.compile(mappings, sourceColumns);
+	}
+
+	public MappingPlan compile(List<FieldMapping> mappings, RowSchema schema) {
+		return ruleProcessor.compile(mappings, schema);
+	}
+
+	public Map<String, Object> mapToColumns(RowData row, MappingPlan plan) {
+		Map<String, Object> values = new LinkedHashMap<>(Math.max(4, plan.size() * 2));
+		for (int i = 0; i < plan.size(); i++) {
+			values.put(plan.target(i), plan.resolve(i, row));
+		}
+		return values;
+	}
+
 	public static boolean isDirect(FieldMapping mapping) {
 		if (mapping == null) {
 			return false;
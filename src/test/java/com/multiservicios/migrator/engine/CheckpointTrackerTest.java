@@ -0,0 +1,112 @@
+package com.multiservicios.migrator.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.multiservicios.migrator.config.MigratorProperties;
+import com.multiservicios.migrator.engine.CheckpointStore.RunCheckpoint;
+import com.multiservicios.migrator.logs.MigrationLogService;
+import com.multiservicios.migrator.logs.RunLog;
+
+class CheckpointTrackerTest {
+	private static final String RUN = "run-1";
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void watermark_waitsForTheGap_beforeAdvancingPastOutOfOrderChunks() {
+		CheckpointTracker tracker = new CheckpointTracker(store(dir), log(), RUN, "id", null);
+
+		tracker.completed(21, 30, 30L);
+		tracker.completed(11, 20, 20L);
+		assertEquals(0, tracker.rowsCommitted());
+
+		tracker.completed(1, 10, 10L);
+		assertEquals(30, tracker.rowsCommitted());
+
+		tracker.completed(41, 50, 50L);
+		assertEquals(30, tracker.rowsCommitted());
+	}
+
+	@Test
+	void flush_savesThePendingWatermark_withTheLastKeyOfTheContiguousRange() throws IOException {
+		CheckpointStore store = store(dir);
+		CheckpointTracker tracker = new CheckpointTracker(store, log(), RUN, "id", null);
+
+		tracker.completed(1, 10, new BigDecimal("1E+1"));
+		tracker.completed(21, 30, 30L);
+		// dentro del intervalo de guardado todavía no se escribe nada
+		assertTrue(store.load(RUN).isEmpty());
+
+		tracker.flush();
+		RunCheckpoint saved = store.load(RUN).orElseThrow();
+		assertEquals(10, saved.rowsCommitted());
+		assertEquals("id", saved.keyColumn());
+		assertEquals("10", saved.lastKey());
+		assertTrue(saved.lastKeyNumeric());
+	}
+
+	@Test
+	void resumedRun_addsTheRowsAlreadyCommitted_andKeepsTheOldKeyUntilItAdvances() throws IOException {
+		CheckpointStore store = store(dir);
+		RunCheckpoint previous = new RunCheckpoint(RUN, 100, "codigo", "A-100", false, Instant.now());
+
+		CheckpointTracker tracker = new CheckpointTracker(store, log(), RUN, "codigo", previous);
+		assertEquals(100, tracker.rowsCommitted());
+
+		tracker.completed(1, 5, "A-105");
+		tracker.flush();
+		RunCheckpoint saved = store.load(RUN).orElseThrow();
+		assertEquals(105, saved.rowsCommitted());
+		assertEquals("A-105", saved.lastKey());
+		assertFalse(saved.lastKeyNumeric());
+	}
+
+	@Test
+	void finish_deletesTheCheckpoint() throws IOException {
+		CheckpointStore store = store(dir);
+		CheckpointTracker tracker = new CheckpointTracker(store, log(), RUN, null, null);
+		tracker.completed(1, 10, null);
+		tracker.flush();
+		assertTrue(store.load(RUN).isPresent());
+
+		tracker.finish();
+		assertTrue(store.load(RUN).isEmpty());
+	}
+
+	@Test
+	void failedSave_isLoggedOnce_andTheRunGoesOn() throws IOException {
+		Path notADir = Files.createFile(dir.resolve("ocupado"));
+		RunLog log = log();
+		CheckpointTracker tracker = new CheckpointTracker(store(notADir), log, RUN, null, null);
+
+		tracker.completed(1, 10, null);
+		tracker.flush();
+		tracker.completed(11, 20, null);
+		tracker.flush();
+
+		assertEquals(20, tracker.rowsCommitted());
+		assertEquals(1, log.snapshot().stream().filter(e -> e.level().equals("ERROR")).count());
+	}
+
+	private static CheckpointStore store(Path dir) {
+		MigratorProperties properties = new MigratorProperties();
+		properties.getCheckpoint().setDir(dir.toString());
+		return new CheckpointStore(properties);
+	}
+
+	private static RunLog log() {
+		return new MigrationLogService(new MigratorProperties()).start();
+	}
+}
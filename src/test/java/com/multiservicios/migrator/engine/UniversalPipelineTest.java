@@ -0,0 +1,186 @@
+package com.multiservicios.migrator.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.multiservicios.migrator.model.RowData;
+
+class UniversalPipelineTest {
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@Test
+	void orderedLogs_recordChunksInReadOrder_evenWhenLoadersFinishOutOfOrder() {
+		List<Integer> recorded = new ArrayList<>();
+		var stages = new TestStages(100) {
+			@Override
+			public Integer load(int worker, List<Integer> rows) {
+				// los chunks pares tardan más: los impares terminan antes
+				sleep(rows.get(0) % 20 == 1 ? 5 : 0);
+				return rows.size();
+			}
+
+			@Override
+			public void record(List<Integer> rows, Integer result) {
+				recorded.addAll(rows);
+			}
+		};
+
+		long read = assertTimeoutPreemptively(TIMEOUT, () -> new UniversalPipeline<Integer, Integer>(3, 3, 2, 10, true).execute(stages));
+
+		assertEquals(100, read);
+		assertEquals(IntStream.rangeClosed(1, 100).boxed().toList(), recorded);
+	}
+
+	@Test
+	void boundedQueues_stopTheReaderWhileLoadIsBlocked() throws Exception {
+		CountDownLatch unblock = new CountDownLatch(1);
+		var stages = new TestStages(1_000) {
+			@Override
+			public Integer load(int worker, List<Integer> rows) {
+				try {
+					unblock.await();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				return rows.size();
+			}
+		};
+		var pipeline = new UniversalPipeline<Integer, Integer>(1, 1, 1, 1, true);
+		Thread run = Thread.ofVirtual().start(() -> pipeline.execute(stages));
+
+		TimeUnit.MILLISECONDS.sleep(300);
+		// una fila por etapa (lector, transformador, loader) más una por cola
+		assertTrue(stages.emitted.get() <= 5, "el lector siguió leyendo: " + stages.emitted.get());
+
+		unblock.countDown();
+		assertTrue(run.join(TIMEOUT));
+		assertEquals(1_000, stages.emitted.get());
+	}
+
+	@Test
+	void failingLoad_stopsThePipelineAndRethrowsTheFirstError() {
+		IllegalArgumentException boom = new IllegalArgumentException("falla de carga");
+		var stages = new TestStages(Integer.MAX_VALUE) {
+			@Override
+			public Integer load(int worker, List<Integer> rows) {
+				if (rows.get(0) > 20) {
+					throw boom;
+				}
+				return rows.size();
+			}
+		};
+
+		var thrown = assertTimeoutPreemptively(TIMEOUT,
+				() -> assertThrows(IllegalArgumentException.class, () -> new UniversalPipeline<Integer, Integer>(2, 2, 2, 10, false).execute(stages)));
+
+		assertSame(boom, thrown);
+	}
+
+	@Test
+	void cancelledRead_loadsWhatWasQueuedAndThenRethrows() {
+		List<Integer> recorded = new ArrayList<>();
+		var stages = new TestStages(25) {
+			@Override
+			public void read(Consumer<RowData> sink) {
+				super.read(sink);
+				throw new CancellationException("Corrida cancelada");
+			}
+
+			@Override
+			public void record(List<Integer> rows, Integer result) {
+				recorded.addAll(rows);
+			}
+		};
+
+		assertTimeoutPreemptively(TIMEOUT,
+				() -> assertThrows(CancellationException.class, () -> new UniversalPipeline<Integer, Integer>(2, 2, 2, 10, true).execute(stages)));
+
+		assertEquals(IntStream.rangeClosed(1, 25).boxed().toList(), recorded);
+	}
+
+	@Test
+	void failingRead_loadsWhatWasQueuedAndThenRethrows() {
+		IllegalStateException bad = new IllegalStateException("fila inválida");
+		List<Integer> recorded = new ArrayList<>();
+		var stages = new TestStages(25) {
+			@Override
+			public void read(Consumer<RowData> sink) {
+				super.read(sink);
+				throw bad;
+			}
+
+			@Override
+			public void record(List<Integer> rows, Integer result) {
+				recorded.addAll(rows);
+			}
+		};
+
+		var thrown = assertTimeoutPreemptively(TIMEOUT,
+				() -> assertThrows(IllegalStateException.class, () -> new UniversalPipeline<Integer, Integer>(2, 2, 2, 10, true).execute(stages)));
+
+		assertSame(bad, thrown);
+		assertEquals(IntStream.rangeClosed(1, 25).boxed().toList(), recorded);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			TimeUnit.MILLISECONDS.sleep(millis);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Origen de {@code rows} filas con la columna {@code id} = 1..rows; transforma cada fila a su id.
+	 */
+	private static class TestStages implements UniversalPipeline.Stages<Integer, Integer> {
+		final AtomicInteger emitted = new AtomicInteger();
+		private final int rows;
+
+		TestStages(int rows) {
+			this.rows = rows;
+		}
+
+		@Override
+		public void read(Consumer<RowData> sink) {
+			for (int i = 1; i <= rows; i++) {
+				if (Thread.currentThread().isInterrupted()) {
+					throw new IllegalStateException("Lectura interrumpida");
+				}
+				emitted.incrementAndGet();
+				sink.accept(new RowData(Map.of("id", i)));
+			}
+		}
+
+		@Override
+		public Integer transform(int rowNumber, RowData row) {
+			assertEquals(rowNumber, row.get("id"));
+			return rowNumber;
+		}
+
+		@Override
+		public Integer load(int worker, List<Integer> rows) {
+			return rows.size();
+		}
+
+		@Override
+		public void record(List<Integer> rows, Integer result) {
+		}
+	}
+}
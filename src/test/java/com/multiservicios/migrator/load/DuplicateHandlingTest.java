@@ -0,0 +1,51 @@
+package com.multiservicios.migrator.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.multiservicios.migrator.config.MigratorProperties.DuplicatePolicy;
+
+class DuplicateHandlingTest {
+	private static final List<String> COLUMNS = List.of("id", "Nombre", "precio");
+
+	@Test
+	void skip_doesNothingOnAnyConflict() {
+		var handling = new DuplicateHandling(DuplicatePolicy.SKIP, List.of("id"));
+		assertEquals(" on conflict do nothing", handling.onConflictClause(COLUMNS, true));
+	}
+
+	@Test
+	void error_andOtherDatabases_insertPlain() {
+		assertEquals("", DuplicateHandling.of(DuplicatePolicy.ERROR).onConflictClause(COLUMNS, true));
+		assertEquals("", new DuplicateHandling(DuplicatePolicy.UPDATE, List.of("id")).onConflictClause(COLUMNS, false));
+		assertEquals("", DuplicateHandling.of(DuplicatePolicy.SKIP).onConflictClause(COLUMNS, false));
+	}
+
+	@Test
+	void update_setsTheNonKeyColumns() {
+		var handling = new DuplicateHandling(DuplicatePolicy.UPDATE, List.of(" id ", "", "Nombre"));
+		assertEquals(" on conflict (\"id\", \"Nombre\") do update set \"precio\" = excluded.\"precio\"",
+				handling.onConflictClause(COLUMNS, true));
+	}
+
+	@Test
+	void update_withOnlyKeyColumns_doesNothing() {
+		var handling = new DuplicateHandling(DuplicatePolicy.UPDATE, List.of("id"));
+		assertEquals(" on conflict (\"id\") do nothing", handling.onConflictClause(List.of("id"), true));
+	}
+
+	@Test
+	void update_withoutConflictColumns_fallsBackToDoNothing() {
+		assertEquals(" on conflict do nothing", DuplicateHandling.of(DuplicatePolicy.UPDATE).onConflictClause(COLUMNS, true));
+	}
+
+	@Test
+	void update_quotesIdentifiers() {
+		var handling = new DuplicateHandling(DuplicatePolicy.UPDATE, List.of("co\"d"));
+		assertEquals(" on conflict (\"co\"\"d\") do update set \"valor\" = excluded.\"valor\"",
+				handling.onConflictClause(List.of("co\"d", "valor"), true));
+	}
+}
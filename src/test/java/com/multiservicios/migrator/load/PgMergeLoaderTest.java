@@ -0,0 +1,72 @@
+package com.multiservicios.migrator.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.multiservicios.migrator.config.MigratorProperties.DuplicatePolicy;
+
+class PgMergeLoaderTest {
+	private static final List<String> COLUMNS = List.of("id", "nombre");
+
+	@Test
+	void skip_insertsInStagingOrder_andIgnoresConflicts() {
+		String sql = PgMergeLoader.buildMergeSql("public", "productos", DuplicateHandling.of(DuplicatePolicy.SKIP),
+				"mig_stg_1", COLUMNS);
+		assertEquals("with m as (insert into \"public\".\"productos\" (\"id\", \"nombre\") select \"id\", \"nombre\""
+				+ " from \"mig_stg_1\" order by \"__row\" on conflict do nothing returning (xmax = 0) as inserted)"
+				+ " select count(*) filter (where inserted), count(*) filter (where not inserted) from m", sql);
+	}
+
+	@Test
+	void upsert_keepsTheLastRowPerKey() {
+		String sql = PgMergeLoader.buildMergeSql("public", "productos",
+				new DuplicateHandling(DuplicatePolicy.UPDATE, List.of("id")), "mig_stg_1", COLUMNS);
+		assertEquals("with m as (insert into \"public\".\"productos\" (\"id\", \"nombre\") select \"id\", \"nombre\""
+				+ " from (select * from (select distinct on (\"id\") * from \"mig_stg_1\" where \"id\" is not null"
+				+ " order by \"id\", \"__row\" desc) d"
+				+ " union all select * from \"mig_stg_1\" where not (\"id\" is not null)) s"
+				+ " order by \"__row\" on conflict (\"id\") do update set \"nombre\" = excluded.\"nombre\""
+				+ " returning (xmax = 0) as inserted)"
+				+ " select count(*) filter (where inserted), count(*) filter (where not inserted) from m", sql);
+	}
+
+	@Test
+	void upsert_keepsEveryRowWithANullKeyPart() {
+		String sql = PgMergeLoader.buildMergeSql("public", "productos",
+				new DuplicateHandling(DuplicatePolicy.UPDATE, List.of("id", "nombre")), "stg", COLUMNS);
+		assertTrue(sql.contains(" where \"id\" is not null and \"nombre\" is not null order by \"id\", \"nombre\", \"__row\" desc) d"), sql);
+		assertTrue(sql.contains(" union all select * from \"stg\" where not (\"id\" is not null and \"nombre\" is not null)) s"), sql);
+	}
+
+	@Test
+	void upsert_withKeyMissingFromTheRow_doesNotDedupe() {
+		String sql = PgMergeLoader.buildMergeSql("public", "productos",
+				new DuplicateHandling(DuplicatePolicy.UPDATE, List.of("codigo")), "mig_stg_1", COLUMNS);
+		assertFalse(sql.contains("distinct on"));
+	}
+
+	@Test
+	void error_insertsPlain() {
+		String sql = PgMergeLoader.buildMergeSql("s", "t", DuplicateHandling.of(DuplicatePolicy.ERROR), "stg", COLUMNS);
+		assertFalse(sql.contains("on conflict"));
+	}
+
+	@Test
+	void rowColumn_avoidsLoadedColumns_ignoringCase() {
+		assertEquals("__row", PgMergeLoader.rowColumn(COLUMNS));
+		assertEquals("___row", PgMergeLoader.rowColumn(List.of("id", "__ROW")));
+		assertEquals("____row", PgMergeLoader.rowColumn(List.of("__row", "___row")));
+	}
+
+	@Test
+	void mergeSql_usesTheRenamedRowColumn() {
+		String sql = PgMergeLoader.buildMergeSql("s", "t", DuplicateHandling.of(DuplicatePolicy.SKIP), "stg",
+				List.of("id", "__row"));
+		assertTrue(sql.contains(" from \"stg\" order by \"___row\" "));
+	}
+}
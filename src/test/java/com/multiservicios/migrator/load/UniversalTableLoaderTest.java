@@ -0,0 +1,46 @@
+package com.multiservicios.migrator.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.multiservicios.migrator.config.MigratorProperties.DuplicatePolicy;
+import com.multiservicios.migrator.model.ColumnMeta;
+
+class UniversalTableLoaderTest {
+	private static final Map<String, ColumnMeta> META = Map.of(
+			"id", column("id"),
+			"codigo", column("codigo"),
+			"nombre", column("Nombre"));
+
+	@Test
+	void explicitConflictColumns_takeTheRealColumnName() {
+		assertEquals(List.of("id", "codigo", "Nombre"),
+				UniversalTableLoader.canonicalConflictColumns(List.of("ID", "Codigo", "nombre"), "public", "t", Set.of(), META));
+	}
+
+	@Test
+	void canonicalKey_matchesTheMergeDedupe() {
+		var handling = new DuplicateHandling(DuplicatePolicy.UPDATE,
+				UniversalTableLoader.canonicalConflictColumns(List.of("ID"), "public", "t", Set.of("id", "nombre"), META));
+		String sql = PgMergeLoader.buildMergeSql("public", "t", handling, "stg", List.of("id", "Nombre"));
+		assertTrue(sql.contains("distinct on (\"id\")") && sql.contains("on conflict (\"id\")"), sql);
+	}
+
+	@Test
+	void unknownConflictColumn_isRejected() {
+		assertThrows(IllegalArgumentException.class,
+				() -> UniversalTableLoader.canonicalConflictColumns(List.of("clave"), "public", "t", Set.of(), META));
+	}
+
+	private static ColumnMeta column(String name) {
+		return new ColumnMeta(name, Types.VARCHAR, "varchar", 50, null, true, null, false, false);
+	}
+}
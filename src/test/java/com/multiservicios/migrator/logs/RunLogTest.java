@@ -0,0 +1,79 @@
+package com.multiservicios.migrator.logs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.multiservicios.migrator.config.MigratorProperties;
+import com.multiservicios.migrator.logs.MigrationLogService.MigrationLogEntry;
+
+class RunLogTest {
+	@Test
+	void snapshot_returnsEntriesInArrivalOrder() {
+		RunLog log = new RunLog(UUID.randomUUID(), 10);
+		log.info(1, "fila 1");
+		log.error(2, "fila 2");
+
+		List<MigrationLogEntry> entries = log.snapshot();
+		assertEquals(2, entries.size());
+		assertEquals(List.of("INFO", "ERROR"), entries.stream().map(MigrationLogEntry::level).toList());
+		assertEquals(List.of(1, 2), entries.stream().map(MigrationLogEntry::rowNumber).toList());
+		assertEquals("fila 2", entries.get(1).message());
+	}
+
+	@Test
+	void wrapAround_keepsTheNewestEntries_andReportsTheDiscardedOnes() {
+		RunLog log = new RunLog(UUID.randomUUID(), 3);
+		IntStream.rangeClosed(1, 7).forEach(i -> log.info(i, "fila " + i));
+
+		List<MigrationLogEntry> entries = log.snapshot();
+		assertEquals(4, entries.size());
+		assertEquals(0, entries.get(0).rowNumber());
+		assertTrue(entries.get(0).message().contains("las 4 entradas"), entries.get(0).message());
+		assertEquals(List.of(5, 6, 7), entries.subList(1, 4).stream().map(MigrationLogEntry::rowNumber).toList());
+	}
+
+	@Test
+	void exactlyFull_reportsNothingDiscarded() {
+		RunLog log = new RunLog(UUID.randomUUID(), 3);
+		IntStream.rangeClosed(1, 3).forEach(i -> log.info(i, "fila " + i));
+
+		assertEquals(List.of(1, 2, 3), log.snapshot().stream().map(MigrationLogEntry::rowNumber).toList());
+	}
+
+	@Test
+	void concurrentWriters_doNotLoseEntriesWithinCapacity() throws InterruptedException {
+		RunLog log = new RunLog(UUID.randomUUID(), 4_000);
+		Thread[] writers = new Thread[4];
+		for (int w = 0; w < writers.length; w++) {
+			int base = w * 1_000;
+			writers[w] = Thread.ofVirtual().start(() -> IntStream.range(0, 1_000).forEach(i -> log.info(base + i, "x")));
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+
+		assertEquals(4_000, log.snapshot().size());
+	}
+
+	@Test
+	void registry_neverEvictsTheLogOfARunningJob() {
+		MigratorProperties properties = new MigratorProperties();
+		properties.getLogs().setRetainedRuns(1);
+		MigrationLogService service = new MigrationLogService(properties);
+
+		UUID running = UUID.randomUUID();
+		service.start(running).info(1, "en curso");
+		UUID finished = UUID.randomUUID();
+		service.start(finished).markFinished();
+		service.start(UUID.randomUUID());
+
+		assertEquals(1, service.snapshot(running).size());
+		assertTrue(service.snapshot(finished).isEmpty());
+	}
+}
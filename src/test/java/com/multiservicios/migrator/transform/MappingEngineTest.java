@@ -2,17 +2,24 @@ package com.multiservicios.migrator.transform;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.expression.spel.SpelEvaluationException;
 
 import com.multiservicios.migrator.config.MigratorProperties;
 import com.multiservicios.migrator.model.FieldMapping;
 import com.multiservicios.migrator.model.MappingType;
 import com.multiservicios.migrator.model.RowData;
+import com.multiservicios.migrator.model.RowSchema;
 
 class MappingEngineTest {
 	@Test
@@ -89,4 +96,148 @@ class MappingEngineTest {
 		assertTrue(values.containsKey("created_at"));
 		assertNotNull(values.get("created_at"));
 	}
+
+	@Test
+	void compiledPlan_resolvesColumnsIgnoringCase_andAppliesRulesPerRow() {
+		MigratorProperties props = new MigratorProperties();
+		RuleProcessor ruleProcessor = new RuleProcessor(props);
+		UniversalMappingEngine engine = new UniversalMappingEngine(ruleProcessor);
+
+		FieldMapping precio = new FieldMapping();
+		precio.setType(MappingType.DIRECTO);
+		precio.setSource(" PRECIO ");
+		precio.setTarget(" precio ");
+		precio.setRule("toDecimal");
+
+		FieldMapping fecha = new FieldMapping();
+		fecha.setType(MappingType.DIRECTO);
+		fecha.setSource("fecha");
+		fecha.setTarget("fecha");
+		fecha.setRule("toDate('dd/MM/yyyy')");
+
+		FieldMapping activo = new FieldMapping();
+		activo.setType(MappingType.DIRECTO);
+		activo.setSource("true");
+		activo.setTarget("activo");
+
+		MappingPlan plan = engine.compile(List.of(precio, fecha, activo), List.of("precio", "fecha"));
+
+		var first = engine.mapToColumns(new RowData(Map.of("precio", "1.234,50", "fecha", "02/01/2024")), plan);
+		assertEquals(new BigDecimal("1234.50"), first.get("precio"));
+		assertEquals(LocalDate.of(2024, 1, 2), first.get("fecha"));
+		assertEquals(Boolean.TRUE, first.get("activo"));
+
+		var second = engine.mapToColumns(new RowData(Map.of("precio", "7", "fecha", "31/12/2023")), plan);
+		assertEquals(new BigDecimal("7"), second.get("precio"));
+		assertEquals(LocalDate.of(2023, 12, 31), second.get("fecha"));
+	}
+
+	@Test
+	void expressionMapping_keepsResultsWhenSpelSwitchesToCompiledMode() {
+		MigratorProperties props = new MigratorProperties();
+		RuleProcessor ruleProcessor = new RuleProcessor(props);
+		UniversalMappingEngine engine = new UniversalMappingEngine(ruleProcessor);
+
+		FieldMapping total = new FieldMapping();
+		total.setType(MappingType.EXPRESION);
+		total.setValue("#row['cantidad'] * 2");
+		total.setTarget("total");
+
+		MappingPlan plan = engine.compile(List.of(total), List.of("cantidad"));
+		for (int i = 0; i < 300; i++) {
+			assertEquals(i * 2, engine.mapToColumns(new RowData(Map.of("cantidad", i)), plan).get("total"));
+		}
+		// un NULL rompe la versión compilada: se re-evalúa interpretada y falla igual que antes
+		RowData nullRow = new RowData(Collections.singletonMap("cantidad", null));
+		assertThrows(SpelEvaluationException.class, () -> engine.mapToColumns(nullRow, plan));
+
+		// otra corrida (otro plan) con otro tipo de columna compila por su cuenta
+		MappingPlan otherRun = engine.compile(List.of(total), List.of("cantidad"));
+		for (int i = 0; i < 300; i++) {
+			assertEquals(i * 3.0d, engine.mapToColumns(new RowData(Map.of("cantidad", i * 1.5d)), otherRun).get("total"));
+		}
+		// la resolución suelta (sin plan) usa la expresión cacheada, interpretada
+		assertEquals(3.0d, ruleProcessor.resolveValue(new RowData(Map.of("cantidad", 1.5d)), total));
+	}
+
+	@Test
+	void sharedSchemaRows_resolveColumnsByPosition_andKeepMapView() {
+		MigratorProperties props = new MigratorProperties();
+		RuleProcessor ruleProcessor = new RuleProcessor(props);
+		UniversalMappingEngine engine = new UniversalMappingEngine(ruleProcessor);
+
+		RowSchema schema = new RowSchema(new String[] {"Codigo", "NOMBRE"}, null);
+		RowData row = new RowData(schema, new Object[] {"A-1", " Tornillo "});
+		assertEquals("A-1", row.get("codigo"));
+		assertEquals(List.of("Codigo", "NOMBRE"), List.copyOf(row.values().keySet()));
+		assertNull(row.values().get("codigo"));
+
+		FieldMapping nombre = new FieldMapping();
+		nombre.setType(MappingType.DIRECTO);
+		nombre.setSource("nombre");
+		nombre.setTarget("nombre");
+		nombre.setRule("trim");
+
+		FieldMapping codigo = new FieldMapping();
+		codigo.setType(MappingType.EXPRESION);
+		codigo.setValue("#row['Codigo'] + '-x'");
+		codigo.setTarget("codigo");
+
+		MappingPlan plan = engine.compile(List.of(nombre, codigo), schema);
+		var values = engine.mapToColumns(row, plan);
+		assertEquals("Tornillo", values.get("nombre"));
+		assertEquals("A-1-x", values.get("codigo"));
+	}
+
+	@Test
+	void productoPlan_setsNestedAndIndexedTargets_andRejectsUnknownTargetsAtCompileTime() {
+		MigratorProperties props = new MigratorProperties();
+		MappingEngine engine = new MappingEngine(new RuleProcessor(props));
+		RowSchema schema = new RowSchema(new String[] {"cant", "tipo", "precio"}, null);
+		RowData row = new RowData(schema, new Object[] {12, "servicio", "1500"});
+
+		FieldMapping cantidad = new FieldMapping();
+		cantidad.setType(MappingType.DIRECTO);
+		cantidad.setSource("cant");
+		cantidad.setTarget("stockPorDeposito[0].cantidad");
+
+		FieldMapping tipo = new FieldMapping();
+		tipo.setType(MappingType.DIRECTO);
+		tipo.setSource("tipo");
+		tipo.setTarget("producto.tipo");
+
+		FieldMapping precio = new FieldMapping();
+		precio.setType(MappingType.DIRECTO);
+		precio.setSource("precio");
+		precio.setTarget("producto.precioMinorista");
+
+		var dto = engine.mapToProducto(row, engine.compile(List.of(cantidad, tipo, precio), schema));
+		assertEquals(new BigDecimal("12"), dto.getStockPorDeposito().get(0).getCantidad());
+		assertEquals("SERVICIO", dto.getProducto().getTipo().name());
+		assertEquals(new BigDecimal("1500"), dto.getProducto().getPrecioMinorista());
+
+		FieldMapping invalid = new FieldMapping();
+		invalid.setType(MappingType.DIRECTO);
+		invalid.setSource("precio");
+		invalid.setTarget("producto.precioInexistente");
+		assertNotNull(engine.validateTargets(List.of(precio, invalid)));
+		assertThrows(IllegalArgumentException.class, () -> engine.compile(List.of(invalid), schema));
+	}
+
+	@Test
+	void productoPlan_reportsValuesThatCannotBeSet() {
+		MappingEngine engine = new MappingEngine(new RuleProcessor(new MigratorProperties()));
+		RowSchema schema = new RowSchema(new String[] {"precio"}, null);
+
+		FieldMapping precio = new FieldMapping();
+		precio.setType(MappingType.DIRECTO);
+		precio.setSource("precio");
+		precio.setTarget("producto.precioMinorista");
+		var plan = engine.compile(List.of(precio), schema);
+
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+				() -> engine.mapToProducto(new RowData(schema, new Object[] {"no-es-numero"}), plan));
+		assertTrue(ex.getMessage().contains("producto.precioMinorista"));
+		assertNull(engine.mapToProducto(new RowData(schema, new Object[] {null}), plan).getProducto().getPrecioMinorista());
+	}
 }
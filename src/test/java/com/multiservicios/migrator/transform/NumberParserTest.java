@@ -0,0 +1,45 @@
+package com.multiservicios.migrator.transform;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+class NumberParserTest {
+	@Test
+	void parseDecimal_handlesLocaleForms_andSignalsInvalidWithNull() {
+		assertEquals(new BigDecimal("1234.56"), NumberParser.parseDecimal("1.234,56"));
+		assertEquals(new BigDecimal("1234.56"), NumberParser.parseDecimal(" 1234.56 "));
+		assertEquals(new BigDecimal("-1234.5"), NumberParser.parseDecimal("-1 234,5"));
+		assertEquals(new BigDecimal("1.5E+3"), NumberParser.parseDecimal("1.5e3"));
+		assertEquals(new BigDecimal("12345678901234567890.12"), NumberParser.parseDecimal("12.345.678.901.234.567.890,12"));
+		assertNull(NumberParser.parseDecimal("1.2.3"));
+		assertNull(NumberParser.parseDecimal("12a"));
+		assertNull(NumberParser.parseDecimal(""));
+		assertNull(NumberParser.parseDecimal("NaN"));
+	}
+
+	@Test
+	void parseLong_exactRejectsFractions_truncatedDropsThem() {
+		assertEquals(1200L, NumberParser.parseLongExact("1.200,00"));
+		assertNull(NumberParser.parseLongExact("12,5"));
+		assertNull(NumberParser.parseLongExact("99999999999999999999"));
+		assertEquals(12L, NumberParser.parseLongTruncated("12,9"));
+		assertEquals(-12L, NumberParser.parseLongTruncated("-12.9"));
+	}
+
+	@Test
+	void parseDouble_acceptsNonFiniteNames() {
+		assertTrue(Double.isNaN(NumberParser.parseDouble("NaN")));
+		assertEquals(Double.POSITIVE_INFINITY, NumberParser.parseDouble("Infinity"));
+		assertEquals(Double.POSITIVE_INFINITY, NumberParser.parseDouble(" +inf "));
+		assertEquals(Double.NEGATIVE_INFINITY, NumberParser.parseDouble("-Infinity"));
+		assertEquals(1234.5d, NumberParser.parseDouble("1.234,5"));
+		assertNull(NumberParser.parseDouble("-NaN"));
+		assertNull(NumberParser.parseDouble("Infinit"));
+		assertNull(NumberParser.parseDouble(" "));
+	}
+}
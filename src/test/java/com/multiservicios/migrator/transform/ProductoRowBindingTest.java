@@ -0,0 +1,50 @@
+package com.multiservicios.migrator.transform;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import com.multiservicios.migrator.transform.ProductoRowBinding.Field;
+
+class ProductoRowBindingTest {
+	@Test
+	void exactKeyWins_overCaseInsensitiveMatch() {
+		Map<String, Object> row = new LinkedHashMap<>();
+		row.put("NOMBRE", "mayúsculas");
+		row.put("nombre", "exacto");
+		row.put("Stock", 5);
+		row.put("otra", "x");
+
+		var bound = ProductoRowBinding.forKeys(row.keySet()).bind(row);
+		assertEquals("exacto", bound.get(Field.NOMBRE));
+		assertEquals(5, bound.get(Field.STOCK));
+		assertTrue(bound.has(Field.STOCK));
+		assertFalse(bound.has(Field.PRECIO_MINORISTA));
+	}
+
+	@Test
+	void caseInsensitiveRow_bindsTheRealKey() {
+		Map<String, Object> row = new LinkedCaseInsensitiveMap<>();
+		row.put("PRECIOMINORISTA", 10);
+		row.put("Nombre", "A");
+
+		var bound = ProductoRowBinding.forKeys(row.keySet()).bind(row);
+		assertEquals(10, bound.get(Field.PRECIO_MINORISTA));
+		assertEquals("A", bound.get(Field.NOMBRE));
+	}
+
+	@Test
+	void rowWithOtherColumns_isRejected() {
+		var binding = ProductoRowBinding.forKeys(List.of("nombre", "stock"));
+		assertThrows(IllegalArgumentException.class, () -> binding.bind(Map.of("nombre", "A")));
+		assertThrows(IllegalArgumentException.class, () -> binding.bind(Map.of("nombre", "A", "STOCK", 1)));
+	}
+}
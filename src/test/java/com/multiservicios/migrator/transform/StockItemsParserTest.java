@@ -0,0 +1,102 @@
+package com.multiservicios.migrator.transform;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.util.PGobject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.multiservicios.migrator.dto.ProductoCreateRequest.StockPorDepositoItem;
+
+class StockItemsParserTest {
+	private final StockItemsParser<StockPorDepositoItem> parser = new StockItemsParser<>(new ObjectMapper(),
+			StockPorDepositoItem.class);
+
+	@Test
+	void jsonText_isReadItemByItem_keepingNullElements() {
+		List<StockPorDepositoItem> items = parser.parse("[{\"depositoId\":1,\"cantidad\":2.5},null,{\"depositoId\":3}]");
+
+		assertEquals(3, items.size());
+		assertItem(items.get(0), 1L, "2.5");
+		assertNull(items.get(1));
+		assertItem(items.get(2), 3L, null);
+	}
+
+	@Test
+	void blankOrNull_meansNoItems() {
+		assertNull(parser.parse(null));
+		assertNull(parser.parse("  "));
+		assertEquals(List.of(), parser.parse("[]"));
+	}
+
+	@Test
+	void invalidJson_isReported() {
+		assertThrows(IllegalArgumentException.class, () -> parser.parse("{\"depositoId\":1}"));
+		assertThrows(IllegalArgumentException.class, () -> parser.parse("[{\"depositoId\":1}"));
+		assertThrows(IllegalArgumentException.class, () -> parser.parse("[{\"depositoId\":\"x\"}]"));
+	}
+
+	@Test
+	void pgJsonb_isReadFromItsValue() throws Exception {
+		PGobject jsonb = new PGobject();
+		jsonb.setType("jsonb");
+		jsonb.setValue("[{\"depositoId\": 7, \"cantidad\": 10}]");
+
+		List<StockPorDepositoItem> items = parser.parse(jsonb);
+
+		assertEquals(1, items.size());
+		assertItem(items.get(0), 7L, "10");
+	}
+
+	@Test
+	void sqlArray_readsEachElement_includingNulls() throws Exception {
+		PGobject json = new PGobject();
+		json.setType("json");
+		json.setValue("{\"depositoId\": 1, \"cantidad\": 1}");
+
+		List<StockPorDepositoItem> items = parser.parse(sqlArray(json, "{\"depositoId\": 2}", null, "",
+				Map.of("depositoId", 4, "cantidad", 3)));
+
+		assertEquals(5, items.size());
+		assertItem(items.get(0), 1L, "1");
+		assertItem(items.get(1), 2L, null);
+		assertNull(items.get(2));
+		assertNull(items.get(3));
+		assertItem(items.get(4), 4L, "3");
+	}
+
+	@Test
+	void alreadyDeserializedList_isConverted() {
+		List<StockPorDepositoItem> items = parser.parse(List.of(Map.of("depositoId", 5, "cantidad", "1.5")));
+
+		assertEquals(1, items.size());
+		assertItem(items.get(0), 5L, "1.5");
+	}
+
+	private static void assertItem(StockPorDepositoItem item, Long depositoId, String cantidad) {
+		assertEquals(depositoId, item.getDepositoId());
+		assertEquals(cantidad == null ? null : new BigDecimal(cantidad), item.getCantidad());
+	}
+
+	/**
+	 * Array SQL en memoria: solo responde {@code getArray()}, como lo usa el parser.
+	 */
+	private static Array sqlArray(Object... elements) {
+		return (Array) Proxy.newProxyInstance(Array.class.getClassLoader(), new Class<?>[] { Array.class },
+				(proxy, method, args) -> {
+					if (method.getName().equals("getArray") && args == null) {
+						return Arrays.copyOf(elements, elements.length);
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+}